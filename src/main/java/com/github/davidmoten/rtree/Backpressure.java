@@ -1,10 +1,10 @@
 package com.github.davidmoten.rtree;
 
 import com.github.davidmoten.rtree.geometry.Geometry;
+import com.github.davidmoten.rtree.geometry.Rectangle;
 import com.github.davidmoten.rtree.internal.util.ImmutableStack;
 
 import rx.Subscriber;
-import rx.functions.Func1;
 
 /**
  * Utility methods for controlling backpressure of the tree search.
@@ -16,7 +16,7 @@ final class Backpressure {
     }
 
     static <T, S extends Geometry> ImmutableStack<NodePosition<T, S>> search(
-            final Func1<? super Geometry, Boolean> condition,
+            final SearchPredicate<? super S> condition,
             final Subscriber<? super Entry<T, S>> subscriber,
             final ImmutableStack<NodePosition<T, S>> stack, final long request) {
         StackAndRequest<NodePosition<T, S>> state = StackAndRequest.create(stack, request);
@@ -24,7 +24,7 @@ final class Backpressure {
     }
 
     private static <S extends Geometry, T> ImmutableStack<NodePosition<T, S>> searchAndReturnStack(
-            final Func1<? super Geometry, Boolean> condition,
+            final SearchPredicate<? super S> condition,
             final Subscriber<? super Entry<T, S>> subscriber,
             StackAndRequest<NodePosition<T, S>> state) {
 
@@ -65,12 +65,12 @@ final class Backpressure {
     }
 
     private static <T, S extends Geometry> StackAndRequest<NodePosition<T, S>> searchLeaf(
-            final Func1<? super Geometry, Boolean> condition,
+            final SearchPredicate<? super S> condition,
             final Subscriber<? super Entry<T, S>> subscriber,
             StackAndRequest<NodePosition<T, S>> state, NodePosition<T, S> np) {
         final long nextRequest;
         Entry<T, S> entry = ((Leaf<T, S>) np.node()).entry(np.position());
-        if (condition.call(entry.geometry())) {
+        if (condition.testEntry(entry.geometry())) {
             subscriber.onNext(entry);
             nextRequest = state.request - 1;
         } else
@@ -79,10 +79,11 @@ final class Backpressure {
     }
 
     private static <S extends Geometry, T> ImmutableStack<NodePosition<T, S>> searchNonLeaf(
-            final Func1<? super Geometry, Boolean> condition,
+            final SearchPredicate<? super S> condition,
             ImmutableStack<NodePosition<T, S>> stack, NodePosition<T, S> np) {
         Node<T, S> child = ((NonLeaf<T, S>) np.node()).child(np.position());
-        if (condition.call(child.geometry())) {
+        Rectangle mbr = child.geometry().mbr();
+        if (condition.testNode(mbr.x1(), mbr.y1(), mbr.x2(), mbr.y2())) {
             stack = stack.push(new NodePosition<T, S>(child, 0));
         } else {
             stack = stack.pop().push(np.nextPosition());
@@ -1,6 +1,7 @@
 package com.github.davidmoten.rtree;
 
 import com.github.davidmoten.rtree.geometry.Geometry;
+import com.github.davidmoten.rtree.internal.FactoryAggregate;
 import com.github.davidmoten.rtree.internal.FactoryDefault;
 
 public final class Factories {
@@ -12,4 +13,17 @@ public final class Factories {
     public static <T, S extends Geometry> Factory<T, S> defaultFactory() {
         return FactoryDefault.instance();
     }
+
+    /**
+     * Returns a factory whose non-leaf nodes implement {@link HasEntryCount}.
+     * 
+     * @param <T>
+     *            value type
+     * @param <S>
+     *            geometry type
+     * @return aggregate factory
+     */
+    public static <T, S extends Geometry> Factory<T, S> aggregateFactory() {
+        return FactoryAggregate.instance();
+    }
 }
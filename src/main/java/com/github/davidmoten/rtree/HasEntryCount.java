@@ -0,0 +1,17 @@
+package com.github.davidmoten.rtree;
+
+/**
+ * Implemented by nodes that know the number of entries in their subtree (an
+ * aggregate R-tree) so that counting queries can use the count of a node that
+ * lies entirely within the query region rather than visiting its leaves.
+ */
+public interface HasEntryCount {
+
+    /**
+     * Returns the number of entries in the subtree of this node.
+     * 
+     * @return number of entries in the subtree
+     */
+    int entryCount();
+
+}
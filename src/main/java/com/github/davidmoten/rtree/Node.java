@@ -7,7 +7,6 @@ import com.github.davidmoten.rtree.geometry.HasGeometry;
 import com.github.davidmoten.rtree.internal.NodeAndEntries;
 
 import rx.Subscriber;
-import rx.functions.Func1;
 
 public interface Node<T, S extends Geometry> extends HasGeometry {
 
@@ -19,12 +18,12 @@ public interface Node<T, S extends Geometry> extends HasGeometry {
      * Run when a search requests Long.MAX_VALUE results. This is the
      * no-backpressure fast path.
      * 
-     * @param criterion
-     *            function that returns true if the geometry is a search match
+     * @param predicate
+     *            condition tested on node bounds and entry geometries
      * @param subscriber
      *            the subscriber to report search findings to
      */
-    void searchWithoutBackpressure(Func1<? super Geometry, Boolean> criterion,
+    void searchWithoutBackpressure(SearchPredicate<? super S> predicate,
             Subscriber<? super Entry<T, S>> subscriber);
 
     int count();
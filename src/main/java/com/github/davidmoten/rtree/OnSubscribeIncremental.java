@@ -0,0 +1,95 @@
+package com.github.davidmoten.rtree;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.davidmoten.rtree.geometry.Geometry;
+import com.github.davidmoten.rtree.internal.IncrementalSearch;
+
+import rx.Observable.OnSubscribe;
+import rx.Producer;
+import rx.Subscriber;
+import rx.functions.Func0;
+
+/**
+ * Emits the results of an {@link IncrementalSearch} honouring backpressure.
+ * The search itself holds the traversal state between requests (just as the
+ * stack of node positions does for {@link OnSubscribeSearch}) so no more of the
+ * tree is visited than is needed to satisfy the requests and the traversal
+ * stops as soon as the subscriber unsubscribes.
+ */
+final class OnSubscribeIncremental<T, S extends Geometry> implements OnSubscribe<Entry<T, S>> {
+
+    private final Func0<? extends IncrementalSearch<T, S>> searchFactory;
+
+    OnSubscribeIncremental(Func0<? extends IncrementalSearch<T, S>> searchFactory) {
+        this.searchFactory = searchFactory;
+    }
+
+    @Override
+    public void call(Subscriber<? super Entry<T, S>> subscriber) {
+        subscriber.setProducer(new IncrementalProducer<T, S>(searchFactory.call(), subscriber));
+    }
+
+    private static final class IncrementalProducer<T, S extends Geometry> implements Producer {
+
+        private final Subscriber<? super Entry<T, S>> subscriber;
+        private final IncrementalSearch<T, S> search;
+        private final AtomicLong requested = new AtomicLong(0);
+
+        IncrementalProducer(IncrementalSearch<T, S> search, Subscriber<? super Entry<T, S>> subscriber) {
+            this.search = search;
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            try {
+                if (n <= 0 || requested.get() == Long.MAX_VALUE)
+                    // none requested or already started with fast path
+                    return;
+                else if (n == Long.MAX_VALUE && requested.compareAndSet(0, Long.MAX_VALUE)) {
+                    // fast path
+                    requestAll();
+                } else
+                    requestSome(n);
+            } catch (RuntimeException e) {
+                subscriber.onError(e);
+            }
+        }
+
+        private void requestAll() {
+            Entry<T, S> entry;
+            while (!subscriber.isUnsubscribed() && (entry = search.next()) != null)
+                subscriber.onNext(entry);
+            if (!subscriber.isUnsubscribed())
+                subscriber.onCompleted();
+        }
+
+        private void requestSome(long n) {
+            // back pressure path, only the thread that moves requested from
+            // zero drains so the search is never accessed concurrently
+            long previousCount = OnSubscribeSearch.getAndAddRequest(requested, n);
+            if (previousCount == 0) {
+                while (true) {
+                    long r = requested.get();
+                    long emitted = 0;
+                    while (emitted < r) {
+                        if (subscriber.isUnsubscribed())
+                            return;
+                        Entry<T, S> entry = search.next();
+                        if (entry == null) {
+                            if (!subscriber.isUnsubscribed())
+                                subscriber.onCompleted();
+                            return;
+                        }
+                        subscriber.onNext(entry);
+                        emitted++;
+                    }
+                    if (requested.addAndGet(-r) == 0)
+                        return;
+                }
+            }
+        }
+    }
+
+}
@@ -9,14 +9,13 @@ import com.github.davidmoten.rtree.internal.util.ImmutableStack;
 import rx.Observable.OnSubscribe;
 import rx.Producer;
 import rx.Subscriber;
-import rx.functions.Func1;
 
 final class OnSubscribeSearch<T, S extends Geometry> implements OnSubscribe<Entry<T, S>> {
 
     private final Node<T, S> node;
-    private final Func1<? super Geometry, Boolean> condition;
+    private final SearchPredicate<? super S> condition;
 
-    OnSubscribeSearch(Node<T, S> node, Func1<? super Geometry, Boolean> condition) {
+    OnSubscribeSearch(Node<T, S> node, SearchPredicate<? super S> condition) {
         this.node = node;
         this.condition = condition;
     }
@@ -31,11 +30,11 @@ final class OnSubscribeSearch<T, S extends Geometry> implements OnSubscribe<Entr
 
         private final Subscriber<? super Entry<T, S>> subscriber;
         private final Node<T, S> node;
-        private final Func1<? super Geometry, Boolean> condition;
+        private final SearchPredicate<? super S> condition;
         private volatile ImmutableStack<NodePosition<T, S>> stack;
         private final AtomicLong requested = new AtomicLong(0);
 
-        SearchProducer(Node<T, S> node, Func1<? super Geometry, Boolean> condition,
+        SearchProducer(Node<T, S> node, SearchPredicate<? super S> condition,
                 Subscriber<? super Entry<T, S>> subscriber) {
             this.node = node;
             this.condition = condition;
@@ -111,7 +110,7 @@ final class OnSubscribeSearch<T, S extends Geometry> implements OnSubscribe<Entr
      *            the number of requests to add to the requested count
      * @return requested value just prior to successful addition
      */
-    private static long getAndAddRequest(AtomicLong requested, long n) {
+    static long getAndAddRequest(AtomicLong requested, long n) {
         // add n to field but check for overflow
         while (true) {
             long current = requested.get();
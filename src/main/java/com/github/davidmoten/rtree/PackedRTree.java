@@ -0,0 +1,425 @@
+package com.github.davidmoten.rtree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.github.davidmoten.guavamini.Optional;
+import com.github.davidmoten.guavamini.Preconditions;
+import com.github.davidmoten.rtree.geometry.Circle;
+import com.github.davidmoten.rtree.geometry.Geometry;
+import com.github.davidmoten.rtree.geometry.Line;
+import com.github.davidmoten.rtree.geometry.Point;
+import com.github.davidmoten.rtree.geometry.Rectangle;
+import com.github.davidmoten.rtree.geometry.internal.GeometryUtil;
+import com.github.davidmoten.rtree.internal.IncrementalSearch;
+import com.github.davidmoten.rtree.internal.util.DoubleIntHeap;
+
+import rx.Observable;
+import rx.functions.Action1;
+import rx.functions.Func0;
+
+/**
+ * An immutable read-only snapshot of an {@link RTree} (see
+ * {@link RTree#freeze()}) with the nodes packed into arrays rather than held
+ * as a graph of {@link Node}, {@link Rectangle} and {@link List} objects.
+ *
+ * <p>
+ * The nodes are numbered in breadth-first order so that the children of a node
+ * are consecutive and every level is contiguous. The bounds of node {@code i}
+ * are {@code bounds[4i]} to {@code bounds[4i + 3]} and its children are the
+ * nodes (or for a leaf the entries) numbered from {@code childStart[i]} up to
+ * but not including {@code childEnd[i]}. The tree is balanced so the leaves are
+ * the nodes numbered from {@code leafStart}. A search reads the bounds of
+ * sibling nodes from adjacent memory and follows no references until it
+ * reaches an entry.
+ *
+ * <p>
+ * Searches return the same entries in the same order as the same search of
+ * the {@link RTree} the snapshot was made from.
+ *
+ * @param <T>
+ *            the entry value type
+ * @param <S>
+ *            the entry geometry type
+ */
+public final class PackedRTree<T, S extends Geometry> {
+
+    private final double[] bounds;
+    private final int[] childStart;
+    private final int[] childEnd;
+    private final int leafStart;
+    private final Object[] entries;
+    private final Optional<Rectangle> mbr;
+
+    private PackedRTree(double[] bounds, int[] childStart, int[] childEnd, int leafStart,
+            Object[] entries, Optional<Rectangle> mbr) {
+        this.bounds = bounds;
+        this.childStart = childStart;
+        this.childEnd = childEnd;
+        this.leafStart = leafStart;
+        this.entries = entries;
+        this.mbr = mbr;
+    }
+
+    static <T, S extends Geometry> PackedRTree<T, S> create(RTree<T, S> tree) {
+        if (!tree.root().isPresent())
+            return new PackedRTree<T, S>(new double[0], new int[0], new int[0], 0,
+                    new Object[0], Optional.<Rectangle> absent());
+        List<Node<T, S>> nodes = new ArrayList<Node<T, S>>();
+        nodes.add(tree.root().get());
+        Object[] entries = new Object[tree.size()];
+        int numEntries = 0;
+        int[] childStart = new int[16];
+        int[] childEnd = new int[16];
+        int leafStart = -1;
+        // nodes is the breadth-first queue as well as the result
+        for (int i = 0; i < nodes.size(); i++) {
+            if (i == childStart.length) {
+                childStart = Arrays.copyOf(childStart, i * 2);
+                childEnd = Arrays.copyOf(childEnd, i * 2);
+            }
+            Node<T, S> node = nodes.get(i);
+            if (node instanceof Leaf) {
+                if (leafStart == -1)
+                    leafStart = i;
+                Leaf<T, S> leaf = (Leaf<T, S>) node;
+                childStart[i] = numEntries;
+                for (int j = 0; j < leaf.count(); j++)
+                    entries[numEntries++] = leaf.entry(j);
+                childEnd[i] = numEntries;
+            } else {
+                Preconditions.checkArgument(leafStart == -1, "tree is not balanced");
+                NonLeaf<T, S> nonLeaf = (NonLeaf<T, S>) node;
+                childStart[i] = nodes.size();
+                for (int j = 0; j < nonLeaf.count(); j++)
+                    nodes.add(nonLeaf.child(j));
+                childEnd[i] = nodes.size();
+            }
+        }
+        double[] bounds = new double[nodes.size() * 4];
+        for (int i = 0; i < nodes.size(); i++) {
+            Rectangle mbr = nodes.get(i).geometry().mbr();
+            bounds[4 * i] = mbr.x1();
+            bounds[4 * i + 1] = mbr.y1();
+            bounds[4 * i + 2] = mbr.x2();
+            bounds[4 * i + 3] = mbr.y2();
+        }
+        return new PackedRTree<T, S>(bounds, Arrays.copyOf(childStart, nodes.size()),
+                Arrays.copyOf(childEnd, nodes.size()), leafStart,
+                Arrays.copyOf(entries, numEntries), tree.mbr());
+    }
+
+    /**
+     * Returns the number of entries in the snapshot.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return entries.length;
+    }
+
+    /**
+     * Returns true if and only if the snapshot is empty of entries.
+     *
+     * @return is snapshot empty
+     */
+    public boolean isEmpty() {
+        return entries.length == 0;
+    }
+
+    /**
+     * If the snapshot has no entries returns {@link Optional#absent} otherwise
+     * returns the minimum bounding rectangle of all entries.
+     *
+     * @return minimum bounding rectangle of all entries
+     */
+    public Optional<Rectangle> mbr() {
+        return mbr;
+    }
+
+    /**
+     * Returns all entries in the snapshot as an {@link Observable} sequence.
+     *
+     * @return all entries
+     */
+    public Observable<Entry<T, S>> entries() {
+        return search(SearchPredicates.all());
+    }
+
+    /**
+     * Returns an {@link Observable} sequence of the {@link Entry}s whose geometry
+     * satisfies {@code predicate} (see {@link RTree#search(SearchPredicate)}).
+     *
+     * @param predicate
+     *            condition tested on node bounds and entry geometries
+     * @return sequence of matching entries
+     */
+    public Observable<Entry<T, S>> search(final SearchPredicate<? super S> predicate) {
+        Preconditions.checkNotNull(predicate);
+        if (isEmpty())
+            return Observable.empty();
+        else
+            return Observable.unsafeCreate(new OnSubscribeIncremental<T, S>(
+                    new Func0<IncrementalSearch<T, S>>() {
+                        @Override
+                        public IncrementalSearch<T, S> call() {
+                            return new Search<T, S>(PackedRTree.this, predicate);
+                        }
+                    }));
+    }
+
+    public Observable<Entry<T, S>> search(Rectangle r) {
+        return search(SearchPredicates.intersects(r));
+    }
+
+    public Observable<Entry<T, S>> search(Point p) {
+        return search(SearchPredicates.intersects(p));
+    }
+
+    public Observable<Entry<T, S>> search(Circle circle) {
+        return search(SearchPredicates.intersects(circle));
+    }
+
+    public Observable<Entry<T, S>> search(Line line) {
+        return search(SearchPredicates.intersects(line));
+    }
+
+    public Observable<Entry<T, S>> search(Rectangle r, double maxDistance) {
+        return search(SearchPredicates.withinDistance(r, maxDistance));
+    }
+
+    public Observable<Entry<T, S>> search(Point p, double maxDistance) {
+        return search(p.mbr(), maxDistance);
+    }
+
+    /**
+     * Passes each {@link Entry} whose geometry satisfies {@code predicate} to
+     * {@code action} on the calling thread, returning when the search is
+     * complete (see {@link RTree#search(SearchPredicate, Action1)}).
+     *
+     * @param predicate
+     *            condition tested on node bounds and entry geometries
+     * @param action
+     *            called with each entry that satisfies the predicate
+     */
+    public void search(SearchPredicate<? super S> predicate,
+            Action1<? super Entry<T, S>> action) {
+        Preconditions.checkNotNull(predicate);
+        if (!isEmpty() && testNode(predicate, 0))
+            search(0, predicate, action);
+    }
+
+    public void search(Rectangle r, Action1<? super Entry<T, S>> action) {
+        search(SearchPredicates.intersects(r), action);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void search(int node, SearchPredicate<? super S> predicate,
+            Action1<? super Entry<T, S>> action) {
+        int end = childEnd[node];
+        if (node >= leafStart) {
+            for (int i = childStart[node]; i < end; i++) {
+                Entry<T, S> entry = (Entry<T, S>) entries[i];
+                if (predicate.testEntry(entry.geometry()))
+                    action.call(entry);
+            }
+        } else {
+            for (int i = childStart[node]; i < end; i++)
+                if (testNode(predicate, i))
+                    search(i, predicate, action);
+        }
+    }
+
+    /**
+     * Returns the nearest k entries (k=maxCount) to the given rectangle where
+     * the entries are strictly less than a given maximum distance from the
+     * rectangle, in ascending order of distance (see
+     * {@link RTree#nearest(Rectangle, double, int)}).
+     *
+     * @param r
+     *            rectangle
+     * @param maxDistance
+     *            max distance of returned entries from the rectangle
+     * @param maxCount
+     *            max number of entries to return
+     * @return nearest entries to maxCount, in ascending order of distance
+     */
+    public Observable<Entry<T, S>> nearest(final Rectangle r, final double maxDistance,
+            final int maxCount) {
+        Preconditions.checkNotNull(r);
+        Preconditions.checkArgument(maxCount >= 0, "maxCount cannot be negative");
+        if (isEmpty())
+            return Observable.empty();
+        else
+            return Observable.unsafeCreate(new OnSubscribeIncremental<T, S>(
+                    new Func0<IncrementalSearch<T, S>>() {
+                        @Override
+                        public IncrementalSearch<T, S> call() {
+                            return new Nearest<T, S>(PackedRTree.this, r, maxDistance,
+                                    maxCount);
+                        }
+                    }));
+    }
+
+    public Observable<Entry<T, S>> nearest(Point p, double maxDistance, int maxCount) {
+        return nearest(p.mbr(), maxDistance, maxCount);
+    }
+
+    /**
+     * Returns all entries in ascending order of distance from the given
+     * rectangle (see {@link RTree#nearest(Rectangle)}).
+     *
+     * @param r
+     *            rectangle to measure distance from
+     * @return all entries in ascending order of distance from r
+     */
+    public Observable<Entry<T, S>> nearest(Rectangle r) {
+        return nearest(r, Double.POSITIVE_INFINITY, Integer.MAX_VALUE);
+    }
+
+    public Observable<Entry<T, S>> nearest(Point p) {
+        return nearest(p.mbr());
+    }
+
+    private boolean testNode(SearchPredicate<?> predicate, int node) {
+        int k = 4 * node;
+        return predicate.testNode(bounds[k], bounds[k + 1], bounds[k + 2], bounds[k + 3]);
+    }
+
+    private double distance(int node, Rectangle r) {
+        int k = 4 * node;
+        return GeometryUtil.distance(bounds[k], bounds[k + 1], bounds[k + 2], bounds[k + 3],
+                r.x1(), r.y1(), r.x2(), r.y2());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Entry<T, S> entry(int index) {
+        return (Entry<T, S>) entries[index];
+    }
+
+    /**
+     * Depth-first search holding the path from the root as node numbers and
+     * the position within each node.
+     */
+    private static final class Search<T, S extends Geometry> implements IncrementalSearch<T, S> {
+
+        private final PackedRTree<T, S> tree;
+        private final SearchPredicate<? super S> predicate;
+        private int[] nodes = new int[8];
+        private int[] positions = new int[8];
+        private int depth;
+
+        Search(PackedRTree<T, S> tree, SearchPredicate<? super S> predicate) {
+            this.tree = tree;
+            this.predicate = predicate;
+            if (tree.testNode(predicate, 0))
+                push(0);
+        }
+
+        @Override
+        public Entry<T, S> next() {
+            while (depth > 0) {
+                int node = nodes[depth - 1];
+                int position = positions[depth - 1];
+                if (position == tree.childEnd[node]) {
+                    depth--;
+                } else {
+                    positions[depth - 1] = position + 1;
+                    if (node >= tree.leafStart) {
+                        Entry<T, S> entry = tree.entry(position);
+                        if (predicate.testEntry(entry.geometry()))
+                            return entry;
+                    } else if (tree.testNode(predicate, position))
+                        push(position);
+                }
+            }
+            return null;
+        }
+
+        private void push(int node) {
+            if (depth == nodes.length) {
+                nodes = Arrays.copyOf(nodes, depth * 2);
+                positions = Arrays.copyOf(positions, depth * 2);
+            }
+            nodes[depth] = node;
+            positions[depth] = tree.childStart[node];
+            depth++;
+        }
+    }
+
+    /**
+     * Best-first nearest neighbour search as in
+     * {@link com.github.davidmoten.rtree.internal.BestFirstNearest} with nodes
+     * queued by number and entries by their index encoded as
+     * {@code -(index + 1)}.
+     */
+    private static final class Nearest<T, S extends Geometry> implements IncrementalSearch<T, S> {
+
+        private final PackedRTree<T, S> tree;
+        private final DoubleIntHeap heap = new DoubleIntHeap();
+        private final Rectangle query;
+        private final double maxDistance;
+        private final int maxCount;
+        private int remaining;
+
+        // the largest of the k smallest distances of entries queued so far,
+        // keyed by negated distance so that the largest is at the head
+        private final DoubleIntHeap nearestK;
+
+        Nearest(PackedRTree<T, S> tree, Rectangle query, double maxDistance, int maxCount) {
+            this.tree = tree;
+            this.query = query;
+            this.maxDistance = maxDistance;
+            this.maxCount = maxCount;
+            this.remaining = maxCount;
+            this.nearestK = maxCount == Integer.MAX_VALUE ? null
+                    : new DoubleIntHeap(Math.max(1, Math.min(maxCount, 1024)));
+            push(0);
+        }
+
+        @Override
+        public Entry<T, S> next() {
+            while (remaining > 0 && !heap.isEmpty()) {
+                int item = heap.poll();
+                if (item < 0) {
+                    remaining--;
+                    return tree.entry(-item - 1);
+                } else if (item < tree.leafStart) {
+                    int end = tree.childEnd[item];
+                    for (int i = tree.childStart[item]; i < end; i++)
+                        push(i);
+                } else {
+                    int end = tree.childEnd[item];
+                    for (int i = tree.childStart[item]; i < end; i++)
+                        pushEntry(i);
+                }
+            }
+            heap.clear();
+            return null;
+        }
+
+        private void push(int node) {
+            double d = tree.distance(node, query);
+            if (d < maxDistance && !beyondNearestK(d))
+                heap.add(d, node);
+        }
+
+        private void pushEntry(int index) {
+            double d = tree.entry(index).geometry().distance(query);
+            if (d < maxDistance && !beyondNearestK(d)) {
+                heap.add(d, -index - 1);
+                if (nearestK != null) {
+                    nearestK.add(-d, index);
+                    if (nearestK.size() > maxCount)
+                        nearestK.poll();
+                }
+            }
+        }
+
+        private boolean beyondNearestK(double d) {
+            return nearestK != null && nearestK.size() == maxCount && d > -nearestK.peekKey();
+        }
+    }
+
+}
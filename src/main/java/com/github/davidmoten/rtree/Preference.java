@@ -0,0 +1,11 @@
+package com.github.davidmoten.rtree;
+
+/**
+ * Whether smaller or larger values of a dimension are preferred by a skyline
+ * query (for example a lower price but a higher rating).
+ */
+public enum Preference {
+
+    MIN, MAX;
+
+}
@@ -4,26 +4,42 @@ import static com.github.davidmoten.guavamini.Optional.absent;
 import static com.github.davidmoten.guavamini.Optional.of;
 import static com.github.davidmoten.rtree.geometry.Geometries.rectangle;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
 
 import com.github.davidmoten.guavamini.Lists;
 import com.github.davidmoten.guavamini.Optional;
+import com.github.davidmoten.guavamini.Preconditions;
 import com.github.davidmoten.guavamini.annotations.VisibleForTesting;
 import com.github.davidmoten.rtree.geometry.Circle;
+import com.github.davidmoten.rtree.geometry.Geometries;
 import com.github.davidmoten.rtree.geometry.Geometry;
 import com.github.davidmoten.rtree.geometry.HasGeometry;
-import com.github.davidmoten.rtree.geometry.Intersects;
 import com.github.davidmoten.rtree.geometry.Line;
 import com.github.davidmoten.rtree.geometry.Point;
 import com.github.davidmoten.rtree.geometry.Rectangle;
-import com.github.davidmoten.rtree.internal.Comparators;
+import com.github.davidmoten.rtree.internal.BestFirstNearest;
+import com.github.davidmoten.rtree.internal.BranchAndBoundSkyband;
+import com.github.davidmoten.rtree.internal.BranchAndBoundSkyline;
+import com.github.davidmoten.rtree.internal.BranchAndBoundTopKDominating;
+import com.github.davidmoten.rtree.internal.HilbertCurve;
 import com.github.davidmoten.rtree.internal.NodeAndEntries;
-import com.github.davidmoten.rtree.internal.operators.OperatorBoundedPriorityQueue;
+import com.github.davidmoten.rtree.internal.NonLeafHelper;
+import com.github.davidmoten.rtree.internal.ReverseSkyline;
+import com.github.davidmoten.rtree.internal.SearchIterator;
+import com.github.davidmoten.rtree.internal.Util;
+import com.github.davidmoten.rtree.internal.util.IndexSort;
 
 import rx.Observable;
+import rx.functions.Action1;
+import rx.functions.Func0;
 import rx.functions.Func1;
 import rx.functions.Func2;
 
@@ -133,6 +149,26 @@ public final class RTree<T, S extends Geometry> {
         return new Builder().create(entries);
     }
 
+    /**
+     * Construct an Rtree of points held in columns through STR bulk loading
+     * without creating an entry per point for sorting. Defaults as for
+     * {@link #create(List)}.
+     * 
+     * @param x
+     *            x coordinate of each point
+     * @param y
+     *            y coordinate of each point
+     * @param value
+     *            returns the value of the entry for a point given its index
+     * @param <T>
+     *            the value type of the entries in the tree
+     * @return a new RTree instance
+     */
+    public static <T> RTree<T, Point> create(double[] x, double[] y,
+            Func1<Integer, ? extends T> value) {
+        return new Builder().create(x, y, value);
+    }
+
     /**
      * The tree is scanned for depth and the depth returned. This involves recursing
      * down to the leaf level of the tree to get the current depth. Should be
@@ -215,6 +251,36 @@ public final class RTree<T, S extends Geometry> {
         return new Builder().star();
     }
 
+    /**
+     * Builds an aggregate R-tree whose non-leaf nodes carry the number of
+     * entries in their subtree (see {@link Builder#aggregate()}).
+     * 
+     * @return builder
+     */
+    public static Builder aggregate() {
+        return new Builder().aggregate();
+    }
+
+    /**
+     * Bulk loads by Hilbert packing (see {@link Builder#hilbert()}).
+     * 
+     * @return builder
+     */
+    public static Builder hilbert() {
+        return new Builder().hilbert();
+    }
+
+    /**
+     * Bulk loads with STR on {@code pool} (see {@link Builder#parallel(ForkJoinPool)}).
+     * 
+     * @param pool
+     *            the pool to bulk load on
+     * @return builder
+     */
+    public static Builder parallel(ForkJoinPool pool) {
+        return new Builder().parallel(pool);
+    }
+
     /**
      * RTree Builder.
      */
@@ -234,6 +300,8 @@ public final class RTree<T, S extends Geometry> {
         private double loadingFactor;
         private boolean star = false;
         private Factory<Object, Geometry> factory = Factories.defaultFactory();
+        private Optional<ForkJoinPool> pool = absent();
+        private boolean hilbert = false;
 
         private Builder() {
             loadingFactor = DEFAULT_LOADING_FACTOR;
@@ -315,6 +383,46 @@ public final class RTree<T, S extends Geometry> {
             return this;
         }
 
+        /**
+         * Bulk loading with {@link #create(List)} orders the entries by the
+         * Hilbert value of the centre of their minimum bounding rectangle and
+         * packs leaves and upper levels in that order (Kamel and Faloutsos
+         * 1993) instead of using STR. This usually gives smaller leaves for
+         * skewed data.
+         * 
+         * @return builder
+         */
+        public Builder hilbert() {
+            hilbert = true;
+            return this;
+        }
+
+        /**
+         * Sets the factory to {@link Factories#aggregateFactory()} so that
+         * non-leaf nodes carry the number of entries in their subtree, which
+         * makes {@link RTree#count(Rectangle)} and dominance counting
+         * logarithmic at the cost of an int per non-leaf node.
+         * 
+         * @return builder
+         */
+        public Builder aggregate() {
+            return factory(Factories.aggregateFactory());
+        }
+
+        /**
+         * Bulk loading with STR sorts and packs the slices of each level
+         * concurrently on {@code pool}. The sorts are stable so the tree is the
+         * same as the one built on a single thread.
+         * 
+         * @param pool
+         *            the pool to bulk load on
+         * @return builder
+         */
+        public Builder parallel(ForkJoinPool pool) {
+            this.pool = of(pool);
+            return this;
+        }
+
         @SuppressWarnings("unchecked")
         public Builder factory(Factory<?, ? extends Geometry> factory) {
             // TODO could change the signature of Builder to have types to
@@ -347,8 +455,8 @@ public final class RTree<T, S extends Geometry> {
          * efficient algorithm for R-tree packing
          * http://ieeexplore.ieee.org/abstract/document/582015/
          * <p>
-         * Note: this method mutates the input entries, the internal order of the List
-         * may be changed.
+         * The centre of each entry is read once into primitive arrays and an
+         * array of indexes is sorted on them, so the input list is not modified.
          * </p>
          * 
          * @param entries
@@ -361,7 +469,77 @@ public final class RTree<T, S extends Geometry> {
 
             Context<T, S> context = new Context<T, S>(minChildren.get(), maxChildren.get(),
                     selector, splitter, (Factory<T, S>) factory);
-            return packingSTR(entries, true, entries.size(), context);
+            if (hilbert)
+                return packingHilbert(entries, context);
+            else
+                return packingSTR(entries, true, entries.size(), context);
+        }
+
+        /**
+         * Create an RTree by packing entries in the order given, for example
+         * entries streamed from a file that has been sorted by Hilbert value.
+         * Consecutive entries form the leaves and consecutive nodes form each
+         * level above so only the nodes of the level being built are held in
+         * memory (apart from the entries in the leaves).
+         * 
+         * @param entries
+         *            entries to be added to the r-tree, in packing order
+         * @param <T>
+         *            value type
+         * @param <S>
+         *            geometry type
+         * @return a loaded RTree
+         */
+        @SuppressWarnings("unchecked")
+        public <T, S extends Geometry> RTree<T, S> createPacked(Iterable<Entry<T, S>> entries) {
+            setDefaultCapacity();
+            Context<T, S> context = new Context<T, S>(minChildren.get(), maxChildren.get(),
+                    selector, splitter, (Factory<T, S>) factory);
+            return packSequential(entries.iterator(), true, 0, context);
+        }
+
+        /**
+         * Create an RTree of points held in columns by bulk loading, using the
+         * STR method or Hilbert packing (see {@link #create(List)}). No entry is
+         * created until the leaves are built. The tree is the same as the one
+         * {@link #create(List)} builds from the points in index order.
+         * 
+         * @param x
+         *            x coordinate of each point
+         * @param y
+         *            y coordinate of each point
+         * @param value
+         *            returns the value of the entry for a point given its index
+         * @param <T>
+         *            value type
+         * @return a loaded RTree
+         */
+        @SuppressWarnings("unchecked")
+        public <T> RTree<T, Point> create(final double[] x, final double[] y,
+                final Func1<Integer, ? extends T> value) {
+            Preconditions.checkArgument(x.length == y.length,
+                    "x and y must have the same length");
+            setDefaultCapacity();
+            final Context<T, Point> context = new Context<T, Point>(minChildren.get(),
+                    maxChildren.get(), selector, splitter,
+                    (Factory<T, Point>) (Factory<?, ?>) factory);
+            // each entry is created once when its leaf is built
+            List<Entry<T, Point>> entries = new AbstractList<Entry<T, Point>>() {
+                @Override
+                public Entry<T, Point> get(int i) {
+                    return context.factory().createEntry(value.call(i),
+                            Geometries.point(x[i], y[i]));
+                }
+
+                @Override
+                public int size() {
+                    return x.length;
+                }
+            };
+            if (hilbert)
+                return packingHilbert(entries, x, y, context);
+            else
+                return packingSTR(entries, x, y, true, x.length, context);
         }
 
         private void setDefaultCapacity() {
@@ -374,9 +552,127 @@ public final class RTree<T, S extends Geometry> {
                 minChildren = of((int) Math.round(maxChildren.get() * DEFAULT_FILLING_FACTOR));
         }
 
+        private <T, S extends Geometry> RTree<T, S> packingHilbert(List<Entry<T, S>> entries,
+                Context<T, S> context) {
+            int n = entries.size();
+            double[] x = new double[n];
+            double[] y = new double[n];
+            for (int i = 0; i < n; i++) {
+                Rectangle mbr = entries.get(i).geometry().mbr();
+                x[i] = (mbr.x1() + mbr.x2()) / 2;
+                y[i] = (mbr.y1() + mbr.y2()) / 2;
+            }
+            return packingHilbert(entries, x, y, context);
+        }
+
+        /**
+         * Packs the entries in order of the Hilbert value of their centres
+         * {@code (x[i], y[i])}.
+         */
+        private <T, S extends Geometry> RTree<T, S> packingHilbert(List<Entry<T, S>> entries,
+                double[] x, double[] y, Context<T, S> context) {
+            int n = entries.size();
+            if (n == 0)
+                return create();
+            double minX = Double.POSITIVE_INFINITY;
+            double minY = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY;
+            double maxY = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < n; i++) {
+                minX = Math.min(minX, x[i]);
+                minY = Math.min(minY, y[i]);
+                maxX = Math.max(maxX, x[i]);
+                maxY = Math.max(maxY, y[i]);
+            }
+            // each key is the Hilbert value in the high bits and the index of
+            // the entry in the low bits so sorting the keys is a stable sort
+            // of the entries by Hilbert value
+            int indexBits = Math.max(1, 32 - Integer.numberOfLeadingZeros(n - 1));
+            int order = Math.min(HilbertCurve.MAX_ORDER, (Long.SIZE - 1 - indexBits) / 2);
+            double cells = (1L << order) - 1;
+            double scaleX = maxX > minX ? cells / (maxX - minX) : 0;
+            double scaleY = maxY > minY ? cells / (maxY - minY) : 0;
+            final long[] keys = new long[n];
+            for (int i = 0; i < n; i++) {
+                long h = HilbertCurve.index(order, (long) ((x[i] - minX) * scaleX),
+                        (long) ((y[i] - minY) * scaleY));
+                keys[i] = h << indexBits | i;
+            }
+            if (pool.isPresent()) {
+                // run from inside the pool so that the sort forks on to the pool
+                pool.get().invoke(new RecursiveAction() {
+                    private static final long serialVersionUID = 1L;
+
+                    @Override
+                    protected void compute() {
+                        Arrays.parallelSort(keys);
+                    }
+                });
+            } else
+                Arrays.sort(keys);
+            long mask = (1L << indexBits) - 1;
+            List<Entry<T, S>> sorted = new ArrayList<Entry<T, S>>(n);
+            for (int i = 0; i < n; i++)
+                sorted.add(entries.get((int) (keys[i] & mask)));
+            return packSequential(sorted.iterator(), true, 0, context);
+        }
+
+        /**
+         * Packs consecutive objects into nodes of the loading capacity and
+         * recurses on the nodes until one remains. {@code size} is the number of
+         * entries (counted at the leaf level).
+         */
         @SuppressWarnings("unchecked")
+        private <T, S extends Geometry> RTree<T, S> packSequential(
+                Iterator<? extends HasGeometry> objects, boolean isLeaf, int size,
+                Context<T, S> context) {
+            int capacity = (int) Math.round(maxChildren.get() * loadingFactor);
+            List<Node<T, S>> nodes = new ArrayList<Node<T, S>>();
+            List<HasGeometry> group = new ArrayList<HasGeometry>(capacity);
+            while (objects.hasNext()) {
+                HasGeometry o = objects.next();
+                group.add(o);
+                if (isLeaf)
+                    size++;
+                if (group.size() == capacity || !objects.hasNext()) {
+                    if (isLeaf)
+                        nodes.add(context.factory().createLeaf((List<Entry<T, S>>) (List<?>) group,
+                                context));
+                    else
+                        nodes.add(context.factory().createNonLeaf((List<Node<T, S>>) (List<?>) group,
+                                context));
+                    group = new ArrayList<HasGeometry>(capacity);
+                }
+            }
+            if (nodes.isEmpty())
+                return create();
+            else if (nodes.size() == 1)
+                return new RTree<T, S>(of(nodes.get(0)), size, context);
+            else
+                return packSequential(nodes.iterator(), false, size, context);
+        }
+
         private <T, S extends Geometry> RTree<T, S> packingSTR(List<? extends HasGeometry> objects,
                 boolean isLeaf, int size, Context<T, S> context) {
+            // read the centres once rather than on every comparison
+            int n = objects.size();
+            double[] x = new double[n];
+            double[] y = new double[n];
+            for (int i = 0; i < n; i++) {
+                Rectangle mbr = objects.get(i).geometry().mbr();
+                x[i] = (mbr.x1() + mbr.x2()) / 2;
+                y[i] = (mbr.y1() + mbr.y2()) / 2;
+            }
+            return packingSTR(objects, x, y, isLeaf, size, context);
+        }
+
+        /**
+         * Packs one level of the tree and recurses on the nodes created.
+         * {@code x} and {@code y} hold the centre of each object.
+         */
+        @SuppressWarnings("unchecked")
+        private <T, S extends Geometry> RTree<T, S> packingSTR(List<? extends HasGeometry> objects,
+                double[] x, double[] y, boolean isLeaf, int size, Context<T, S> context) {
             int capacity = (int) Math.round(maxChildren.get() * loadingFactor);
             int nodeCount = (int) Math.ceil(1.0 * objects.size() / capacity);
 
@@ -385,7 +681,8 @@ public final class RTree<T, S extends Geometry> {
             } else if (nodeCount == 1) {
                 Node<T, S> root;
                 if (isLeaf) {
-                    root = context.factory().createLeaf((List<Entry<T, S>>) objects, context);
+                    root = context.factory().createLeaf(
+                            new ArrayList<Entry<T, S>>((List<Entry<T, S>>) objects), context);
                 } else {
                     root = context.factory().createNonLeaf((List<Node<T, S>>) objects, context);
                 }
@@ -395,51 +692,102 @@ public final class RTree<T, S extends Geometry> {
             int nodePerSlice = (int) Math.ceil(Math.sqrt(nodeCount));
             int sliceCapacity = nodePerSlice * capacity;
             int sliceCount = (int) Math.ceil(1.0 * objects.size() / sliceCapacity);
-            Collections.sort(objects, new MidComparator((short) 0));
-
-            List<Node<T, S>> nodes = new ArrayList<Node<T, S>>(nodeCount);
-            for (int s = 0; s < sliceCount; s++) {
-                @SuppressWarnings("rawtypes")
-                List slice = objects.subList(s * sliceCapacity,
-                        Math.min((s + 1) * sliceCapacity, objects.size()));
-                Collections.sort(slice, new MidComparator((short) 1));
-
-                for (int i = 0; i < slice.size(); i += capacity) {
-                    if (isLeaf) {
-                        List<Entry<T, S>> entries = slice.subList(i,
-                                Math.min(slice.size(), i + capacity));
-                        Node<T, S> leaf = context.factory().createLeaf(entries, context);
-                        nodes.add(leaf);
-                    } else {
-                        List<Node<T, S>> children = slice.subList(i,
-                                Math.min(slice.size(), i + capacity));
-                        Node<T, S> nonleaf = context.factory().createNonLeaf(children, context);
-                        nodes.add(nonleaf);
-                    }
-                }
+            // ties are broken by index so the order is that of stable sorts of
+            // the objects, first by x and then each slice by y
+            int[] index = IndexSort.identity(objects.size());
+            Object[] sorted = new Object[objects.size()];
+            PackSlices<T, S> pack = new PackSlices<T, S>(objects, x, y, index, sorted, isLeaf,
+                    capacity, sliceCapacity, 0, sliceCount, context);
+            List<Node<T, S>> nodes;
+            if (pool.isPresent()) {
+                IndexSort.sort(x, null, index, pool.get());
+                nodes = pool.get().invoke(pack);
+            } else {
+                IndexSort.sort(x, index, 0, index.length);
+                nodes = new ArrayList<Node<T, S>>(nodeCount);
+                for (int i = 0; i < sliceCount; i++)
+                    nodes.addAll(pack.packSlice(i));
             }
             return packingSTR(nodes, false, size, context);
         }
 
-        private static final class MidComparator implements Comparator<HasGeometry> {
-            private final short dimension; // leave space for multiple dimensions, 0 for x, 1 for y,
-                                           // ...
-
-            public MidComparator(short dim) {
-                dimension = dim;
+        /**
+         * Sorts a range of slices of one level (already in x order) by y and packs
+         * them into nodes concurrently. Nodes are returned in slice order.
+         */
+        private static final class PackSlices<T, S extends Geometry>
+                extends RecursiveTask<List<Node<T, S>>> {
+
+            private static final long serialVersionUID = 1L;
+
+            private final List<? extends HasGeometry> objects;
+            private final double[] x;
+            private final double[] y;
+            private final int[] index;
+            private final Object[] sorted;
+            private final boolean isLeaf;
+            private final int capacity;
+            private final int sliceCapacity;
+            private final int from;
+            private final int to;
+            private final Context<T, S> context;
+
+            PackSlices(List<? extends HasGeometry> objects, double[] x, double[] y, int[] index,
+                    Object[] sorted, boolean isLeaf, int capacity, int sliceCapacity, int from,
+                    int to, Context<T, S> context) {
+                this.objects = objects;
+                this.x = x;
+                this.y = y;
+                this.index = index;
+                this.sorted = sorted;
+                this.isLeaf = isLeaf;
+                this.capacity = capacity;
+                this.sliceCapacity = sliceCapacity;
+                this.from = from;
+                this.to = to;
+                this.context = context;
             }
 
             @Override
-            public int compare(HasGeometry o1, HasGeometry o2) {
-                return Double.compare(mid(o1), mid(o2));
+            protected List<Node<T, S>> compute() {
+                if (to - from == 1) {
+                    return packSlice(from);
+                }
+                int mid = (from + to) >>> 1;
+                PackSlices<T, S> right = split(mid, to);
+                right.fork();
+                List<Node<T, S>> nodes = split(from, mid).compute();
+                nodes.addAll(right.join());
+                return nodes;
             }
 
-            private double mid(HasGeometry o) {
-                Rectangle mbr = o.geometry().mbr();
-                if (dimension == 0)
-                    return (mbr.x1() + mbr.x2()) / 2;
-                else
-                    return (mbr.y1() + mbr.y2()) / 2;
+            private PackSlices<T, S> split(int from, int to) {
+                return new PackSlices<T, S>(objects, x, y, index, sorted, isLeaf, capacity,
+                        sliceCapacity, from, to, context);
+            }
+
+            @SuppressWarnings("unchecked")
+            private List<Node<T, S>> packSlice(int s) {
+                int start = s * sliceCapacity;
+                int end = Math.min(start + sliceCapacity, index.length);
+                IndexSort.sort(y, x, index, start, end);
+                for (int i = start; i < end; i++)
+                    sorted[i] = objects.get(index[i]);
+                // leaves keep views of this list, each of a range that is
+                // complete before its leaf is created
+                @SuppressWarnings("rawtypes")
+                List list = Arrays.asList(sorted);
+                List<Node<T, S>> nodes = new ArrayList<Node<T, S>>();
+                for (int i = start; i < end; i += capacity) {
+                    if (isLeaf) {
+                        List<Entry<T, S>> entries = list.subList(i, Math.min(end, i + capacity));
+                        nodes.add(context.factory().createLeaf(entries, context));
+                    } else {
+                        List<Node<T, S>> children = list.subList(i, Math.min(end, i + capacity));
+                        nodes.add(context.factory().createNonLeaf(children, context));
+                    }
+                }
+                return nodes;
             }
         }
 
@@ -665,8 +1013,22 @@ public final class RTree<T, S extends Geometry> {
      */
     @VisibleForTesting
     Observable<Entry<T, S>> search(Func1<? super Geometry, Boolean> condition) {
+        return search(SearchPredicates.from(condition));
+    }
+
+    /**
+     * Returns an {@link Observable} sequence of the {@link Entry}s whose geometry
+     * satisfies {@code predicate}. Nodes whose minimum bounding rectangle fails
+     * {@link SearchPredicate#testNode} are not visited. See
+     * {@link SearchPredicates} for ready-made predicates.
+     * 
+     * @param predicate
+     *            condition tested on node bounds and entry geometries
+     * @return sequence of matching entries
+     */
+    public Observable<Entry<T, S>> search(SearchPredicate<? super S> predicate) {
         if (root.isPresent())
-            return Observable.unsafeCreate(new OnSubscribeSearch<T, S>(root.get(), condition));
+            return Observable.unsafeCreate(new OnSubscribeSearch<T, S>(root.get(), predicate));
         else
             return Observable.empty();
     }
@@ -688,17 +1050,6 @@ public final class RTree<T, S extends Geometry> {
         };
     }
 
-    /**
-     * Returns the always true predicate. See {@link RTree#entries()} for example
-     * use.
-     */
-    private static final Func1<Geometry, Boolean> ALWAYS_TRUE = new Func1<Geometry, Boolean>() {
-        @Override
-        public Boolean call(Geometry rectangle) {
-            return true;
-        }
-    };
-
     /**
      * Returns an {@link Observable} sequence of all {@link Entry}s in the R-tree
      * whose minimum bounding rectangle intersects with the given rectangle.
@@ -708,7 +1059,92 @@ public final class RTree<T, S extends Geometry> {
      * @return entries that intersect with the rectangle r
      */
     public Observable<Entry<T, S>> search(final Rectangle r) {
-        return search(intersects(r));
+        return search(SearchPredicates.intersects(r));
+    }
+
+    /**
+     * Passes each {@link Entry} whose geometry intersects the given rectangle to
+     * {@code action} on the calling thread, returning when the search is
+     * complete. The entries are the same as those emitted by
+     * {@link #search(Rectangle)} but no {@link Observable}, subscriber or boxed
+     * search criterion result is created and nothing is allocated per node
+     * visited (apart from what the nodes themselves allocate, for instance
+     * FlatBuffers-backed nodes create their entries on demand).
+     * 
+     * @param r
+     *            rectangle to check intersection with
+     * @param action
+     *            called with each entry that intersects the rectangle r
+     */
+    public void search(Rectangle r, Action1<? super Entry<T, S>> action) {
+        search(SearchPredicates.intersects(r), action);
+    }
+
+    /**
+     * Passes each {@link Entry} whose geometry satisfies {@code predicate} to
+     * {@code action} on the calling thread, returning when the search is
+     * complete (see {@link #search(Rectangle, Action1)}).
+     * 
+     * @param predicate
+     *            condition tested on node bounds and entry geometries
+     * @param action
+     *            called with each entry that satisfies the predicate
+     */
+    public void search(SearchPredicate<? super S> predicate,
+            Action1<? super Entry<T, S>> action) {
+        if (root.isPresent())
+            NonLeafHelper.search(predicate, action, root.get());
+    }
+
+    /**
+     * Passes each {@link Entry} whose geometry intersects the rectangle with
+     * corners {@code (x1, y1)} and {@code (x2, y2)} to {@code action} (see
+     * {@link #search(Rectangle, Action1)}).
+     * 
+     * @param x1
+     *            minimum x of the rectangle
+     * @param y1
+     *            minimum y of the rectangle
+     * @param x2
+     *            maximum x of the rectangle
+     * @param y2
+     *            maximum y of the rectangle
+     * @param action
+     *            called with each entry that intersects the rectangle
+     */
+    public void search(double x1, double y1, double x2, double y2,
+            Action1<? super Entry<T, S>> action) {
+        search(rectangle(x1, y1, x2, y2), action);
+    }
+
+    /**
+     * Returns an {@link Iterator} over the entries whose geometry intersects the
+     * given rectangle, in the same order as {@link #search(Rectangle)}. The tree
+     * is traversed as {@link Iterator#next()} is called so stopping early does
+     * no extra work. The iterator does not support removal.
+     * 
+     * @param r
+     *            rectangle to check intersection with
+     * @return iterator over the entries that intersect the rectangle r
+     */
+    public Iterator<Entry<T, S>> searchIterator(Rectangle r) {
+        return searchIterator(SearchPredicates.intersects(r));
+    }
+
+    /**
+     * Returns an {@link Iterator} over the entries whose geometry satisfies
+     * {@code predicate}, in the same order as {@link #search(SearchPredicate)}
+     * (see {@link #searchIterator(Rectangle)}).
+     * 
+     * @param predicate
+     *            condition tested on node bounds and entry geometries
+     * @return iterator over the entries that satisfy the predicate
+     */
+    public Iterator<Entry<T, S>> searchIterator(SearchPredicate<? super S> predicate) {
+        if (root.isPresent())
+            return new SearchIterator<T, S>(root.get(), predicate);
+        else
+            return Collections.<Entry<T, S>>emptyList().iterator();
     }
 
     /**
@@ -724,11 +1160,11 @@ public final class RTree<T, S extends Geometry> {
     }
 
     public Observable<Entry<T, S>> search(Circle circle) {
-        return search(circle, Intersects.geometryIntersectsCircle);
+        return search(SearchPredicates.intersects(circle));
     }
 
     public Observable<Entry<T, S>> search(Line line) {
-        return search(line, Intersects.geometryIntersectsLine);
+        return search(SearchPredicates.intersects(line));
     }
 
     /**
@@ -743,12 +1179,7 @@ public final class RTree<T, S extends Geometry> {
      * @return the sequence of matching entries
      */
     public Observable<Entry<T, S>> search(final Rectangle r, final double maxDistance) {
-        return search(new Func1<Geometry, Boolean>() {
-            @Override
-            public Boolean call(Geometry g) {
-                return g.distance(r) < maxDistance;
-            }
-        });
+        return search(SearchPredicates.withinDistance(r, maxDistance));
     }
 
     /**
@@ -792,13 +1223,8 @@ public final class RTree<T, S extends Geometry> {
      */
     public <R extends Geometry> Observable<Entry<T, S>> search(final R g, final double maxDistance,
             final Func2<? super S, ? super R, Double> distance) {
-        return search(new Func1<Geometry, Boolean>() {
-            @Override
-            public Boolean call(Geometry entry) {
-                // just use the mbr initially
-                return entry.distance(g.mbr()) < maxDistance;
-            }
-        })
+        // just use the mbr initially
+        return search(SearchPredicates.withinDistance(g.mbr(), maxDistance))
                 // refine with distance function
                 .filter(new Func1<Entry<T, S>, Boolean>() {
                     @Override
@@ -826,6 +1252,10 @@ public final class RTree<T, S extends Geometry> {
     /**
      * Returns the nearest k entries (k=maxCount) to the given rectangle where the
      * entries are strictly less than a given maximum distance from the rectangle.
+     * The search is best-first: nodes are expanded in ascending order of
+     * distance and each entry is emitted as soon as it is known to be the next
+     * nearest, so only the part of the tree nearer than the k-th result is
+     * visited.
      * 
      * @param r
      *            rectangle
@@ -836,9 +1266,45 @@ public final class RTree<T, S extends Geometry> {
      * @return nearest entries to maxCount, in ascending order of distance
      */
     public Observable<Entry<T, S>> nearest(final Rectangle r, final double maxDistance,
-            int maxCount) {
-        return search(r, maxDistance).lift(new OperatorBoundedPriorityQueue<Entry<T, S>>(maxCount,
-                Comparators.<T, S>ascendingDistance(r)));
+            final int maxCount) {
+        Preconditions.checkNotNull(r);
+        if (root.isPresent())
+            return Observable.unsafeCreate(new OnSubscribeIncremental<T, S>(
+                    new Func0<BestFirstNearest<T, S>>() {
+                        @Override
+                        public BestFirstNearest<T, S> call() {
+                            return new BestFirstNearest<T, S>(root.get(), r, maxDistance,
+                                    maxCount);
+                        }
+                    }));
+        else
+            return Observable.empty();
+    }
+
+    /**
+     * Returns all entries in ascending order of distance from the given
+     * rectangle. Entries are found incrementally as they are requested so
+     * {@code nearest(r).take(k)} visits no more of the tree than is needed for
+     * the k nearest.
+     * 
+     * @param r
+     *            rectangle
+     * @return entries in ascending order of distance
+     */
+    public Observable<Entry<T, S>> nearest(Rectangle r) {
+        return nearest(r, Double.POSITIVE_INFINITY, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns all entries in ascending order of distance from the given point
+     * (see {@link #nearest(Rectangle)}).
+     * 
+     * @param p
+     *            point
+     * @return entries in ascending order of distance
+     */
+    public Observable<Entry<T, S>> nearest(Point p) {
+        return nearest(p.mbr());
     }
 
     /**
@@ -857,13 +1323,234 @@ public final class RTree<T, S extends Geometry> {
         return nearest(p.mbr(), maxDistance, maxCount);
     }
 
+    /**
+     * Returns the number of entries whose geometry intersects {@code r} (the
+     * number of entries {@link #search(Rectangle)} would emit). The entry count
+     * of a node lying entirely within {@code r} is used without visiting its
+     * descendants when the tree is an aggregate tree (see
+     * {@link Builder#aggregate()}).
+     * 
+     * @param r
+     *            rectangle to count within
+     * @return number of entries intersecting r
+     */
+    public int count(Rectangle r) {
+        if (root.isPresent())
+            return count(root.get(), r);
+        else
+            return 0;
+    }
+
+    private static int count(Node<?, ?> node, Rectangle r) {
+        Rectangle mbr = node.geometry().mbr();
+        if (!r.intersects(mbr))
+            return 0;
+        else if (mbr.x1() >= r.x1() && mbr.x2() <= r.x2() && mbr.y1() >= r.y1() && mbr.y2() <= r.y2())
+            return Util.entryCount(node);
+        else if (node instanceof NonLeaf) {
+            NonLeaf<?, ?> nonLeaf = (NonLeaf<?, ?>) node;
+            int count = 0;
+            for (int i = 0; i < nonLeaf.count(); i++)
+                count += count(nonLeaf.child(i), r);
+            return count;
+        } else {
+            Leaf<?, ?> leaf = (Leaf<?, ?>) node;
+            int count = 0;
+            for (int i = 0; i < leaf.count(); i++)
+                if (leaf.entry(i).geometry().intersects(r))
+                    count++;
+            return count;
+        }
+    }
+
+    /**
+     * Returns the skyline of the entries (minimising both x and y of the
+     * lower-left corner of each entry's minimum bounding rectangle) using
+     * branch and bound skyline (BBS). Each skyline point is emitted as soon as
+     * it is confirmed, in ascending order of {@code x + y}, and only as much of
+     * the tree is visited as is needed to satisfy the requests of the
+     * subscriber (so {@code take(k)} does no extra work).
+     * 
+     * @return skyline entries in ascending order of x + y
+     */
+    public Observable<Entry<T, S>> skyline() {
+        return skyline(null, Preference.MIN, Preference.MIN);
+    }
+
+    /**
+     * Returns the skyline of the entries located within {@code constraint}.
+     * Nodes not intersecting the constraint are never visited. Otherwise as for
+     * {@link #skyline()}.
+     * 
+     * @param constraint
+     *            only entries located in this rectangle are considered
+     * @return skyline entries of the constrained region
+     */
+    public Observable<Entry<T, S>> skyline(Rectangle constraint) {
+        Preconditions.checkNotNull(constraint);
+        return skyline(constraint, Preference.MIN, Preference.MIN);
+    }
+
+    /**
+     * Returns the skyline of the entries where smaller or larger values are
+     * preferred in each dimension as specified. The location of an entry is
+     * the corner of its minimum bounding rectangle that is best for the
+     * preferences. Skyline points are emitted as soon as they are confirmed in
+     * ascending order of distance (in the preferred directions) from the best
+     * corner of the tree.
+     * 
+     * @param xPreference
+     *            whether smaller or larger x is preferred
+     * @param yPreference
+     *            whether smaller or larger y is preferred
+     * @return skyline entries
+     */
+    public Observable<Entry<T, S>> skyline(Preference xPreference, Preference yPreference) {
+        return skyline(null, xPreference, yPreference);
+    }
+
+    /**
+     * Returns the skyline of the entries located within {@code constraint}
+     * where smaller or larger values are preferred in each dimension as
+     * specified. See {@link #skyline(Rectangle)} and
+     * {@link #skyline(Preference, Preference)}.
+     * 
+     * @param constraint
+     *            only entries located in this rectangle are considered, null
+     *            for no constraint
+     * @param xPreference
+     *            whether smaller or larger x is preferred
+     * @param yPreference
+     *            whether smaller or larger y is preferred
+     * @return skyline entries of the constrained region
+     */
+    public Observable<Entry<T, S>> skyline(final Rectangle constraint, final Preference xPreference,
+            final Preference yPreference) {
+        Preconditions.checkNotNull(xPreference);
+        Preconditions.checkNotNull(yPreference);
+        if (root.isPresent())
+            return Observable.unsafeCreate(new OnSubscribeIncremental<T, S>(
+                    new Func0<BranchAndBoundSkyline<T, S>>() {
+                        @Override
+                        public BranchAndBoundSkyline<T, S> call() {
+                            return new BranchAndBoundSkyline<T, S>(root.get(), constraint,
+                                    xPreference, yPreference);
+                        }
+                    }));
+        else
+            return Observable.empty();
+    }
+
+    /**
+     * Returns the dynamic skyline relative to {@code query}: the entries for
+     * which no other entry is at least as near to the query in both x and y
+     * and strictly nearer in one. BBS runs on the per-dimension distance of
+     * each node from the query so nothing is transformed or rebuilt per query.
+     * Entries are emitted as soon as they are confirmed in ascending order of
+     * {@code |x - query.x| + |y - query.y|}.
+     * 
+     * @param query
+     *            the query point
+     * @return dynamic skyline entries
+     */
+    public Observable<Entry<T, S>> dynamicSkyline(final Point query) {
+        Preconditions.checkNotNull(query);
+        if (root.isPresent())
+            return Observable.unsafeCreate(new OnSubscribeIncremental<T, S>(
+                    new Func0<BranchAndBoundSkyline<T, S>>() {
+                        @Override
+                        public BranchAndBoundSkyline<T, S> call() {
+                            return BranchAndBoundSkyline.dynamic(root.get(), null, query);
+                        }
+                    }));
+        else
+            return Observable.empty();
+    }
+
+    /**
+     * Returns the reverse skyline of {@code query}: the entries that have the
+     * query on their dynamic skyline (see {@link #dynamicSkyline(Point)}).
+     * Candidates come from a dynamic BBS restricted to each quadrant around the
+     * query and each is confirmed with a window check that stops at the first
+     * entry found to dominate the query. Intended for trees of points.
+     * 
+     * @param query
+     *            the query point
+     * @return reverse skyline entries
+     */
+    public Observable<Entry<T, S>> reverseSkyline(final Point query) {
+        Preconditions.checkNotNull(query);
+        if (root.isPresent())
+            return Observable.unsafeCreate(new OnSubscribeIncremental<T, S>(
+                    new Func0<ReverseSkyline<T, S>>() {
+                        @Override
+                        public ReverseSkyline<T, S> call() {
+                            return new ReverseSkyline<T, S>(root.get(), query);
+                        }
+                    }));
+        else
+            return Observable.empty();
+    }
+
+    /**
+     * Returns the k-skyband of the entries, those dominated (minimising both x
+     * and y of the lower-left corner of the minimum bounding rectangle) by fewer
+     * than k other entries, using branch and bound. Entries are emitted as soon
+     * as they are confirmed in ascending order of {@code x + y}. The 1-skyband
+     * is the skyline.
+     * 
+     * @param k
+     *            entries dominated by fewer than k others are emitted, must be
+     *            at least 1
+     * @return skyband entries in ascending order of x + y
+     */
+    public Observable<Entry<T, S>> skyband(final int k) {
+        Preconditions.checkArgument(k >= 1, "k must be at least 1");
+        if (root.isPresent())
+            return Observable.unsafeCreate(new OnSubscribeIncremental<T, S>(
+                    new Func0<BranchAndBoundSkyband<T, S>>() {
+                        @Override
+                        public BranchAndBoundSkyband<T, S> call() {
+                            return new BranchAndBoundSkyband<T, S>(root.get(), k);
+                        }
+                    }));
+        else
+            return Observable.empty();
+    }
+
+    /**
+     * Returns the k entries that dominate the most other entries (in terms of
+     * the lower-left corner of the minimum bounding rectangle) in descending
+     * order of the number dominated, using branch and bound over upper bounds
+     * of the number dominated by anything in a node. Ties are emitted in no
+     * particular order.
+     * 
+     * @param k
+     *            number of entries to emit (fewer if the tree is smaller), must
+     *            be at least 1
+     * @return top k dominating entries
+     */
+    public Observable<Entry<T, S>> topKDominating(final int k) {
+        Preconditions.checkArgument(k >= 1, "k must be at least 1");
+        if (root.isPresent())
+            return Observable.unsafeCreate(new OnSubscribeIncremental<T, S>(
+                    new Func0<BranchAndBoundTopKDominating<T, S>>() {
+                        @Override
+                        public BranchAndBoundTopKDominating<T, S> call() {
+                            return new BranchAndBoundTopKDominating<T, S>(root.get(), k);
+                        }
+                    }));
+        else
+            return Observable.empty();
+    }
+
     /**
      * Returns all entries in the tree as an {@link Observable} sequence.
      * 
      * @return all entries in the R-tree
      */
     public Observable<Entry<T, S>> entries() {
-        return search(ALWAYS_TRUE);
+        return search(SearchPredicates.all());
     }
 
     /**
@@ -918,6 +1605,21 @@ public final class RTree<T, S extends Geometry> {
         return root;
     }
 
+    /**
+     * Returns a read-only snapshot of this R-tree with the node bounds packed
+     * into contiguous arrays. Searches of the snapshot return the same entries
+     * as searches of this R-tree but visit nodes without following references
+     * between objects, which suits indexes that are built once and searched
+     * many times. The snapshot holds references to the entries of this R-tree
+     * (but not to its nodes) and does not change when entries are added to or
+     * deleted from this R-tree.
+     *
+     * @return packed read-only snapshot of this R-tree
+     */
+    public PackedRTree<T, S> freeze() {
+        return PackedRTree.create(this);
+    }
+
     /**
      * If the RTree has no entries returns {@link Optional#absent} otherwise returns
      * the minimum bounding rectangle of all entries in the RTree.
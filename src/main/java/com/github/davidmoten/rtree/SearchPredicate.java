@@ -0,0 +1,53 @@
+package com.github.davidmoten.rtree;
+
+import com.github.davidmoten.rtree.geometry.Geometry;
+
+/**
+ * A search condition that is tested separately against the minimum bounding
+ * rectangle of each node and against the geometry of each entry. Nodes are
+ * tested on the primitive corners of their bounds so pruning the tree neither
+ * boxes a result nor needs a {@link com.github.davidmoten.rtree.geometry.Rectangle}
+ * to be created (FlatBuffers-backed nodes are tested straight from their
+ * serialized bounds).
+ *
+ * <p>
+ * The search is only correct if {@code testEntry(g)} being true implies that
+ * {@code testNode} is true for the minimum bounding rectangle of every node
+ * containing {@code g}. Intersection with a geometry and
+ * {@code distance < D} are examples of such conditions.
+ *
+ * <p>
+ * See {@link SearchPredicates} for ready-made predicates.
+ *
+ * @param <S>
+ *            geometry type of the entries tested
+ */
+public interface SearchPredicate<S extends Geometry> {
+
+    /**
+     * Returns true if entries below a node with the given minimum bounding
+     * rectangle may satisfy the condition.
+     *
+     * @param x1
+     *            minimum x of the node bounds
+     * @param y1
+     *            minimum y of the node bounds
+     * @param x2
+     *            maximum x of the node bounds
+     * @param y2
+     *            maximum y of the node bounds
+     * @return false if the node can be skipped
+     */
+    boolean testNode(double x1, double y1, double x2, double y2);
+
+    /**
+     * Returns true if an entry with the given geometry satisfies the
+     * condition.
+     *
+     * @param geometry
+     *            geometry of the entry
+     * @return true if the entry is a search result
+     */
+    boolean testEntry(S geometry);
+
+}
@@ -0,0 +1,207 @@
+package com.github.davidmoten.rtree;
+
+import com.github.davidmoten.guavamini.Preconditions;
+import com.github.davidmoten.rtree.geometry.Circle;
+import com.github.davidmoten.rtree.geometry.Geometries;
+import com.github.davidmoten.rtree.geometry.Geometry;
+import com.github.davidmoten.rtree.geometry.Intersects;
+import com.github.davidmoten.rtree.geometry.Line;
+import com.github.davidmoten.rtree.geometry.Point;
+import com.github.davidmoten.rtree.geometry.Rectangle;
+import com.github.davidmoten.rtree.geometry.internal.GeometryUtil;
+
+import rx.functions.Func1;
+
+/**
+ * Ready-made {@link SearchPredicate}s.
+ */
+public final class SearchPredicates {
+
+    private SearchPredicates() {
+        // prevent instantiation
+    }
+
+    private static final SearchPredicate<Geometry> ALL = new SearchPredicate<Geometry>() {
+
+        @Override
+        public boolean testNode(double x1, double y1, double x2, double y2) {
+            return true;
+        }
+
+        @Override
+        public boolean testEntry(Geometry geometry) {
+            return true;
+        }
+    };
+
+    /**
+     * Returns the predicate that is always true.
+     *
+     * @return predicate matching every entry
+     */
+    public static SearchPredicate<Geometry> all() {
+        return ALL;
+    }
+
+    /**
+     * Returns a predicate matching geometries that intersect {@code r}, the
+     * condition of {@link RTree#search(Rectangle)}.
+     *
+     * @param r
+     *            rectangle to check intersection with
+     * @return predicate
+     */
+    public static SearchPredicate<Geometry> intersects(final Rectangle r) {
+        Preconditions.checkNotNull(r);
+        final double a1 = r.x1();
+        final double b1 = r.y1();
+        final double a2 = r.x2();
+        final double b2 = r.y2();
+        return new SearchPredicate<Geometry>() {
+
+            @Override
+            public boolean testNode(double x1, double y1, double x2, double y2) {
+                return GeometryUtil.intersects(x1, y1, x2, y2, a1, b1, a2, b2);
+            }
+
+            @Override
+            public boolean testEntry(Geometry g) {
+                // points are by far the most common geometry so test them
+                // inline
+                if (g instanceof Point) {
+                    Point p = (Point) g;
+                    return GeometryUtil.intersects(p.x(), p.y(), p.x(), p.y(), a1, b1, a2, b2);
+                } else
+                    return g.intersects(r);
+            }
+        };
+    }
+
+    /**
+     * Returns a predicate matching geometries that intersect {@code p}.
+     *
+     * @param p
+     *            point to check intersection with
+     * @return predicate
+     */
+    public static SearchPredicate<Geometry> intersects(Point p) {
+        return intersects(p.mbr());
+    }
+
+    /**
+     * Returns a predicate matching geometries that intersect {@code circle}.
+     * Nodes are pruned by their distance from the centre of the circle rather
+     * than by the bounds of the circle.
+     *
+     * @param circle
+     *            circle to check intersection with
+     * @return predicate
+     */
+    public static SearchPredicate<Geometry> intersects(final Circle circle) {
+        Preconditions.checkNotNull(circle);
+        final double x = circle.x();
+        final double y = circle.y();
+        final double radius = circle.radius();
+        return new SearchPredicate<Geometry>() {
+
+            @Override
+            public boolean testNode(double x1, double y1, double x2, double y2) {
+                // same arithmetic as Circle.intersects(Rectangle)
+                return Math.max(0, GeometryUtil.distance(x, y, x1, y1, x2, y2) - radius) == 0;
+            }
+
+            @Override
+            public boolean testEntry(Geometry g) {
+                return Intersects.geometryIntersectsCircle.call(g, circle);
+            }
+        };
+    }
+
+    /**
+     * Returns a predicate matching geometries that intersect {@code line}.
+     * Nodes are pruned by the bounds of the line.
+     *
+     * @param line
+     *            line to check intersection with
+     * @return predicate
+     */
+    public static SearchPredicate<Geometry> intersects(final Line line) {
+        Preconditions.checkNotNull(line);
+        final double a1 = Math.min(line.x1(), line.x2());
+        final double b1 = Math.min(line.y1(), line.y2());
+        final double a2 = Math.max(line.x1(), line.x2());
+        final double b2 = Math.max(line.y1(), line.y2());
+        return new SearchPredicate<Geometry>() {
+
+            @Override
+            public boolean testNode(double x1, double y1, double x2, double y2) {
+                return GeometryUtil.intersects(x1, y1, x2, y2, a1, b1, a2, b2);
+            }
+
+            @Override
+            public boolean testEntry(Geometry g) {
+                return g.intersects(line.mbr())
+                        && Intersects.geometryIntersectsLine.call(g, line);
+            }
+        };
+    }
+
+    /**
+     * Returns a predicate matching geometries strictly less than
+     * {@code maxDistance} from {@code r}, the condition of
+     * {@link RTree#search(Rectangle, double)}.
+     *
+     * @param r
+     *            rectangle to measure distance from
+     * @param maxDistance
+     *            strict maximum distance
+     * @return predicate
+     */
+    public static SearchPredicate<Geometry> withinDistance(final Rectangle r,
+            final double maxDistance) {
+        Preconditions.checkNotNull(r);
+        final double a1 = r.x1();
+        final double b1 = r.y1();
+        final double a2 = r.x2();
+        final double b2 = r.y2();
+        return new SearchPredicate<Geometry>() {
+
+            @Override
+            public boolean testNode(double x1, double y1, double x2, double y2) {
+                return GeometryUtil.distance(x1, y1, x2, y2, a1, b1, a2, b2) < maxDistance;
+            }
+
+            @Override
+            public boolean testEntry(Geometry g) {
+                return g.distance(r) < maxDistance;
+            }
+        };
+    }
+
+    /**
+     * Returns a predicate that calls {@code condition} with each entry
+     * geometry and with a rectangle created for each node. For conditions
+     * written before {@link SearchPredicate} existed.
+     *
+     * @param condition
+     *            condition on entry geometries and node bounds
+     * @return predicate
+     */
+    public static SearchPredicate<Geometry> from(
+            final Func1<? super Geometry, Boolean> condition) {
+        Preconditions.checkNotNull(condition);
+        return new SearchPredicate<Geometry>() {
+
+            @Override
+            public boolean testNode(double x1, double y1, double x2, double y2) {
+                return condition.call(Geometries.rectangle(x1, y1, x2, y2));
+            }
+
+            @Override
+            public boolean testEntry(Geometry g) {
+                return condition.call(g);
+            }
+        };
+    }
+
+}
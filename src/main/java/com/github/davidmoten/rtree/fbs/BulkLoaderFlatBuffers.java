@@ -0,0 +1,652 @@
+package com.github.davidmoten.rtree.fbs;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import com.github.davidmoten.guavamini.Optional;
+import com.github.davidmoten.guavamini.Preconditions;
+import com.github.davidmoten.rtree.Entries;
+import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.InternalStructure;
+import com.github.davidmoten.rtree.RTree;
+import com.github.davidmoten.rtree.fbs.generated.Context_;
+import com.github.davidmoten.rtree.fbs.generated.GeometryType_;
+import com.github.davidmoten.rtree.fbs.generated.Node_;
+import com.github.davidmoten.rtree.fbs.generated.Tree_;
+import com.github.davidmoten.rtree.geometry.Circle;
+import com.github.davidmoten.rtree.geometry.Geometries;
+import com.github.davidmoten.rtree.geometry.Geometry;
+import com.github.davidmoten.rtree.geometry.Line;
+import com.github.davidmoten.rtree.geometry.Point;
+import com.github.davidmoten.rtree.geometry.Rectangle;
+import com.github.davidmoten.rtree.internal.Functions;
+import com.github.davidmoten.rtree.internal.HilbertCurve;
+import com.github.davidmoten.rtree.internal.Util;
+import com.google.flatbuffers.FlatBufferBuilder;
+
+import rx.functions.Func1;
+
+/**
+ * Bulk loads entries straight into the serialized form read by
+ * {@link SerializerFlatBuffers} without building the tree on the heap, for
+ * data sets whose entries do not fit in memory as objects.
+ * <p>
+ * The entries are ordered by the Hilbert value of the centre of their minimum
+ * bounding rectangle with an external merge sort. Runs of at most
+ * {@link #runSize(int)} entries are sorted in memory and spilled to temporary
+ * files, then the runs are merged while consecutive entries are packed into
+ * leaves and consecutive nodes into each level above (as
+ * {@link RTree.Builder#createPacked(Iterable)} does). Apart from one run the
+ * heap holds the serialized tree and a few primitives per node.
+ * </p>
+ * <p>
+ * The result is read with
+ * {@link SerializerFlatBuffers#read(java.io.InputStream, long, InternalStructure)}.
+ * FlatBuffers uses 32-bit offsets so the serialized tree must be smaller than
+ * 2GB.
+ * </p>
+ *
+ * @param <T>
+ *            value type
+ * @param <S>
+ *            geometry type
+ */
+public final class BulkLoaderFlatBuffers<T, S extends Geometry> {
+
+    private static final int DEFAULT_RUN_SIZE = 1 << 20;
+    private static final double DEFAULT_LOADING_FACTOR = 0.7;
+    private static final double DEFAULT_FILLING_FACTOR = 0.4;
+
+    private static final int ORDER = HilbertCurve.MAX_ORDER;
+    private static final double CELLS = (1L << ORDER) - 1;
+
+    private final Func1<? super T, byte[]> serializer;
+    private int maxChildren = RTree.MAX_CHILDREN_DEFAULT_GUTTMAN;
+    private Optional<Integer> minChildren = Optional.absent();
+    private double loadingFactor = DEFAULT_LOADING_FACTOR;
+    private int runSize = DEFAULT_RUN_SIZE;
+    private Optional<File> directory = Optional.absent();
+    private Optional<Rectangle> bounds = Optional.absent();
+
+    private BulkLoaderFlatBuffers(Func1<? super T, byte[]> serializer) {
+        this.serializer = serializer;
+    }
+
+    /**
+     * Returns a loader that serializes the value of each entry with
+     * {@code serializer}.
+     *
+     * @param serializer
+     *            serializes values, see {@link SerializerFlatBuffers#create}
+     * @param <T>
+     *            value type
+     * @param <S>
+     *            geometry type
+     * @return loader
+     */
+    public static <T, S extends Geometry> BulkLoaderFlatBuffers<T, S> serializer(
+            Func1<? super T, byte[]> serializer) {
+        return new BulkLoaderFlatBuffers<T, S>(serializer);
+    }
+
+    public BulkLoaderFlatBuffers<T, S> maxChildren(int maxChildren) {
+        Preconditions.checkArgument(maxChildren > 1, "maxChildren must be greater than 1");
+        this.maxChildren = maxChildren;
+        return this;
+    }
+
+    public BulkLoaderFlatBuffers<T, S> minChildren(int minChildren) {
+        this.minChildren = Optional.of(minChildren);
+        return this;
+    }
+
+    /**
+     * Sets the proportion of {@code maxChildren} that each node is packed
+     * with, as {@link RTree.Builder#loadingFactor(double)} does.
+     *
+     * @param factor
+     *            loading factor
+     * @return this
+     */
+    public BulkLoaderFlatBuffers<T, S> loadingFactor(double factor) {
+        this.loadingFactor = factor;
+        return this;
+    }
+
+    /**
+     * Sets the number of entries sorted in memory before a run is spilled to
+     * a temporary file. The entries of a run are held as objects so this
+     * bounds the heap used by the sort.
+     *
+     * @param runSize
+     *            maximum number of entries in a run
+     * @return this
+     */
+    public BulkLoaderFlatBuffers<T, S> runSize(int runSize) {
+        Preconditions.checkArgument(runSize > 0, "runSize must be positive");
+        this.runSize = runSize;
+        return this;
+    }
+
+    /**
+     * Sets the directory that runs are spilled to. The default is the
+     * directory of {@link File#createTempFile(String, String)}.
+     *
+     * @param directory
+     *            directory for temporary files
+     * @return this
+     */
+    public BulkLoaderFlatBuffers<T, S> tempDirectory(File directory) {
+        this.directory = Optional.of(directory);
+        return this;
+    }
+
+    /**
+     * Sets the rectangle that the Hilbert curve covers. Without bounds the
+     * entries are read one extra time to find the bounds of their centres.
+     * Centres outside the bounds are ordered as if on the nearest edge, which
+     * only affects how well the tree is packed.
+     *
+     * @param bounds
+     *            bounds of the centres of the entries
+     * @return this
+     */
+    public BulkLoaderFlatBuffers<T, S> bounds(Rectangle bounds) {
+        this.bounds = Optional.of(bounds);
+        return this;
+    }
+
+    /**
+     * Bulk loads the entries and writes the serialized tree to {@code os}.
+     * Temporary files are deleted before returning.
+     *
+     * @param entries
+     *            the entries to load, iterated twice if no bounds were set
+     * @param os
+     *            the stream to write the serialized tree to
+     * @return number of entries in the tree
+     * @throws IOException
+     *             on failure to spill, merge or write
+     */
+    public long write(Iterable<? extends Entry<T, S>> entries, OutputStream os)
+            throws IOException {
+        Rectangle r = bounds.isPresent() ? bounds.get() : boundsOfCentres(entries);
+        List<File> files = new ArrayList<File>();
+        Run<S> sorted = null;
+        try {
+            sorted = sort(entries.iterator(), r, files);
+            return pack(sorted, os);
+        } finally {
+            if (sorted != null)
+                sorted.close();
+            for (File file : files)
+                file.delete();
+        }
+    }
+
+    private static <S extends Geometry> Rectangle boundsOfCentres(
+            Iterable<? extends Entry<?, S>> entries) {
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (Entry<?, S> entry : entries) {
+            Rectangle mbr = entry.geometry().mbr();
+            double x = (mbr.x1() + mbr.x2()) / 2;
+            double y = (mbr.y1() + mbr.y2()) / 2;
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+        }
+        if (minX > maxX)
+            return Geometries.rectangle(0, 0, 0, 0);
+        else
+            return Geometries.rectangle(minX, minY, maxX, maxY);
+    }
+
+    /**
+     * Reads the entries into sorted runs, spilling all but the last to
+     * {@code files}, and returns the merge of the runs.
+     */
+    private Run<S> sort(Iterator<? extends Entry<T, S>> entries, Rectangle bounds,
+            List<File> files) throws IOException {
+        List<Record<S>> run = new ArrayList<Record<S>>();
+        List<Run<S>> runs = new ArrayList<Run<S>>();
+        long sequence = 0;
+        while (entries.hasNext()) {
+            Entry<T, S> entry = entries.next();
+            run.add(new Record<S>(hilbertValue(entry.geometry(), bounds), sequence++,
+                    entry.geometry(), serializer.call(entry.value())));
+            if (run.size() == runSize && entries.hasNext()) {
+                Collections.sort(run, Record.ORDER);
+                File file = File.createTempFile("rtree-run", ".bin",
+                        directory.isPresent() ? directory.get() : null);
+                files.add(file);
+                spill(run, file);
+                runs.add(new FileRun<S>(file, run.size()));
+                run.clear();
+            }
+        }
+        // the last run is merged straight from memory
+        Collections.sort(run, Record.ORDER);
+        runs.add(new ListRun<S>(run));
+        if (runs.size() == 1)
+            return runs.get(0);
+        else
+            return new MergedRun<S>(runs);
+    }
+
+    private static long hilbertValue(Geometry g, Rectangle bounds) {
+        Rectangle mbr = g.mbr();
+        long x = cell((mbr.x1() + mbr.x2()) / 2, bounds.x1(), bounds.x2());
+        long y = cell((mbr.y1() + mbr.y2()) / 2, bounds.y1(), bounds.y2());
+        return HilbertCurve.index(ORDER, x, y);
+    }
+
+    private static long cell(double v, double min, double max) {
+        if (max <= min)
+            return 0;
+        double c = (v - min) / (max - min) * CELLS;
+        return (long) Math.max(0, Math.min(CELLS, c));
+    }
+
+    private static <S extends Geometry> void spill(List<Record<S>> run, File file)
+            throws IOException {
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        try {
+            for (Record<S> r : run) {
+                out.writeLong(r.key);
+                out.writeLong(r.sequence);
+                writeGeometry(out, r.geometry);
+                out.writeInt(r.value.length);
+                out.write(r.value);
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Packs the records into leaves and the nodes of each level into the level
+     * above, writing each node to the buffer as soon as it is full.
+     */
+    private long pack(Run<S> records, OutputStream os) throws IOException {
+        int capacity = (int) Math.round(maxChildren * loadingFactor);
+        Func1<byte[], byte[]> identity = Functions.identity();
+        FlatBufferBuilder builder = new FlatBufferBuilder();
+        Level level = new Level();
+        List<Entry<byte[], S>> group = new ArrayList<Entry<byte[], S>>(capacity);
+        long size = 0;
+        Record<S> r;
+        while ((r = records.next()) != null) {
+            group.add(Entries.entry(r.value, r.geometry));
+            size++;
+            if (group.size() == capacity) {
+                addLeaf(builder, group, identity, level);
+                group.clear();
+            }
+        }
+        if (!group.isEmpty())
+            addLeaf(builder, group, identity, level);
+        while (level.size > 1)
+            level = addNonLeaves(builder, level, capacity);
+
+        Rectangle mbb = level.size == 0 ? Geometries.rectangle(0, 0, 0, 0) : level.mbr(0);
+        int b = SerializerFlatBuffers.toBounds(builder, mbb);
+        Context_.startContext_(builder);
+        Context_.addBounds(builder, b);
+        Context_.addMinChildren(builder, minChildren.isPresent() ? minChildren.get()
+                : (int) Math.round(maxChildren * DEFAULT_FILLING_FACTOR));
+        Context_.addMaxChildren(builder, maxChildren);
+        int c = Context_.endContext_(builder);
+        Tree_.startTree_(builder);
+        Tree_.addContext(builder, c);
+        Tree_.addSize(builder, size);
+        if (size > 0) {
+            Tree_.addRoot(builder, level.offsets[0]);
+        }
+        int t = Tree_.endTree_(builder);
+        Tree_.finishTree_Buffer(builder, t);
+
+        ByteBuffer bb = builder.dataBuffer();
+        os.write(bb.array(), bb.position(), bb.remaining());
+        return size;
+    }
+
+    private static <S extends Geometry> void addLeaf(FlatBufferBuilder builder,
+            List<Entry<byte[], S>> entries, Func1<byte[], byte[]> identity, Level level) {
+        int offset = FlatBuffersHelper.addEntries(entries, builder, identity);
+        level.add(offset, Util.mbr(entries), entries.size());
+    }
+
+    private static Level addNonLeaves(FlatBufferBuilder builder, Level level, int capacity) {
+        Level next = new Level();
+        for (int i = 0; i < level.size; i += capacity) {
+            int to = Math.min(level.size, i + capacity);
+            double x1 = Double.POSITIVE_INFINITY;
+            double y1 = Double.POSITIVE_INFINITY;
+            double x2 = Double.NEGATIVE_INFINITY;
+            double y2 = Double.NEGATIVE_INFINITY;
+            boolean doublePrecision = false;
+            int count = 0;
+            for (int j = i; j < to; j++) {
+                x1 = Math.min(x1, level.x1[j]);
+                y1 = Math.min(y1, level.y1[j]);
+                x2 = Math.max(x2, level.x2[j]);
+                y2 = Math.max(y2, level.y2[j]);
+                doublePrecision |= level.doublePrecision[j];
+                count += level.counts[j];
+            }
+            Rectangle mbb = doublePrecision ? Geometries.rectangle(x1, y1, x2, y2)
+                    : Geometries.rectangle((float) x1, (float) y1, (float) x2, (float) y2);
+            int ch = Node_.createChildrenVector(builder, Arrays.copyOfRange(level.offsets, i, to));
+            int b = SerializerFlatBuffers.toBounds(builder, mbb);
+            Node_.startNode_(builder);
+            Node_.addChildren(builder, ch);
+            Node_.addMbb(builder, b);
+            Node_.addCount(builder, count);
+            next.add(Node_.endNode_(builder), mbb, count);
+        }
+        return next;
+    }
+
+    /**
+     * The offsets and bounds of the nodes of one level of the tree.
+     */
+    private static final class Level {
+
+        int size;
+        int[] offsets = new int[16];
+        double[] x1 = new double[16];
+        double[] y1 = new double[16];
+        double[] x2 = new double[16];
+        double[] y2 = new double[16];
+        boolean[] doublePrecision = new boolean[16];
+        int[] counts = new int[16];
+
+        void add(int offset, Rectangle mbr, int count) {
+            if (size == offsets.length) {
+                int n = size * 2;
+                offsets = Arrays.copyOf(offsets, n);
+                x1 = Arrays.copyOf(x1, n);
+                y1 = Arrays.copyOf(y1, n);
+                x2 = Arrays.copyOf(x2, n);
+                y2 = Arrays.copyOf(y2, n);
+                doublePrecision = Arrays.copyOf(doublePrecision, n);
+                counts = Arrays.copyOf(counts, n);
+            }
+            offsets[size] = offset;
+            x1[size] = mbr.x1();
+            y1[size] = mbr.y1();
+            x2[size] = mbr.x2();
+            y2[size] = mbr.y2();
+            doublePrecision[size] = mbr.isDoublePrecision();
+            counts[size] = count;
+            size++;
+        }
+
+        Rectangle mbr(int i) {
+            if (doublePrecision[i])
+                return Geometries.rectangle(x1[i], y1[i], x2[i], y2[i]);
+            else
+                return Geometries.rectangle((float) x1[i], (float) y1[i], (float) x2[i],
+                        (float) y2[i]);
+        }
+    }
+
+    /**
+     * An entry with its value serialized, ordered by Hilbert value and then by
+     * position in the input so that the sort is stable.
+     */
+    private static final class Record<S extends Geometry> {
+
+        @SuppressWarnings("rawtypes")
+        static final Comparator<Record> ORDER = new Comparator<Record>() {
+            @Override
+            public int compare(Record a, Record b) {
+                if (a.key != b.key)
+                    return a.key < b.key ? -1 : 1;
+                else
+                    return a.sequence < b.sequence ? -1 : a.sequence == b.sequence ? 0 : 1;
+            }
+        };
+
+        final long key;
+        final long sequence;
+        final S geometry;
+        final byte[] value;
+
+        Record(long key, long sequence, S geometry, byte[] value) {
+            this.key = key;
+            this.sequence = sequence;
+            this.geometry = geometry;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Records in order. {@link #next()} returns null after the last record.
+     */
+    private interface Run<S extends Geometry> extends Closeable {
+        Record<S> next() throws IOException;
+    }
+
+    private static final class ListRun<S extends Geometry> implements Run<S> {
+
+        private final List<Record<S>> records;
+        private int index;
+
+        ListRun(List<Record<S>> records) {
+            this.records = records;
+        }
+
+        @Override
+        public Record<S> next() {
+            if (index == records.size())
+                return null;
+            Record<S> r = records.get(index);
+            // release the record as it is packed
+            records.set(index++, null);
+            return r;
+        }
+
+        @Override
+        public void close() {
+            // nothing to close
+        }
+    }
+
+    private static final class FileRun<S extends Geometry> implements Run<S> {
+
+        private final File file;
+        private DataInputStream in;
+        private int remaining;
+
+        FileRun(File file, int size) {
+            this.file = file;
+            this.remaining = size;
+        }
+
+        @Override
+        public Record<S> next() throws IOException {
+            if (remaining == 0)
+                return null;
+            if (in == null)
+                // opened once the merge starts so a failed sort leaves nothing
+                // open
+                in = new DataInputStream(
+                        new BufferedInputStream(new FileInputStream(file), 1 << 16));
+            remaining--;
+            long key = in.readLong();
+            long sequence = in.readLong();
+            S geometry = readGeometry(in);
+            byte[] value = new byte[in.readInt()];
+            in.readFully(value);
+            return new Record<S>(key, sequence, geometry, value);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (in != null)
+                in.close();
+        }
+    }
+
+    /**
+     * Merges runs by keeping the run with the least next record at the head
+     * of a priority queue.
+     */
+    private static final class MergedRun<S extends Geometry> implements Run<S> {
+
+        private final List<Run<S>> runs;
+        private final PriorityQueue<Head<S>> heads;
+
+        MergedRun(List<Run<S>> runs) throws IOException {
+            this.runs = runs;
+            this.heads = new PriorityQueue<Head<S>>(runs.size(), new Comparator<Head<S>>() {
+                @Override
+                public int compare(Head<S> a, Head<S> b) {
+                    return Record.ORDER.compare(a.record, b.record);
+                }
+            });
+            for (Run<S> run : runs) {
+                Record<S> r = run.next();
+                if (r != null)
+                    heads.add(new Head<S>(run, r));
+            }
+        }
+
+        @Override
+        public Record<S> next() throws IOException {
+            Head<S> head = heads.poll();
+            if (head == null)
+                return null;
+            Record<S> r = head.record;
+            Record<S> following = head.run.next();
+            if (following != null) {
+                head.record = following;
+                heads.add(head);
+            }
+            return r;
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (Run<S> run : runs)
+                run.close();
+        }
+    }
+
+    private static final class Head<S extends Geometry> {
+        final Run<S> run;
+        Record<S> record;
+
+        Head(Run<S> run, Record<S> record) {
+            this.run = run;
+            this.record = record;
+        }
+    }
+
+    private static void writeGeometry(DataOutputStream out, Geometry g) throws IOException {
+        // Must check Point before Rectangle because Point is instance of
+        // Rectangle
+        if (g instanceof Point) {
+            Point p = (Point) g;
+            if (p.isDoublePrecision()) {
+                out.writeByte(GeometryType_.PointDouble);
+                out.writeDouble(p.x());
+                out.writeDouble(p.y());
+            } else {
+                out.writeByte(GeometryType_.PointFloat);
+                out.writeFloat((float) p.x());
+                out.writeFloat((float) p.y());
+            }
+        } else if (g instanceof Rectangle) {
+            Rectangle b = (Rectangle) g;
+            if (b.isDoublePrecision()) {
+                out.writeByte(GeometryType_.BoxDouble);
+                writeDoubles(out, b.x1(), b.y1(), b.x2(), b.y2());
+            } else {
+                out.writeByte(GeometryType_.BoxFloat);
+                writeFloats(out, b.x1(), b.y1(), b.x2(), b.y2());
+            }
+        } else if (g instanceof Circle) {
+            Circle c = (Circle) g;
+            if (c.isDoublePrecision()) {
+                out.writeByte(GeometryType_.CircleDouble);
+                writeDoubles(out, c.x(), c.y(), c.radius());
+            } else {
+                out.writeByte(GeometryType_.CircleFloat);
+                writeFloats(out, c.x(), c.y(), c.radius());
+            }
+        } else if (g instanceof Line) {
+            Line c = (Line) g;
+            if (c.isDoublePrecision()) {
+                out.writeByte(GeometryType_.LineDouble);
+                writeDoubles(out, c.x1(), c.y1(), c.x2(), c.y2());
+            } else {
+                out.writeByte(GeometryType_.LineFloat);
+                writeFloats(out, c.x1(), c.y1(), c.x2(), c.y2());
+            }
+        } else
+            throw new RuntimeException("unexpected");
+    }
+
+    private static void writeDoubles(DataOutputStream out, double... values) throws IOException {
+        for (double v : values)
+            out.writeDouble(v);
+    }
+
+    private static void writeFloats(DataOutputStream out, double... values) throws IOException {
+        for (double v : values)
+            out.writeFloat((float) v);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <S extends Geometry> S readGeometry(DataInputStream in) throws IOException {
+        final Geometry result;
+        byte type = in.readByte();
+        if (type == GeometryType_.PointDouble) {
+            result = Geometries.point(in.readDouble(), in.readDouble());
+        } else if (type == GeometryType_.PointFloat) {
+            result = Geometries.point(in.readFloat(), in.readFloat());
+        } else if (type == GeometryType_.BoxDouble) {
+            result = Geometries.rectangle(in.readDouble(), in.readDouble(), in.readDouble(),
+                    in.readDouble());
+        } else if (type == GeometryType_.BoxFloat) {
+            result = Geometries.rectangle(in.readFloat(), in.readFloat(), in.readFloat(),
+                    in.readFloat());
+        } else if (type == GeometryType_.CircleDouble) {
+            result = Geometries.circle(in.readDouble(), in.readDouble(), in.readDouble());
+        } else if (type == GeometryType_.CircleFloat) {
+            result = Geometries.circle(in.readFloat(), in.readFloat(), in.readFloat());
+        } else if (type == GeometryType_.LineDouble) {
+            result = Geometries.line(in.readDouble(), in.readDouble(), in.readDouble(),
+                    in.readDouble());
+        } else if (type == GeometryType_.LineFloat) {
+            result = Geometries.line(in.readFloat(), in.readFloat(), in.readFloat(),
+                    in.readFloat());
+        } else
+            throw new RuntimeException("unexpected");
+        return (S) result;
+    }
+
+}
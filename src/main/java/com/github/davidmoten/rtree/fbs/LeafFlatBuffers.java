@@ -6,6 +6,7 @@ import com.github.davidmoten.rtree.Context;
 import com.github.davidmoten.rtree.Entry;
 import com.github.davidmoten.rtree.Leaf;
 import com.github.davidmoten.rtree.Node;
+import com.github.davidmoten.rtree.SearchPredicate;
 import com.github.davidmoten.rtree.fbs.generated.BoundsType_;
 import com.github.davidmoten.rtree.fbs.generated.Bounds_;
 import com.github.davidmoten.rtree.fbs.generated.BoxDouble_;
@@ -55,12 +56,12 @@ final class LeafFlatBuffers<T, S extends Geometry> implements Leaf<T, S> {
     }
 
     @Override
-    public void searchWithoutBackpressure(Func1<? super Geometry, Boolean> condition,
+    public void searchWithoutBackpressure(SearchPredicate<? super S> predicate,
             Subscriber<? super Entry<T, S>> subscriber) {
         // only called when the root of the tree is a Leaf
         // normally the searchWithoutBackpressure is executed completely within the
         // NonLeafFlatBuffers class to reduce object creation
-        LeafHelper.search(condition, subscriber, this);
+        LeafHelper.search(predicate, subscriber, this);
     }
 
     @Override
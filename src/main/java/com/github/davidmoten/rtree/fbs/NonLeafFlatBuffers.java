@@ -11,8 +11,10 @@ import com.github.davidmoten.guavamini.Preconditions;
 import com.github.davidmoten.rtree.Context;
 import com.github.davidmoten.rtree.Entries;
 import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.HasEntryCount;
 import com.github.davidmoten.rtree.Node;
 import com.github.davidmoten.rtree.NonLeaf;
+import com.github.davidmoten.rtree.SearchPredicate;
 import com.github.davidmoten.rtree.fbs.generated.BoundsType_;
 import com.github.davidmoten.rtree.fbs.generated.Bounds_;
 import com.github.davidmoten.rtree.fbs.generated.BoxDouble_;
@@ -20,16 +22,15 @@ import com.github.davidmoten.rtree.fbs.generated.BoxFloat_;
 import com.github.davidmoten.rtree.fbs.generated.Entry_;
 import com.github.davidmoten.rtree.fbs.generated.Geometry_;
 import com.github.davidmoten.rtree.fbs.generated.Node_;
-import com.github.davidmoten.rtree.geometry.Geometries;
 import com.github.davidmoten.rtree.geometry.Geometry;
-import com.github.davidmoten.rtree.geometry.Rectangle;
 import com.github.davidmoten.rtree.internal.NodeAndEntries;
 import com.github.davidmoten.rtree.internal.NonLeafHelper;
+import com.github.davidmoten.rtree.internal.Util;
 
 import rx.Subscriber;
 import rx.functions.Func1;
 
-final class NonLeafFlatBuffers<T, S extends Geometry> implements NonLeaf<T, S> {
+final class NonLeafFlatBuffers<T, S extends Geometry> implements NonLeaf<T, S>, HasEntryCount {
 
     private final Node_ node;
     private final Context<T, S> context;
@@ -55,32 +56,33 @@ final class NonLeafFlatBuffers<T, S extends Geometry> implements NonLeaf<T, S> {
     }
 
     @Override
-    public void searchWithoutBackpressure(Func1<? super Geometry, Boolean> criterion,
+    public void searchWithoutBackpressure(SearchPredicate<? super S> predicate,
             Subscriber<? super Entry<T, S>> subscriber) {
         // pass through entry and geometry and box instances to be reused for
         // flatbuffers extraction this reduces allocation/gc costs (but of
         // course introduces some mutable ugliness into the codebase)
-        searchWithoutBackpressure(node, criterion, subscriber, deserializer, new Entry_(),
-                new Geometry_(), new Bounds_());
+        searchWithoutBackpressure(node, predicate, subscriber, deserializer, new Entry_(),
+                new Geometry_(), new Bounds_(), new BoxDouble_(), new BoxFloat_());
     }
 
     @SuppressWarnings("unchecked")
     private static <T, S extends Geometry> void searchWithoutBackpressure(Node_ node,
-            Func1<? super Geometry, Boolean> criterion, Subscriber<? super Entry<T, S>> subscriber,
+            SearchPredicate<? super S> predicate, Subscriber<? super Entry<T, S>> subscriber,
             Func1<byte[], ? extends T> deserializer, Entry_ entry, Geometry_ geometry,
-            Bounds_ bounds) {
+            Bounds_ bounds, BoxDouble_ boxDouble, BoxFloat_ boxFloat) {
         {
-            // write bounds from node to bounds variable
+            // write bounds from node to bounds variable and test the corners
+            // directly so no Rectangle is created per node
             node.mbb(bounds);
-            final Rectangle rect;
+            final boolean matches;
             if (bounds.type() == BoundsType_.BoundsDouble) {
-                BoxDouble_ b = bounds.boxDouble();
-                rect = Geometries.rectangle(b.minX(), b.minY(), b.maxX(), b.maxY());
+                BoxDouble_ b = bounds.boxDouble(boxDouble);
+                matches = predicate.testNode(b.minX(), b.minY(), b.maxX(), b.maxY());
             } else {
-                BoxFloat_ b = bounds.boxFloat();
-                rect = Geometries.rectangle(b.minX(), b.minY(), b.maxX(), b.maxY());
+                BoxFloat_ b = bounds.boxFloat(boxFloat);
+                matches = predicate.testNode(b.minX(), b.minY(), b.maxX(), b.maxY());
             }
-            if (!criterion.call(rect)) {
+            if (!matches) {
                 return;
             }
         }
@@ -92,8 +94,8 @@ final class NonLeafFlatBuffers<T, S extends Geometry> implements NonLeaf<T, S> {
                 if (subscriber.isUnsubscribed())
                     return;
                 node.children(child, i);
-                searchWithoutBackpressure(child, criterion, subscriber, deserializer, entry,
-                        geometry, bounds);
+                searchWithoutBackpressure(child, predicate, subscriber, deserializer, entry,
+                        geometry, bounds, boxDouble, boxFloat);
             }
         } else {
             int numEntries = node.entriesLength();
@@ -107,7 +109,7 @@ final class NonLeafFlatBuffers<T, S extends Geometry> implements NonLeaf<T, S> {
                 // set geometry
                 entry.geometry(geometry);
                 final Geometry g = toGeometry(geometry);
-                if (criterion.call(g)) {
+                if (predicate.testEntry((S) g)) {
                     T t = parseObject(deserializer, entry);
                     Entry<T, S> ent = Entries.entry(t, (S) g);
                     subscriber.onNext(ent);
@@ -138,6 +140,20 @@ final class NonLeafFlatBuffers<T, S extends Geometry> implements NonLeaf<T, S> {
         return node.childrenLength();
     }
 
+    @Override
+    public int entryCount() {
+        long count = node.count();
+        if (count > 0)
+            return (int) count;
+        else {
+            // written before entry counts were serialized
+            int total = 0;
+            for (int i = 0; i < count(); i++)
+                total += Util.entryCount(child(i));
+            return total;
+        }
+    }
+
     @Override
     public Context<T, S> context() {
         return context;
@@ -67,7 +67,7 @@ public final class SerializerFlatBuffers<T, S extends Geometry> implements Seria
         int c = Context_.endContext_(builder);
         final int n;
         if (tree.root().isPresent()) {
-            n = addNode(tree.root().get(), builder, factory.serializer());
+            n = addNode(tree.root().get(), builder, factory.serializer(), new int[1]);
         } else {
             // won't be used
             n = 0;
@@ -86,7 +86,7 @@ public final class SerializerFlatBuffers<T, S extends Geometry> implements Seria
         os.write(bb.array(), bb.position(), bb.remaining());
     }
 
-    private static int toBounds(FlatBufferBuilder builder, final Rectangle r) {
+    static int toBounds(FlatBufferBuilder builder, final Rectangle r) {
         Bounds_.startBounds_(builder);
         if (r.isDoublePrecision()) {
             Bounds_.addType(builder, BoundsType_.BoundsDouble);
@@ -101,17 +101,25 @@ public final class SerializerFlatBuffers<T, S extends Geometry> implements Seria
         return Bounds_.endBounds_(builder);
     }
 
+    /**
+     * Adds the node to the builder and returns its offset. The number of
+     * entries in the subtree is returned in {@code entryCount[0]} so that
+     * non-leaf nodes can record it without walking their subtrees again.
+     */
     private static <T, S extends Geometry> int addNode(Node<T, S> node, FlatBufferBuilder builder,
-            Func1<? super T, byte[]> serializer) {
+            Func1<? super T, byte[]> serializer, int[] entryCount) {
         if (node instanceof Leaf) {
             Leaf<T, S> leaf = (Leaf<T, S>) node;
+            entryCount[0] = leaf.count();
             return FlatBuffersHelper.addEntries(leaf.entries(), builder, serializer);
         } else {
             NonLeaf<T, S> nonLeaf = (NonLeaf<T, S>) node;
             int[] nodes = new int[nonLeaf.count()];
+            int count = 0;
             for (int i = 0; i < nonLeaf.count(); i++) {
                 Node<T, S> child = nonLeaf.child(i);
-                nodes[i] = addNode(child, builder, serializer);
+                nodes[i] = addNode(child, builder, serializer, entryCount);
+                count += entryCount[0];
             }
             int ch = Node_.createChildrenVector(builder, nodes);
             Rectangle mbb = nonLeaf.geometry().mbr();
@@ -119,6 +127,8 @@ public final class SerializerFlatBuffers<T, S extends Geometry> implements Seria
             Node_.startNode_(builder);
             Node_.addChildren(builder, ch);
             Node_.addMbb(builder, b);
+            Node_.addCount(builder, count);
+            entryCount[0] = count;
             return Node_.endNode_(builder);
         }
     }
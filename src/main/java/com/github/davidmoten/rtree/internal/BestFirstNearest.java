@@ -0,0 +1,125 @@
+package com.github.davidmoten.rtree.internal;
+
+import com.github.davidmoten.guavamini.Preconditions;
+import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.Leaf;
+import com.github.davidmoten.rtree.Node;
+import com.github.davidmoten.rtree.NonLeaf;
+import com.github.davidmoten.rtree.geometry.Geometry;
+import com.github.davidmoten.rtree.geometry.HasGeometry;
+import com.github.davidmoten.rtree.geometry.Rectangle;
+import com.github.davidmoten.rtree.internal.util.DoubleHeap;
+
+/**
+ * Best-first nearest neighbour search (Hjaltason and Samet 1999). Nodes and
+ * entries share one priority queue keyed by their distance from the query
+ * rectangle. The distance of a node is a lower bound on the distance of
+ * everything below it, so an entry at the head of the queue is nearer than
+ * anything not yet returned and can be returned immediately. Entries are
+ * returned in ascending order of distance and only the nodes nearer than the
+ * last entry returned are ever expanded.
+ *
+ * <p>
+ * When the number of results is bounded by {@code maxCount} the k-th smallest
+ * distance of the entries queued so far bounds the distance of the last
+ * result, and nodes and entries beyond it are not queued.
+ *
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @param <T>
+ *            value type
+ * @param <S>
+ *            geometry type
+ */
+public final class BestFirstNearest<T, S extends Geometry> implements IncrementalSearch<T, S> {
+
+    private final DoubleHeap<HasGeometry> heap = new DoubleHeap<HasGeometry>();
+    private final Rectangle query;
+    private final double maxDistance;
+    private final int maxCount;
+    private int remaining;
+
+    // the largest of the k smallest distances of entries queued so far, keyed
+    // by negated distance so that the largest is at the head
+    private final DoubleHeap<Object> nearestK;
+
+    /**
+     * Constructor.
+     *
+     * @param root
+     *            the root of the tree to search
+     * @param query
+     *            distances are measured from this rectangle
+     * @param maxDistance
+     *            only entries strictly nearer than this are returned, may be
+     *            {@link Double#POSITIVE_INFINITY}
+     * @param maxCount
+     *            maximum number of entries to return, may be
+     *            {@link Integer#MAX_VALUE}
+     */
+    public BestFirstNearest(Node<T, S> root, Rectangle query, double maxDistance,
+            int maxCount) {
+        Preconditions.checkNotNull(query);
+        Preconditions.checkArgument(maxCount >= 0, "maxCount cannot be negative");
+        this.query = query;
+        this.maxDistance = maxDistance;
+        this.maxCount = maxCount;
+        this.remaining = maxCount;
+        this.nearestK = maxCount == Integer.MAX_VALUE ? null
+                : new DoubleHeap<Object>(Math.max(1, Math.min(maxCount, 1024)));
+        push(root);
+    }
+
+    /**
+     * Returns the next nearest entry or null if there are no more.
+     *
+     * @return next nearest entry or null if complete
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Entry<T, S> next() {
+        while (remaining > 0 && !heap.isEmpty()) {
+            HasGeometry item = heap.poll();
+            if (item instanceof Entry) {
+                remaining--;
+                return (Entry<T, S>) item;
+            } else if (item instanceof NonLeaf) {
+                NonLeaf<T, S> node = (NonLeaf<T, S>) item;
+                int count = node.count();
+                for (int i = 0; i < count; i++)
+                    push(node.child(i));
+            } else {
+                Leaf<T, S> leaf = (Leaf<T, S>) item;
+                int count = leaf.count();
+                for (int i = 0; i < count; i++)
+                    pushEntry(leaf.entry(i));
+            }
+        }
+        heap.clear();
+        return null;
+    }
+
+    private void push(Node<T, S> node) {
+        double d = node.geometry().distance(query);
+        if (d < maxDistance && !beyondNearestK(d))
+            heap.add(d, node);
+    }
+
+    private void pushEntry(Entry<T, S> entry) {
+        double d = entry.geometry().distance(query);
+        if (d < maxDistance && !beyondNearestK(d)) {
+            heap.add(d, entry);
+            if (nearestK != null) {
+                nearestK.add(-d, entry);
+                if (nearestK.size() > maxCount)
+                    nearestK.poll();
+            }
+        }
+    }
+
+    private boolean beyondNearestK(double d) {
+        return nearestK != null && nearestK.size() == maxCount && d > -nearestK.peekKey();
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.github.davidmoten.rtree.internal;
+
+import com.github.davidmoten.guavamini.Preconditions;
+import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.Leaf;
+import com.github.davidmoten.rtree.Node;
+import com.github.davidmoten.rtree.NonLeaf;
+import com.github.davidmoten.rtree.geometry.Geometry;
+import com.github.davidmoten.rtree.geometry.HasGeometry;
+import com.github.davidmoten.rtree.geometry.Rectangle;
+import com.github.davidmoten.rtree.internal.util.DoubleHeap;
+
+/**
+ * Branch and bound k-skyband over an R-tree: the entries dominated by fewer
+ * than k other entries (the 1-skyband is the skyline). Nodes and entries are
+ * visited in ascending order of the L1 distance of the lower-left corner of
+ * their minimum bounding rectangle from the origin, ties broken by x and then
+ * y, as for {@link BranchAndBoundSkyline}. Every dominator of an entry is visited before
+ * it and an entry with k or more dominators always has k or more dominators in
+ * the skyband, so it is enough to count dominators among the skyband entries
+ * found so far, which are held in a {@link SortedSkyband}. A node whose
+ * lower-left corner is dominated by k skyband entries is discarded without
+ * being expanded.
+ *
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @param <T>
+ *            value type
+ * @param <S>
+ *            geometry type
+ */
+public final class BranchAndBoundSkyband<T, S extends Geometry> implements IncrementalSearch<T, S> {
+
+    // ties broken by x then y so that a dominator is always polled first (see
+    // BranchAndBoundSkyline)
+    private final DoubleHeap<HasGeometry> heap = new DoubleHeap<HasGeometry>(64, 2);
+    private final SortedSkyband skyband;
+
+    /**
+     * Constructor.
+     *
+     * @param root
+     *            the root of the tree to search
+     * @param k
+     *            entries dominated by fewer than k others are returned, must
+     *            be at least 1
+     */
+    public BranchAndBoundSkyband(Node<T, S> root, int k) {
+        Preconditions.checkArgument(k >= 1, "k must be at least 1");
+        this.skyband = new SortedSkyband(k);
+        push(root);
+    }
+
+    /**
+     * Returns the next entry of the skyband or null if there are no more.
+     *
+     * @return next skyband entry or null if complete
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Entry<T, S> next() {
+        while (!heap.isEmpty()) {
+            HasGeometry item = heap.poll();
+            Rectangle r = item.geometry().mbr();
+            if (skyband.isDominatedByK(r.x1(), r.y1())) {
+                continue;
+            } else if (item instanceof Entry) {
+                skyband.add(r.x1(), r.y1());
+                return (Entry<T, S>) item;
+            } else if (item instanceof NonLeaf) {
+                NonLeaf<T, S> node = (NonLeaf<T, S>) item;
+                int count = node.count();
+                for (int i = 0; i < count; i++)
+                    push(node.child(i));
+            } else {
+                Leaf<T, S> leaf = (Leaf<T, S>) item;
+                int count = leaf.count();
+                for (int i = 0; i < count; i++)
+                    push(leaf.entry(i));
+            }
+        }
+        return null;
+    }
+
+    private void push(HasGeometry item) {
+        Rectangle r = item.geometry().mbr();
+        double x = r.x1();
+        double y = r.y1();
+        if (!skyband.isDominatedByK(x, y))
+            heap.add(x + y, x, y, item);
+    }
+
+}
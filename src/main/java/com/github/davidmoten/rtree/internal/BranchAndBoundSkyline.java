@@ -0,0 +1,317 @@
+package com.github.davidmoten.rtree.internal;
+
+import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.Leaf;
+import com.github.davidmoten.rtree.Node;
+import com.github.davidmoten.rtree.NonLeaf;
+import com.github.davidmoten.rtree.Preference;
+import com.github.davidmoten.rtree.geometry.Geometry;
+import com.github.davidmoten.rtree.geometry.HasGeometry;
+import com.github.davidmoten.rtree.geometry.Point;
+import com.github.davidmoten.rtree.geometry.Rectangle;
+import com.github.davidmoten.rtree.internal.util.DoubleHeap;
+
+/**
+ * Branch and bound skyline (BBS) over an R-tree (Papadias, Tao, Fu, Seeger
+ * 2003). Nodes and entries are visited in ascending order of the L1 distance
+ * of the lower-left corner of their minimum bounding rectangle from the
+ * origin, ties broken by x and then y. An entry popped from the heap that is
+ * not dominated by the skyline found so far is a skyline point.
+ *
+ * <p>
+ * Dominated nodes and entries are discarded lazily: before being pushed on to
+ * the heap and again when popped (the skyline may have grown in the meantime).
+ * This avoids ever scanning the heap so the cost of the search scales with
+ * the size of the skyline rather than the size of the heap.
+ *
+ * <p>
+ * The search may be constrained to a rectangle in which case only entries
+ * located in the rectangle are considered, nodes not intersecting it are never
+ * visited and the lower-left corner of a node is clipped to the rectangle
+ * (which tightens both its key and its dominance test).
+ *
+ * <p>
+ * Larger values may be preferred in either dimension, in which case the search
+ * runs on negated coordinates of that dimension (so the upper bound of a node
+ * becomes its best corner). The coordinates held by {@link #skyline()} are in
+ * this transformed space.
+ *
+ * <p>
+ * A dynamic skyline relative to a query point q (see
+ * {@link #dynamic(Node, Rectangle, Point)}) runs on the distances
+ * {@code |x - q.x|} and {@code |y - q.y|} instead. The best corner of a node is
+ * then its distance from q in each dimension (zero if the node spans q in that
+ * dimension) so no coordinates are transformed up front.
+ *
+ * <p>
+ * Skyline points are produced incrementally by {@link #next()}. For entries
+ * whose geometry is not a point the corner of the minimum bounding rectangle
+ * that is best for the preferences (the lower-left corner when minimising
+ * both) is used as the location of the entry (for a dynamic skyline the
+ * point of the rectangle nearest to q).
+ *
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @param <T>
+ *            value type
+ * @param <S>
+ *            geometry type
+ */
+public final class BranchAndBoundSkyline<T, S extends Geometry> implements IncrementalSearch<T, S> {
+
+    // x + y can round to the same double for a point and a point it dominates
+    // so ties are broken by x then y (the order of SortFilterSkyline)
+    private final DoubleHeap<HasGeometry> heap = new DoubleHeap<HasGeometry>(64, 2);
+    private final SortedSkyline<T, S> skyline = new SortedSkyline<T, S>();
+    private long prunedNodes;
+    private long prunedEntries;
+    private final Rectangle constraint;
+    private final Preference xPreference;
+    private final Preference yPreference;
+    private final Point query;
+    private SortedSkyline<T, S> external;
+
+    public BranchAndBoundSkyline(Node<T, S> root) {
+        this(root, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param root
+     *            the root of the tree to search
+     * @param constraint
+     *            only entries located in this rectangle are considered (null
+     *            for no constraint)
+     */
+    public BranchAndBoundSkyline(Node<T, S> root, Rectangle constraint) {
+        this(root, constraint, Preference.MIN, Preference.MIN);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param root
+     *            the root of the tree to search
+     * @param constraint
+     *            only entries located in this rectangle are considered (null
+     *            for no constraint)
+     * @param xPreference
+     *            whether smaller or larger x is preferred
+     * @param yPreference
+     *            whether smaller or larger y is preferred
+     */
+    public BranchAndBoundSkyline(Node<T, S> root, Rectangle constraint, Preference xPreference,
+            Preference yPreference) {
+        this(root, constraint, xPreference, yPreference, null);
+    }
+
+    private BranchAndBoundSkyline(Node<T, S> root, Rectangle constraint, Preference xPreference,
+            Preference yPreference, Point query) {
+        this.constraint = constraint;
+        this.xPreference = xPreference;
+        this.yPreference = yPreference;
+        this.query = query;
+        push(root);
+    }
+
+    /**
+     * Returns a search for the dynamic skyline relative to {@code query}: the
+     * entries not dynamically dominated by another entry, where p dynamically
+     * dominates r if p is no further from the query than r in both x and y
+     * and strictly nearer in at least one.
+     *
+     * @param root
+     *            the root of the tree to search
+     * @param constraint
+     *            only entries located in this rectangle are considered (null
+     *            for no constraint)
+     * @param query
+     *            the query point
+     * @param <T>
+     *            value type
+     * @param <S>
+     *            geometry type
+     * @return dynamic skyline search
+     */
+    public static <T, S extends Geometry> BranchAndBoundSkyline<T, S> dynamic(Node<T, S> root,
+            Rectangle constraint, Point query) {
+        return new BranchAndBoundSkyline<T, S>(root, constraint, Preference.MIN, Preference.MIN,
+                query);
+    }
+
+    /**
+     * Returns the next skyline point or null if there are no more.
+     *
+     * @return next skyline point or null if complete
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Entry<T, S> next() {
+        while (!heap.isEmpty()) {
+            HasGeometry item = heap.poll();
+            Rectangle r = item.geometry().mbr();
+            final double x = x(r);
+            final double y = y(r);
+            if (isDominated(x, y)) {
+                countPruned(item);
+            } else if (item instanceof Entry) {
+                Entry<T, S> entry = (Entry<T, S>) item;
+                skyline.add(entry, x, y);
+                return entry;
+            } else if (item instanceof NonLeaf) {
+                NonLeaf<T, S> node = (NonLeaf<T, S>) item;
+                int count = node.count();
+                for (int i = 0; i < count; i++)
+                    push(node.child(i));
+            } else {
+                Leaf<T, S> leaf = (Leaf<T, S>) item;
+                int count = leaf.count();
+                for (int i = 0; i < count; i++)
+                    push(leaf.entry(i));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Sets a skyline of points that are not necessarily in this tree but that
+     * are known to exist (for example found by a search of another part of a
+     * larger tree). Nodes and entries dominated by a member of
+     * {@code external} are discarded too so the points returned by
+     * {@link #next()} are then only guaranteed not to be dominated by points in
+     * this tree. May be called again with a skyline that dominates at least as
+     * much. {@code external} must not be modified while in use.
+     *
+     * @param external
+     *            skyline of known points, not modified
+     */
+    public void pruneWith(SortedSkyline<T, S> external) {
+        this.external = external;
+    }
+
+    /**
+     * Returns the skyline points found so far in ascending (transformed) x
+     * order.
+     *
+     * @return skyline points found so far
+     */
+    public SortedSkyline<T, S> skyline() {
+        return skyline;
+    }
+
+    /**
+     * Returns the number of nodes discarded without being expanded because the
+     * lower-left corner of their minimum bounding rectangle was dominated.
+     *
+     * @return number of pruned nodes
+     */
+    public long prunedNodes() {
+        return prunedNodes;
+    }
+
+    /**
+     * Returns the number of entries discarded because they were dominated.
+     *
+     * @return number of pruned entries
+     */
+    public long prunedEntries() {
+        return prunedEntries;
+    }
+
+    private void push(HasGeometry item) {
+        Rectangle r = item.geometry().mbr();
+        if (constraint != null) {
+            if (item instanceof Entry) {
+                if (!constraint.contains(locationX(r), locationY(r)))
+                    return;
+            } else if (!constraint.intersects(r))
+                return;
+        }
+        final double x = x(r);
+        final double y = y(r);
+        if (isDominated(x, y))
+            countPruned(item);
+        else
+            heap.add(x + y, x, y, item);
+    }
+
+    private boolean isDominated(double x, double y) {
+        return skyline.isDominated(x, y) || external != null && external.isDominated(x, y);
+    }
+
+    /**
+     * Returns the x coordinate of the best corner of {@code r} (clipped to the
+     * constraint) in the transformed space used for dominance.
+     *
+     * @param r
+     *            minimum bounding rectangle of a node or entry
+     * @return transformed x coordinate
+     */
+    public double x(Rectangle r) {
+        if (query != null) {
+            return constraint == null ? distance(r.x1(), r.x2(), query.x())
+                    : distance(Math.max(r.x1(), constraint.x1()), Math.min(r.x2(), constraint.x2()),
+                            query.x());
+        } else if (xPreference == Preference.MIN) {
+            return constraint == null ? r.x1() : Math.max(r.x1(), constraint.x1());
+        } else {
+            return -(constraint == null ? r.x2() : Math.min(r.x2(), constraint.x2()));
+        }
+    }
+
+    /**
+     * Returns the y coordinate of the best corner of {@code r} (clipped to the
+     * constraint) in the transformed space used for dominance.
+     *
+     * @param r
+     *            minimum bounding rectangle of a node or entry
+     * @return transformed y coordinate
+     */
+    public double y(Rectangle r) {
+        if (query != null) {
+            return constraint == null ? distance(r.y1(), r.y2(), query.y())
+                    : distance(Math.max(r.y1(), constraint.y1()), Math.min(r.y2(), constraint.y2()),
+                            query.y());
+        } else if (yPreference == Preference.MIN) {
+            return constraint == null ? r.y1() : Math.max(r.y1(), constraint.y1());
+        } else {
+            return -(constraint == null ? r.y2() : Math.min(r.y2(), constraint.y2()));
+        }
+    }
+
+    /**
+     * Returns the distance of {@code v} from the interval [a, b].
+     */
+    private static double distance(double a, double b, double v) {
+        if (v < a)
+            return a - v;
+        else if (v > b)
+            return v - b;
+        else
+            return 0;
+    }
+
+    private double locationX(Rectangle r) {
+        if (query != null)
+            return Math.max(r.x1(), Math.min(r.x2(), query.x()));
+        else
+            return xPreference == Preference.MIN ? r.x1() : r.x2();
+    }
+
+    private double locationY(Rectangle r) {
+        if (query != null)
+            return Math.max(r.y1(), Math.min(r.y2(), query.y()));
+        else
+            return yPreference == Preference.MIN ? r.y1() : r.y2();
+    }
+
+    private void countPruned(HasGeometry item) {
+        if (item instanceof Entry)
+            prunedEntries++;
+        else
+            prunedNodes++;
+    }
+
+}
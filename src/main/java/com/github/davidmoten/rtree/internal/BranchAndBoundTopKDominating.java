@@ -0,0 +1,177 @@
+package com.github.davidmoten.rtree.internal;
+
+import com.github.davidmoten.guavamini.Preconditions;
+import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.Leaf;
+import com.github.davidmoten.rtree.Node;
+import com.github.davidmoten.rtree.NonLeaf;
+import com.github.davidmoten.rtree.geometry.Geometry;
+import com.github.davidmoten.rtree.geometry.HasGeometry;
+import com.github.davidmoten.rtree.geometry.Rectangle;
+import com.github.davidmoten.rtree.internal.util.DoubleHeap;
+
+/**
+ * Branch and bound top-k dominating query over an R-tree (Yiu and Mamoulis
+ * 2007). The score of an entry is the number of entries it dominates and the k
+ * entries with the highest scores are returned in descending order of score.
+ *
+ * <p>
+ * Nodes and entries are visited in descending order of an upper bound of their
+ * score. Anything in a node can only dominate entries located in the quadrant
+ * above and to the right of the lower-left corner of the node so the number of
+ * entries in that quadrant is an upper bound for the node. Entries are given
+ * their exact score so an entry at the top of the heap scores at least as high
+ * as anything not yet returned. Quadrant counts are answered by descending only
+ * the nodes that straddle the boundary of the quadrant, which is logarithmic
+ * when nodes carry entry counts (see {@link com.github.davidmoten.rtree.HasEntryCount}).
+ *
+ * <p>
+ * The location of an entry is the lower-left corner of its minimum bounding
+ * rectangle.
+ *
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @param <T>
+ *            value type
+ * @param <S>
+ *            geometry type
+ */
+public final class BranchAndBoundTopKDominating<T, S extends Geometry>
+        implements IncrementalSearch<T, S> {
+
+    // max-heap by using negated scores as keys
+    private final DoubleHeap<HasGeometry> heap = new DoubleHeap<HasGeometry>();
+    private final Node<T, S> root;
+    private int remaining;
+
+    /**
+     * Constructor.
+     *
+     * @param root
+     *            the root of the tree to search
+     * @param k
+     *            number of entries to return (fewer if the tree is smaller),
+     *            must be at least 1
+     */
+    public BranchAndBoundTopKDominating(Node<T, S> root, int k) {
+        Preconditions.checkArgument(k >= 1, "k must be at least 1");
+        this.root = root;
+        this.remaining = k;
+        push(root);
+    }
+
+    /**
+     * Returns the entry with the next highest score or null if k entries have
+     * been returned or there are no more.
+     *
+     * @return next entry or null if complete
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Entry<T, S> next() {
+        while (remaining > 0 && !heap.isEmpty()) {
+            HasGeometry item = heap.poll();
+            if (item instanceof Entry) {
+                remaining--;
+                return (Entry<T, S>) item;
+            } else if (item instanceof NonLeaf) {
+                NonLeaf<T, S> node = (NonLeaf<T, S>) item;
+                int count = node.count();
+                for (int i = 0; i < count; i++)
+                    push(node.child(i));
+            } else {
+                Leaf<T, S> leaf = (Leaf<T, S>) item;
+                int count = leaf.count();
+                for (int i = 0; i < count; i++)
+                    push(leaf.entry(i));
+            }
+        }
+        return null;
+    }
+
+    private void push(HasGeometry item) {
+        Rectangle r = item.geometry().mbr();
+        final int score;
+        if (item instanceof Entry)
+            score = countDominated(root, r.x1(), r.y1());
+        else
+            score = countQuadrant(root, r.x1(), r.y1());
+        heap.add(-score, item);
+    }
+
+    /**
+     * Returns the number of entries under {@code node} dominated by the
+     * location {@code (x, y)}.
+     *
+     * @param node
+     *            root of the subtree to count
+     * @param x
+     *            x coordinate
+     * @param y
+     *            y coordinate
+     * @return number of entries dominated by (x, y)
+     */
+    public static int countDominated(Node<?, ?> node, double x, double y) {
+        return countQuadrant(node, x, y) - countAt(node, x, y);
+    }
+
+    /**
+     * Returns the number of entries under {@code node} located at or above and
+     * to the right of {@code (x, y)}.
+     *
+     * @param node
+     *            root of the subtree to count
+     * @param x
+     *            lower bound of x
+     * @param y
+     *            lower bound of y
+     * @return number of entries in the quadrant
+     */
+    public static int countQuadrant(Node<?, ?> node, double x, double y) {
+        Rectangle r = node.geometry().mbr();
+        if (r.x2() < x || r.y2() < y)
+            return 0;
+        else if (r.x1() >= x && r.y1() >= y)
+            return Util.entryCount(node);
+        else if (node instanceof NonLeaf) {
+            NonLeaf<?, ?> nonLeaf = (NonLeaf<?, ?>) node;
+            int count = 0;
+            for (int i = 0; i < nonLeaf.count(); i++)
+                count += countQuadrant(nonLeaf.child(i), x, y);
+            return count;
+        } else {
+            Leaf<?, ?> leaf = (Leaf<?, ?>) node;
+            int count = 0;
+            for (int i = 0; i < leaf.count(); i++) {
+                Rectangle e = leaf.entry(i).geometry().mbr();
+                if (e.x1() >= x && e.y1() >= y)
+                    count++;
+            }
+            return count;
+        }
+    }
+
+    private static int countAt(Node<?, ?> node, double x, double y) {
+        Rectangle r = node.geometry().mbr();
+        if (x < r.x1() || x > r.x2() || y < r.y1() || y > r.y2())
+            return 0;
+        else if (node instanceof NonLeaf) {
+            NonLeaf<?, ?> nonLeaf = (NonLeaf<?, ?>) node;
+            int count = 0;
+            for (int i = 0; i < nonLeaf.count(); i++)
+                count += countAt(nonLeaf.child(i), x, y);
+            return count;
+        } else {
+            Leaf<?, ?> leaf = (Leaf<?, ?>) node;
+            int count = 0;
+            for (int i = 0; i < leaf.count(); i++) {
+                Rectangle e = leaf.entry(i).geometry().mbr();
+                if (e.x1() == x && e.y1() == y)
+                    count++;
+            }
+            return count;
+        }
+    }
+
+}
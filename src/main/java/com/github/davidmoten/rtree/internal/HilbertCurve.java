@@ -0,0 +1,58 @@
+package com.github.davidmoten.rtree.internal;
+
+import com.github.davidmoten.guavamini.Preconditions;
+
+/**
+ * Position of a grid cell along a Hilbert curve. Cells that are near each
+ * other along the curve are near each other in the plane, so entries packed
+ * in Hilbert order form leaves with small, square-ish bounding rectangles.
+ */
+public final class HilbertCurve {
+
+    /**
+     * The largest supported order (the grid is 2^order cells wide).
+     */
+    public static final int MAX_ORDER = 31;
+
+    private HilbertCurve() {
+        // prevent instantiation
+    }
+
+    /**
+     * Returns the distance along the Hilbert curve of order {@code order} of
+     * the cell {@code (x, y)}. The result is in the range
+     * {@code [0, 4^order)}.
+     * 
+     * @param order
+     *            order of the curve, 1 to {@link #MAX_ORDER}
+     * @param x
+     *            column of the cell in the range {@code [0, 2^order)}
+     * @param y
+     *            row of the cell in the range {@code [0, 2^order)}
+     * @return distance along the curve
+     */
+    public static long index(int order, long x, long y) {
+        Preconditions.checkArgument(order >= 1 && order <= MAX_ORDER,
+                "order must be between 1 and " + MAX_ORDER);
+        long n = 1L << order;
+        long d = 0;
+        for (long s = n >>> 1; s > 0; s >>>= 1) {
+            int rx = (x & s) != 0 ? 1 : 0;
+            int ry = (y & s) != 0 ? 1 : 0;
+            d += s * s * ((3 * rx) ^ ry);
+            // rotate the quadrant so the curve inside it has the base
+            // orientation
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = s - 1 - (x & (s - 1));
+                    y = s - 1 - (y & (s - 1));
+                }
+                long t = x;
+                x = y;
+                y = t;
+            }
+        }
+        return d;
+    }
+
+}
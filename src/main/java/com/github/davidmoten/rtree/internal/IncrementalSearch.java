@@ -0,0 +1,24 @@
+package com.github.davidmoten.rtree.internal;
+
+import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.geometry.Geometry;
+
+/**
+ * A search that produces its results one at a time, doing only the work
+ * needed to confirm each result before returning it.
+ *
+ * @param <T>
+ *            value type
+ * @param <S>
+ *            geometry type
+ */
+public interface IncrementalSearch<T, S extends Geometry> {
+
+    /**
+     * Returns the next result or null if there are no more.
+     *
+     * @return next result or null if complete
+     */
+    Entry<T, S> next();
+
+}
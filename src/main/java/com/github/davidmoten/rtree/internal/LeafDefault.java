@@ -6,11 +6,11 @@ import com.github.davidmoten.rtree.Context;
 import com.github.davidmoten.rtree.Entry;
 import com.github.davidmoten.rtree.Leaf;
 import com.github.davidmoten.rtree.Node;
+import com.github.davidmoten.rtree.SearchPredicate;
 import com.github.davidmoten.rtree.geometry.Geometry;
 import com.github.davidmoten.rtree.geometry.Rectangle;
 
 import rx.Subscriber;
-import rx.functions.Func1;
 
 public final class LeafDefault<T, S extends Geometry> implements Leaf<T, S> {
 
@@ -35,9 +35,9 @@ public final class LeafDefault<T, S extends Geometry> implements Leaf<T, S> {
     }
 
     @Override
-    public void searchWithoutBackpressure(Func1<? super Geometry, Boolean> condition,
+    public void searchWithoutBackpressure(SearchPredicate<? super S> predicate,
             Subscriber<? super Entry<T, S>> subscriber) {
-        LeafHelper.search(condition, subscriber, this);
+        LeafHelper.search(predicate, subscriber, this);
     }
 
     @Override
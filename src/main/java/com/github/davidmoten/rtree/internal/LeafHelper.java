@@ -11,11 +11,13 @@ import com.github.davidmoten.rtree.Context;
 import com.github.davidmoten.rtree.Entry;
 import com.github.davidmoten.rtree.Leaf;
 import com.github.davidmoten.rtree.Node;
+import com.github.davidmoten.rtree.SearchPredicate;
 import com.github.davidmoten.rtree.geometry.Geometry;
 import com.github.davidmoten.rtree.geometry.ListPair;
+import com.github.davidmoten.rtree.geometry.Rectangle;
 
 import rx.Subscriber;
-import rx.functions.Func1;
+import rx.functions.Action1;
 
 public final class LeafHelper {
 
@@ -70,10 +72,26 @@ public final class LeafHelper {
         return list;
     }
 
-    public static <T, S extends Geometry> void search(Func1<? super Geometry, Boolean> condition,
+    /**
+     * Passes each entry of the leaf whose geometry satisfies {@code predicate}
+     * to {@code action}. The minimum bounding rectangle of the leaf is not
+     * checked.
+     */
+    public static <T, S extends Geometry> void search(SearchPredicate<? super S> predicate,
+            Action1<? super Entry<T, S>> action, Leaf<T, S> leaf) {
+        int count = leaf.count();
+        for (int i = 0; i < count; i++) {
+            Entry<T, S> entry = leaf.entry(i);
+            if (predicate.testEntry(entry.geometry()))
+                action.call(entry);
+        }
+    }
+
+    public static <T, S extends Geometry> void search(SearchPredicate<? super S> predicate,
             Subscriber<? super Entry<T, S>> subscriber, Leaf<T, S> leaf) {
 
-        if (!condition.call(leaf.geometry().mbr())) {
+        Rectangle mbr = leaf.geometry().mbr();
+        if (!predicate.testNode(mbr.x1(), mbr.y1(), mbr.x2(), mbr.y2())) {
             return;
         }
 
@@ -82,7 +100,7 @@ public final class LeafHelper {
             if (subscriber.isUnsubscribed()) {
                 return;
             } else {
-                if (condition.call(entry.geometry()))
+                if (predicate.testEntry(entry.geometry()))
                     subscriber.onNext(entry);
             }
         }
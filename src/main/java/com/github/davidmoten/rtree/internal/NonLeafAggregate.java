@@ -0,0 +1,86 @@
+package com.github.davidmoten.rtree.internal;
+
+import java.util.List;
+
+import com.github.davidmoten.guavamini.Preconditions;
+import com.github.davidmoten.rtree.Context;
+import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.HasEntryCount;
+import com.github.davidmoten.rtree.Node;
+import com.github.davidmoten.rtree.NonLeaf;
+import com.github.davidmoten.rtree.SearchPredicate;
+import com.github.davidmoten.rtree.geometry.Geometry;
+import com.github.davidmoten.rtree.geometry.Rectangle;
+
+import rx.Subscriber;
+
+/**
+ * A {@link NonLeaf} that also holds the number of entries in its subtree. As
+ * nodes are immutable the count is computed once from the children when the
+ * node is created (on add, delete and bulk loading).
+ */
+public final class NonLeafAggregate<T, S extends Geometry> implements NonLeaf<T, S>, HasEntryCount {
+
+    private final List<? extends Node<T, S>> children;
+    private final Rectangle mbr;
+    private final Context<T, S> context;
+    private final int entryCount;
+
+    public NonLeafAggregate(List<? extends Node<T, S>> children, Context<T, S> context) {
+        Preconditions.checkArgument(!children.isEmpty());
+        this.context = context;
+        this.children = children;
+        this.mbr = Util.mbr(children);
+        int count = 0;
+        for (Node<T, S> child : children)
+            count += Util.entryCount(child);
+        this.entryCount = count;
+    }
+
+    @Override
+    public Geometry geometry() {
+        return mbr;
+    }
+
+    @Override
+    public int entryCount() {
+        return entryCount;
+    }
+
+    @Override
+    public void searchWithoutBackpressure(SearchPredicate<? super S> predicate,
+            Subscriber<? super Entry<T, S>> subscriber) {
+        NonLeafHelper.search(predicate, subscriber, this);
+    }
+
+    @Override
+    public int count() {
+        return children.size();
+    }
+
+    @Override
+    public List<Node<T, S>> add(Entry<? extends T, ? extends S> entry) {
+        return NonLeafHelper.add(entry, this);
+    }
+
+    @Override
+    public NodeAndEntries<T, S> delete(Entry<? extends T, ? extends S> entry, boolean all) {
+        return NonLeafHelper.delete(entry, all, this);
+    }
+
+    @Override
+    public Context<T, S> context() {
+        return context;
+    }
+
+    @Override
+    public Node<T, S> child(int i) {
+        return children.get(i);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public List<Node<T, S>> children() {
+        return (List<Node<T, S>>) children;
+    }
+}
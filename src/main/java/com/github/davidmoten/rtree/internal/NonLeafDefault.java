@@ -7,11 +7,11 @@ import com.github.davidmoten.rtree.Context;
 import com.github.davidmoten.rtree.Entry;
 import com.github.davidmoten.rtree.Node;
 import com.github.davidmoten.rtree.NonLeaf;
+import com.github.davidmoten.rtree.SearchPredicate;
 import com.github.davidmoten.rtree.geometry.Geometry;
 import com.github.davidmoten.rtree.geometry.Rectangle;
 
 import rx.Subscriber;
-import rx.functions.Func1;
 
 public final class NonLeafDefault<T, S extends Geometry> implements NonLeaf<T, S> {
 
@@ -32,9 +32,9 @@ public final class NonLeafDefault<T, S extends Geometry> implements NonLeaf<T, S
     }
 
     @Override
-    public void searchWithoutBackpressure(Func1<? super Geometry, Boolean> criterion,
+    public void searchWithoutBackpressure(SearchPredicate<? super S> predicate,
             Subscriber<? super Entry<T, S>> subscriber) {
-        NonLeafHelper.search(criterion, subscriber, this);
+        NonLeafHelper.search(predicate, subscriber, this);
     }
 
     @Override
@@ -9,13 +9,16 @@ import java.util.List;
 import com.github.davidmoten.guavamini.Optional;
 import com.github.davidmoten.rtree.Context;
 import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.Leaf;
 import com.github.davidmoten.rtree.Node;
 import com.github.davidmoten.rtree.NonLeaf;
+import com.github.davidmoten.rtree.SearchPredicate;
 import com.github.davidmoten.rtree.geometry.Geometry;
 import com.github.davidmoten.rtree.geometry.ListPair;
+import com.github.davidmoten.rtree.geometry.Rectangle;
 
 import rx.Subscriber;
-import rx.functions.Func1;
+import rx.functions.Action1;
 
 public final class NonLeafHelper {
 
@@ -23,9 +26,31 @@ public final class NonLeafHelper {
         // prevent instantiation
     }
 
-    public static <T, S extends Geometry> void search(Func1<? super Geometry, Boolean> criterion,
+    /**
+     * Passes each entry below {@code node} whose geometry satisfies
+     * {@code predicate} to {@code action}, skipping nodes whose minimum
+     * bounding rectangle fails {@link SearchPredicate#testNode}. Nothing is
+     * allocated per node (by this method).
+     */
+    public static <T, S extends Geometry> void search(SearchPredicate<? super S> predicate,
+            Action1<? super Entry<T, S>> action, Node<T, S> node) {
+        Rectangle mbr = node.geometry().mbr();
+        if (!predicate.testNode(mbr.x1(), mbr.y1(), mbr.x2(), mbr.y2()))
+            return;
+        if (node instanceof Leaf)
+            LeafHelper.search(predicate, action, (Leaf<T, S>) node);
+        else {
+            NonLeaf<T, S> nonLeaf = (NonLeaf<T, S>) node;
+            int numChildren = nonLeaf.count();
+            for (int i = 0; i < numChildren; i++)
+                search(predicate, action, nonLeaf.child(i));
+        }
+    }
+
+    public static <T, S extends Geometry> void search(SearchPredicate<? super S> predicate,
             Subscriber<? super Entry<T, S>> subscriber, NonLeaf<T, S> node) {
-        if (!criterion.call(node.geometry().mbr()))
+        Rectangle mbr = node.geometry().mbr();
+        if (!predicate.testNode(mbr.x1(), mbr.y1(), mbr.x2(), mbr.y2()))
             return;
 
         int numChildren = node.count();
@@ -34,7 +59,7 @@ public final class NonLeafHelper {
                 return;
             } else {
                 Node<T, S> child = node.child(i);
-                child.searchWithoutBackpressure(criterion, subscriber);
+                child.searchWithoutBackpressure(predicate, subscriber);
             }
         }
     }
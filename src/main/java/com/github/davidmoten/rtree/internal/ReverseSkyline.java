@@ -0,0 +1,120 @@
+package com.github.davidmoten.rtree.internal;
+
+import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.Leaf;
+import com.github.davidmoten.rtree.Node;
+import com.github.davidmoten.rtree.NonLeaf;
+import com.github.davidmoten.rtree.geometry.Geometries;
+import com.github.davidmoten.rtree.geometry.Geometry;
+import com.github.davidmoten.rtree.geometry.Point;
+import com.github.davidmoten.rtree.geometry.Rectangle;
+
+/**
+ * Reverse skyline of a query point q (Dellis and Seeger 2007): the entries p
+ * for which q is on the dynamic skyline of p, that is no other entry is at
+ * least as near to p as q in both x and y and strictly nearer in one.
+ *
+ * <p>
+ * Every member of the reverse skyline is on the dynamic skyline of q among the
+ * entries in the same quadrant around q (an entry of the same quadrant nearer
+ * to q in both dimensions would also be nearer to p than q, unless it is at q). So the candidates
+ * are produced by a constrained dynamic BBS per quadrant and each candidate is
+ * confirmed by checking that the window centred on it reaching out to q holds
+ * no entry that dominates q relative to it. The window check stops at the
+ * first such entry.
+ *
+ * <p>
+ * Intended for trees of points. For other geometries the candidates are found
+ * using the point of each rectangle nearest to q but the window check uses
+ * the lower-left corner.
+ *
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @param <T>
+ *            value type
+ * @param <S>
+ *            geometry type
+ */
+public final class ReverseSkyline<T, S extends Geometry> implements IncrementalSearch<T, S> {
+
+    private final Node<T, S> root;
+    private final Point query;
+    private final Rectangle[] quadrants;
+    private int quadrant;
+    private BranchAndBoundSkyline<T, S> candidates;
+
+    public ReverseSkyline(Node<T, S> root, Point query) {
+        this.root = root;
+        this.query = query;
+        double x = query.x();
+        double y = query.y();
+        double below = Double.NEGATIVE_INFINITY;
+        double above = Double.POSITIVE_INFINITY;
+        // entries at q are always members and must not prune the other
+        // quadrants (they are not nearer to anything than q is), the rest of
+        // the plane is split into half-open quadrants so that an entry belongs
+        // to exactly one
+        this.quadrants = new Rectangle[] { //
+                Geometries.rectangle(x, y, x, y), //
+                Geometries.rectangle(x, Math.nextUp(y), above, above), //
+                Geometries.rectangle(below, y, Math.nextDown(x), above), //
+                Geometries.rectangle(below, below, x, Math.nextDown(y)), //
+                Geometries.rectangle(Math.nextUp(x), below, above, y) };
+    }
+
+    @Override
+    public Entry<T, S> next() {
+        while (true) {
+            if (candidates == null) {
+                if (quadrant == quadrants.length)
+                    return null;
+                candidates = BranchAndBoundSkyline.dynamic(root, quadrants[quadrant++], query);
+            }
+            Entry<T, S> candidate = candidates.next();
+            if (candidate == null)
+                candidates = null;
+            else if (!isQueryDominated(root, candidate, new boolean[1]))
+                return candidate;
+        }
+    }
+
+    /**
+     * Returns true if an entry other than {@code candidate} is at least as
+     * near to the candidate as the query in both dimensions and strictly nearer
+     * in one. {@code skipped[0]} records whether the candidate itself (or one
+     * entry equal to it) has been passed over already.
+     */
+    private boolean isQueryDominated(Node<T, S> node, Entry<T, S> candidate, boolean[] skipped) {
+        Rectangle c = candidate.geometry().mbr();
+        double dx = Math.abs(query.x() - c.x1());
+        double dy = Math.abs(query.y() - c.y1());
+        Rectangle r = node.geometry().mbr();
+        if (r.x2() < c.x1() - dx || r.x1() > c.x1() + dx || r.y2() < c.y1() - dy
+                || r.y1() > c.y1() + dy)
+            return false;
+        if (node instanceof NonLeaf) {
+            NonLeaf<T, S> nonLeaf = (NonLeaf<T, S>) node;
+            for (int i = 0; i < nonLeaf.count(); i++)
+                if (isQueryDominated(nonLeaf.child(i), candidate, skipped))
+                    return true;
+            return false;
+        } else {
+            Leaf<T, S> leaf = (Leaf<T, S>) node;
+            for (int i = 0; i < leaf.count(); i++) {
+                Entry<T, S> e = leaf.entry(i);
+                if (!skipped[0] && e.equals(candidate)) {
+                    skipped[0] = true;
+                    continue;
+                }
+                Rectangle g = e.geometry().mbr();
+                double ex = Math.abs(g.x1() - c.x1());
+                double ey = Math.abs(g.y1() - c.y1());
+                if (ex <= dx && ey <= dy && (ex < dx || ey < dy))
+                    return true;
+            }
+            return false;
+        }
+    }
+
+}
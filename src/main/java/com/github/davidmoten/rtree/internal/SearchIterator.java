@@ -0,0 +1,104 @@
+package com.github.davidmoten.rtree.internal;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.Leaf;
+import com.github.davidmoten.rtree.Node;
+import com.github.davidmoten.rtree.NonLeaf;
+import com.github.davidmoten.rtree.SearchPredicate;
+import com.github.davidmoten.rtree.geometry.Geometry;
+import com.github.davidmoten.rtree.geometry.Rectangle;
+
+/**
+ * Iterates the entries matching a {@link SearchPredicate}, depth first in the
+ * same order as
+ * {@link NonLeafHelper#search(SearchPredicate, rx.functions.Action1, Node)}.
+ * The path from the root to the current node is held in arrays that grow
+ * with the depth of the tree (and are allocated once per iterator), so nothing
+ * is allocated per node visited.
+ *
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @param <T>
+ *            value type
+ * @param <S>
+ *            geometry type
+ */
+public final class SearchIterator<T, S extends Geometry> implements Iterator<Entry<T, S>> {
+
+    private final SearchPredicate<? super S> predicate;
+    private Object[] nodes = new Object[8];
+    private int[] positions = new int[8];
+    private int depth;
+    private Entry<T, S> next;
+
+    public SearchIterator(Node<T, S> root, SearchPredicate<? super S> predicate) {
+        this.predicate = predicate;
+        if (test(root))
+            push(root);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null)
+            next = computeNext();
+        return next != null;
+    }
+
+    @Override
+    public Entry<T, S> next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        Entry<T, S> result = next;
+        next = null;
+        return result;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Entry<T, S> computeNext() {
+        while (depth > 0) {
+            Node<T, S> node = (Node<T, S>) nodes[depth - 1];
+            int position = positions[depth - 1];
+            if (position == node.count()) {
+                depth--;
+                nodes[depth] = null;
+            } else if (node instanceof Leaf) {
+                positions[depth - 1] = position + 1;
+                Entry<T, S> entry = ((Leaf<T, S>) node).entry(position);
+                if (predicate.testEntry(entry.geometry()))
+                    return entry;
+            } else {
+                positions[depth - 1] = position + 1;
+                Node<T, S> child = ((NonLeaf<T, S>) node).child(position);
+                if (test(child))
+                    push(child);
+            }
+        }
+        return null;
+    }
+
+    private boolean test(Node<T, S> node) {
+        Rectangle mbr = node.geometry().mbr();
+        return predicate.testNode(mbr.x1(), mbr.y1(), mbr.x2(), mbr.y2());
+    }
+
+    private void push(Node<T, S> node) {
+        if (depth == nodes.length) {
+            nodes = Arrays.copyOf(nodes, depth * 2);
+            positions = Arrays.copyOf(positions, depth * 2);
+        }
+        nodes[depth] = node;
+        positions[depth] = 0;
+        depth++;
+    }
+
+}
@@ -0,0 +1,172 @@
+package com.github.davidmoten.rtree.internal;
+
+import java.util.Arrays;
+
+import com.github.davidmoten.guavamini.Preconditions;
+
+/**
+ * A set of points (minimising both x and y) held in ascending x order in
+ * primitive arrays, used to decide whether a point is dominated by at least k
+ * members. With each member is kept the k-th smallest y of the members up to
+ * and including it in x order. A binary search for the last member with x not
+ * greater than the point's x finds the k-th smallest y of all members with x
+ * not greater than the point's x: if it is less than the point's y the point
+ * is dominated by k members and if it is greater it is not. When it is equal
+ * the members are counted because members at the same location as the point
+ * do not dominate it.
+ *
+ * <p>
+ * Queries are {@code O(log(size))} apart from that tie. Adding a member is
+ * {@code O(size log(k))} to update the k-th smallest y values of the members
+ * after it.
+ *
+ * <p>
+ * This class is not thread-safe.
+ */
+public final class SortedSkyband {
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    private final int k;
+    private double[] xs;
+    private double[] ys;
+    // kth[i] is the k-th smallest of ys[0..i] or positive infinity if i < k - 1
+    private double[] kth;
+    private int size;
+    // max-heap of the k smallest ys seen when recalculating kth
+    private double[] smallest = new double[0];
+
+    public SortedSkyband(int k) {
+        this(k, DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public SortedSkyband(int k, int initialCapacity) {
+        Preconditions.checkArgument(k >= 1, "k must be at least 1");
+        this.k = k;
+        int capacity = Math.max(1, initialCapacity);
+        xs = new double[capacity];
+        ys = new double[capacity];
+        kth = new double[capacity];
+    }
+
+    /**
+     * Returns true if and only if at least k members dominate the point
+     * {@code (x, y)}.
+     *
+     * @param x
+     *            x coordinate
+     * @param y
+     *            y coordinate
+     * @return true if dominated by k or more members
+     */
+    public boolean isDominatedByK(double x, double y) {
+        int i = floor(x);
+        if (i < 0 || kth[i] > y)
+            return false;
+        else if (kth[i] < y)
+            return true;
+        else {
+            int count = 0;
+            for (int j = 0; j <= i; j++) {
+                if (SortedSkyline.dominates(xs[j], ys[j], x, y) && ++count == k)
+                    return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Adds a member located at {@code (x, y)}.
+     *
+     * @param x
+     *            x coordinate
+     * @param y
+     *            y coordinate
+     */
+    public void add(double x, double y) {
+        if (size == xs.length) {
+            int capacity = xs.length << 1;
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+            kth = Arrays.copyOf(kth, capacity);
+        }
+        int index = floor(x) + 1;
+        int moved = size - index;
+        if (moved > 0) {
+            System.arraycopy(xs, index, xs, index + 1, moved);
+            System.arraycopy(ys, index, ys, index + 1, moved);
+        }
+        xs[index] = x;
+        ys[index] = y;
+        size++;
+        updateKth(index);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void updateKth(int from) {
+        int needed = Math.min(k, size);
+        if (smallest.length < needed)
+            smallest = Arrays.copyOf(smallest, Math.min(k, Math.max(needed, smallest.length << 1)));
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            double y = ys[i];
+            if (n < k) {
+                siftUp(n, y);
+                n++;
+            } else if (y < smallest[0])
+                siftDown(n, y);
+            if (i >= from)
+                kth[i] = n == k ? smallest[0] : Double.POSITIVE_INFINITY;
+        }
+    }
+
+    private void siftUp(int index, double y) {
+        int i = index;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (smallest[parent] >= y)
+                break;
+            smallest[i] = smallest[parent];
+            i = parent;
+        }
+        smallest[i] = y;
+    }
+
+    // replaces the largest of the n values in the heap with y
+    private void siftDown(int n, double y) {
+        int i = 0;
+        int half = n >>> 1;
+        while (i < half) {
+            int child = (i << 1) + 1;
+            int right = child + 1;
+            if (right < n && smallest[right] > smallest[child])
+                child = right;
+            if (smallest[child] <= y)
+                break;
+            smallest[i] = smallest[child];
+            i = child;
+        }
+        smallest[i] = y;
+    }
+
+    /**
+     * Returns the index of the last member with x less than or equal to
+     * {@code x} or -1 if there is none.
+     */
+    private int floor(double x) {
+        int lo = 0;
+        int hi = size - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (xs[mid] <= x)
+                lo = mid + 1;
+            else
+                hi = mid - 1;
+        }
+        return hi;
+    }
+
+}
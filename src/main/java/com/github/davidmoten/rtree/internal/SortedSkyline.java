@@ -0,0 +1,220 @@
+package com.github.davidmoten.rtree.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.geometry.Geometry;
+
+/**
+ * A skyline (minimising both x and y) held in ascending x order in primitive
+ * arrays. Because no member of a skyline dominates another, ascending x implies
+ * descending y, so whether a point is dominated by any member can be decided by
+ * a binary search for the member with the largest x not greater than the
+ * point's x.
+ *
+ * <p>
+ * A point p dominates q if {@code p.x <= q.x && p.y <= q.y} and p and q are not
+ * at the same location. As a consequence duplicate locations may all be
+ * members of a skyline.
+ *
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @param <T>
+ *            value type
+ * @param <S>
+ *            geometry type
+ */
+public final class SortedSkyline<T, S extends Geometry> {
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    private double[] xs;
+    private double[] ys;
+    private Object[] entries;
+    private int size;
+
+    public SortedSkyline() {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public SortedSkyline(int initialCapacity) {
+        int capacity = Math.max(1, initialCapacity);
+        xs = new double[capacity];
+        ys = new double[capacity];
+        entries = new Object[capacity];
+    }
+
+    /**
+     * Returns true if and only if {@code (x1, y1)} dominates {@code (x2, y2)}.
+     *
+     * @param x1
+     *            x of the dominating candidate
+     * @param y1
+     *            y of the dominating candidate
+     * @param x2
+     *            x of the dominated candidate
+     * @param y2
+     *            y of the dominated candidate
+     * @return true if the first point dominates the second
+     */
+    public static boolean dominates(double x1, double y1, double x2, double y2) {
+        return x1 <= x2 && y1 <= y2 && (x1 != x2 || y1 != y2);
+    }
+
+    /**
+     * Returns true if and only if a member of this skyline dominates the point
+     * {@code (x, y)}. Runs in {@code O(log(size))}.
+     *
+     * @param x
+     *            x coordinate
+     * @param y
+     *            y coordinate
+     * @return true if dominated by a member
+     */
+    public boolean isDominated(double x, double y) {
+        int i = floor(x);
+        return i >= 0 && dominates(xs[i], ys[i], x, y);
+    }
+
+    /**
+     * Adds an entry located at {@code (x, y)} to the skyline. The caller is
+     * responsible for ensuring that the location is not dominated by a member
+     * and that it does not dominate a member.
+     *
+     * @param entry
+     *            the entry
+     * @param x
+     *            x coordinate of the entry
+     * @param y
+     *            y coordinate of the entry
+     */
+    public void add(Entry<T, S> entry, double x, double y) {
+        if (size == xs.length) {
+            int capacity = xs.length << 1;
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+            entries = Arrays.copyOf(entries, capacity);
+        }
+        int index = floor(x) + 1;
+        int moved = size - index;
+        if (moved > 0) {
+            System.arraycopy(xs, index, xs, index + 1, moved);
+            System.arraycopy(ys, index, ys, index + 1, moved);
+            System.arraycopy(entries, index, entries, index + 1, moved);
+        }
+        xs[index] = x;
+        ys[index] = y;
+        entries[index] = entry;
+        size++;
+    }
+
+    /**
+     * Returns the skyline of the union of the members of {@code a} and
+     * {@code b} in a single linear pass over both. Neither argument is
+     * modified.
+     *
+     * @param a
+     *            a skyline
+     * @param b
+     *            another skyline
+     * @param <T>
+     *            value type
+     * @param <S>
+     *            geometry type
+     * @return a new skyline of the union of a and b
+     */
+    public static <T, S extends Geometry> SortedSkyline<T, S> merge(SortedSkyline<T, S> a,
+            SortedSkyline<T, S> b) {
+        SortedSkyline<T, S> result = new SortedSkyline<T, S>(a.size + b.size);
+        // members are visited in ascending x (then y) order so a member is
+        // dominated if and only if it is dominated by the first member visited
+        // with the lowest y so far
+        double minY = Double.POSITIVE_INFINITY;
+        double minYx = Double.POSITIVE_INFINITY;
+        int i = 0;
+        int j = 0;
+        while (i < a.size || j < b.size) {
+            SortedSkyline<T, S> source;
+            int k;
+            if (j == b.size || i < a.size && (a.xs[i] < b.xs[j] || a.xs[i] == b.xs[j] && a.ys[i] <= b.ys[j])) {
+                source = a;
+                k = i++;
+            } else {
+                source = b;
+                k = j++;
+            }
+            double x = source.xs[k];
+            double y = source.ys[k];
+            if (y < minY) {
+                minY = y;
+                minYx = x;
+                result.append(source.entries[k], x, y);
+            } else if (y == minY && x == minYx) {
+                // duplicate location
+                result.append(source.entries[k], x, y);
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public double x(int i) {
+        return xs[i];
+    }
+
+    public double y(int i) {
+        return ys[i];
+    }
+
+    @SuppressWarnings("unchecked")
+    public Entry<T, S> entry(int i) {
+        return (Entry<T, S>) entries[i];
+    }
+
+    /**
+     * Returns a new list of the members of the skyline in ascending x order.
+     *
+     * @return the skyline entries in ascending x order
+     */
+    public List<Entry<T, S>> entries() {
+        List<Entry<T, S>> list = new ArrayList<Entry<T, S>>(size);
+        for (int i = 0; i < size; i++)
+            list.add(entry(i));
+        return list;
+    }
+
+    private void append(Object entry, double x, double y) {
+        xs[size] = x;
+        ys[size] = y;
+        entries[size] = entry;
+        size++;
+    }
+
+    /**
+     * Returns the index of the last member with x less than or equal to
+     * {@code x} or -1 if there is none.
+     */
+    private int floor(double x) {
+        int lo = 0;
+        int hi = size - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (xs[mid] <= x)
+                lo = mid + 1;
+            else
+                hi = mid - 1;
+        }
+        return hi;
+    }
+
+}
@@ -5,6 +5,10 @@ import java.util.Collection;
 import java.util.List;
 
 import com.github.davidmoten.guavamini.Preconditions;
+import com.github.davidmoten.rtree.HasEntryCount;
+import com.github.davidmoten.rtree.Leaf;
+import com.github.davidmoten.rtree.Node;
+import com.github.davidmoten.rtree.NonLeaf;
 import com.github.davidmoten.rtree.geometry.Geometries;
 import com.github.davidmoten.rtree.geometry.HasGeometry;
 import com.github.davidmoten.rtree.geometry.Rectangle;
@@ -68,6 +72,29 @@ public final class Util {
         }
     }
 
+    /**
+     * Returns the number of entries in the subtree of {@code node}. Constant
+     * time for leaves and for nodes that implement {@link HasEntryCount},
+     * otherwise the subtree is walked.
+     * 
+     * @param node
+     *            root of the subtree
+     * @return number of entries in the subtree
+     */
+    public static int entryCount(Node<?, ?> node) {
+        if (node instanceof Leaf)
+            return node.count();
+        else if (node instanceof HasEntryCount)
+            return ((HasEntryCount) node).entryCount();
+        else {
+            NonLeaf<?, ?> nonLeaf = (NonLeaf<?, ?>) node;
+            int count = 0;
+            for (int i = 0; i < nonLeaf.count(); i++)
+                count += entryCount(nonLeaf.child(i));
+            return count;
+        }
+    }
+
     public static <T> List<T> add(List<T> list, T element) {
         final ArrayList<T> result = new ArrayList<T>(list.size() + 2);
         result.addAll(list);
@@ -0,0 +1,229 @@
+package com.github.davidmoten.rtree.internal.util;
+
+import java.util.Arrays;
+
+import com.github.davidmoten.guavamini.Preconditions;
+
+/**
+ * A binary min-heap of values ordered by a primitive {@code double} key. Keys
+ * and values are held in parallel arrays so that adding and removing does not
+ * allocate (apart from amortized growth of the backing arrays) and comparisons
+ * are primitive {@link Double#compare(double, double)} rather than calls to a
+ * {@code Comparator}.
+ *
+ * <p>
+ * A heap may be created with a number of tie-break keys in which case values
+ * are ordered by the key and then by each tie-break key in turn (the keys
+ * compared lexicographically).
+ *
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @param <T>
+ *            value type
+ */
+public final class DoubleHeap<T> {
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 64;
+
+    // number of keys per value (1 + number of tie-break keys)
+    private final int stride;
+    private double[] keys;
+    private Object[] values;
+    private int size;
+    // keys of the value being added (those of the last value are sifted from
+    // where they are when polling)
+    private final double[] adding;
+
+    public DoubleHeap() {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public DoubleHeap(int initialCapacity) {
+        this(initialCapacity, 0);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param initialCapacity
+     *            initial number of values that can be held without growing
+     * @param tieBreakKeys
+     *            number of keys compared after the first key when first keys
+     *            are equal
+     */
+    public DoubleHeap(int initialCapacity, int tieBreakKeys) {
+        Preconditions.checkArgument(initialCapacity > 0, "initialCapacity must be > 0");
+        Preconditions.checkArgument(tieBreakKeys >= 0, "tieBreakKeys cannot be negative");
+        this.stride = 1 + tieBreakKeys;
+        this.keys = new double[initialCapacity * stride];
+        this.values = new Object[initialCapacity];
+        this.adding = new double[stride];
+    }
+
+    /**
+     * Adds {@code value} to the heap with priority {@code key} (lowest key is
+     * polled first). The heap must have no tie-break keys.
+     *
+     * @param key
+     *            priority of the value
+     * @param value
+     *            value to add, must be non-null
+     */
+    public void add(double key, T value) {
+        Preconditions.checkArgument(stride == 1, "heap has tie-break keys");
+        adding[0] = key;
+        add(value);
+    }
+
+    /**
+     * Adds {@code value} to the heap with priority {@code key} and tie-break
+     * keys {@code tieBreak1} and {@code tieBreak2}. The heap must have two
+     * tie-break keys.
+     *
+     * @param key
+     *            priority of the value
+     * @param tieBreak1
+     *            compared when keys are equal
+     * @param tieBreak2
+     *            compared when keys and first tie-break keys are equal
+     * @param value
+     *            value to add, must be non-null
+     */
+    public void add(double key, double tieBreak1, double tieBreak2, T value) {
+        Preconditions.checkArgument(stride == 3, "heap does not have two tie-break keys");
+        adding[0] = key;
+        adding[1] = tieBreak1;
+        adding[2] = tieBreak2;
+        add(value);
+    }
+
+    /**
+     * Adds {@code value} to the heap with priority {@code key} and tie-break
+     * keys {@code tieBreak}, which must have one element for each tie-break key
+     * of the heap.
+     *
+     * @param key
+     *            priority of the value
+     * @param tieBreak
+     *            compared in order when keys are equal
+     * @param value
+     *            value to add, must be non-null
+     */
+    public void add(double key, double[] tieBreak, T value) {
+        Preconditions.checkArgument(tieBreak.length == stride - 1,
+                "number of tie-break keys does not match the heap");
+        adding[0] = key;
+        System.arraycopy(tieBreak, 0, adding, 1, stride - 1);
+        add(value);
+    }
+
+    private void add(T value) {
+        if (size == values.length) {
+            int capacity = values.length + (values.length >> 1) + 1;
+            keys = Arrays.copyOf(keys, capacity * stride);
+            values = Arrays.copyOf(values, capacity);
+        }
+        siftUp(size, value);
+        size++;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the lowest key in the heap. The heap must not be empty.
+     *
+     * @return lowest key
+     */
+    public double peekKey() {
+        return keys[0];
+    }
+
+    /**
+     * Returns the value with the lowest key or null if the heap is empty.
+     *
+     * @return value with the lowest key
+     */
+    @SuppressWarnings("unchecked")
+    public T peek() {
+        return (T) values[0];
+    }
+
+    /**
+     * Removes and returns the value with the lowest key or returns null if the
+     * heap is empty.
+     *
+     * @return value with the lowest key
+     */
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        if (size == 0)
+            return null;
+        T result = (T) values[0];
+        size--;
+        Object lastValue = values[size];
+        values[size] = null;
+        if (size > 0)
+            // the keys of the last value stay at index size while sifting
+            // because only indexes below size are written
+            siftDown(0, lastValue);
+        return result;
+    }
+
+    public void clear() {
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+    }
+
+    private void siftUp(int index, Object value) {
+        int k = index;
+        while (k > 0) {
+            int parent = (k - 1) >>> 1;
+            if (compare(adding, 0, parent * stride) >= 0)
+                break;
+            move(parent, k);
+            k = parent;
+        }
+        System.arraycopy(adding, 0, keys, k * stride, stride);
+        values[k] = value;
+    }
+
+    private void siftDown(int index, Object value) {
+        int from = size * stride;
+        int k = index;
+        int half = size >>> 1;
+        while (k < half) {
+            int child = (k << 1) + 1;
+            int right = child + 1;
+            if (right < size && compare(keys, right * stride, child * stride) < 0)
+                child = right;
+            if (compare(keys, from, child * stride) <= 0)
+                break;
+            move(child, k);
+            k = child;
+        }
+        System.arraycopy(keys, from, keys, k * stride, stride);
+        values[k] = value;
+    }
+
+    private int compare(double[] a, int aOffset, int offset) {
+        for (int i = 0; i < stride; i++) {
+            int c = Double.compare(a[aOffset + i], keys[offset + i]);
+            if (c != 0)
+                return c;
+        }
+        return 0;
+    }
+
+    private void move(int from, int to) {
+        System.arraycopy(keys, from * stride, keys, to * stride, stride);
+        values[to] = values[from];
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.github.davidmoten.rtree.internal.util;
+
+import java.util.Arrays;
+
+import com.github.davidmoten.guavamini.Preconditions;
+
+/**
+ * A binary min-heap of {@code int} values ordered by a primitive
+ * {@code double} key. The same as {@link DoubleHeap} but for values that are
+ * indexes into arrays, so that they need not be boxed.
+ *
+ * <p>
+ * This class is not thread-safe.
+ */
+public final class DoubleIntHeap {
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 64;
+
+    private double[] keys;
+    private int[] values;
+    private int size;
+
+    public DoubleIntHeap() {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public DoubleIntHeap(int initialCapacity) {
+        Preconditions.checkArgument(initialCapacity > 0, "initialCapacity must be > 0");
+        this.keys = new double[initialCapacity];
+        this.values = new int[initialCapacity];
+    }
+
+    /**
+     * Adds {@code value} to the heap with priority {@code key} (lowest key is
+     * polled first).
+     *
+     * @param key
+     *            priority of the value
+     * @param value
+     *            value to add
+     */
+    public void add(double key, int value) {
+        if (size == keys.length) {
+            int capacity = keys.length + (keys.length >> 1) + 1;
+            keys = Arrays.copyOf(keys, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        siftUp(size, key, value);
+        size++;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the lowest key in the heap. The heap must not be empty.
+     *
+     * @return lowest key
+     */
+    public double peekKey() {
+        return keys[0];
+    }
+
+    /**
+     * Removes and returns the value with the lowest key. The heap must not be
+     * empty.
+     *
+     * @return value with the lowest key
+     */
+    public int poll() {
+        int result = values[0];
+        size--;
+        if (size > 0)
+            siftDown(0, keys[size], values[size]);
+        return result;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    private void siftUp(int index, double key, int value) {
+        int k = index;
+        while (k > 0) {
+            int parent = (k - 1) >>> 1;
+            if (Double.compare(key, keys[parent]) >= 0)
+                break;
+            keys[k] = keys[parent];
+            values[k] = values[parent];
+            k = parent;
+        }
+        keys[k] = key;
+        values[k] = value;
+    }
+
+    private void siftDown(int index, double key, int value) {
+        int k = index;
+        int half = size >>> 1;
+        while (k < half) {
+            int child = (k << 1) + 1;
+            int right = child + 1;
+            if (right < size && Double.compare(keys[right], keys[child]) < 0)
+                child = right;
+            if (Double.compare(key, keys[child]) <= 0)
+                break;
+            keys[k] = keys[child];
+            values[k] = values[child];
+            k = child;
+        }
+        keys[k] = key;
+        values[k] = value;
+    }
+
+}
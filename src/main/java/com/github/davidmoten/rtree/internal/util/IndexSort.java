@@ -0,0 +1,209 @@
+package com.github.davidmoten.rtree.internal.util;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Sorts an array of indexes by a primitive {@code double} key per index so
+ * that large point sets can be ordered without boxing or creating an object
+ * per point. Ties are broken by the index itself so the result is the same as
+ * a stable sort of the indexes in ascending order.
+ */
+public final class IndexSort {
+
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    // ranges smaller than this are sorted on one thread
+    private static final int PARALLEL_THRESHOLD = 8192;
+
+    private IndexSort() {
+        // prevent instantiation
+    }
+
+    /**
+     * Returns the indexes {@code 0} to {@code n - 1}.
+     *
+     * @param n
+     *            number of indexes
+     * @return identity permutation
+     */
+    public static int[] identity(int n) {
+        int[] index = new int[n];
+        for (int i = 0; i < n; i++)
+            index[i] = i;
+        return index;
+    }
+
+    /**
+     * Sorts {@code index[from]} to {@code index[to - 1]} into ascending order
+     * of {@code keys[index[i]]} (and then of {@code index[i]}). Keys are
+     * compared with {@link Double#compare(double, double)}.
+     *
+     * @param keys
+     *            key of each index
+     * @param index
+     *            indexes to sort in place
+     * @param from
+     *            start (inclusive)
+     * @param to
+     *            end (exclusive)
+     */
+    public static void sort(double[] keys, int[] index, int from, int to) {
+        sort(keys, null, index, from, to);
+    }
+
+    /**
+     * Sorts {@code index[from]} to {@code index[to - 1]} into ascending order
+     * of {@code keys[index[i]]}, then of {@code thenKeys[index[i]]} and then of
+     * {@code index[i]}. This is the order a stable sort by {@code keys} leaves
+     * indexes in that were previously sorted by {@code thenKeys} with a stable
+     * sort.
+     *
+     * @param keys
+     *            key of each index
+     * @param thenKeys
+     *            key of each index used to break ties, may be null
+     * @param index
+     *            indexes to sort in place
+     * @param from
+     *            start (inclusive)
+     * @param to
+     *            end (exclusive)
+     */
+    public static void sort(double[] keys, double[] thenKeys, int[] index, int from, int to) {
+        while (to - from > INSERTION_SORT_THRESHOLD) {
+            int mid = (from + to) >>> 1;
+            int pivot = median(keys, thenKeys, index[from], index[mid], index[to - 1]);
+            // all indexes are distinct so no element compares equal to the
+            // pivot apart from the pivot itself
+            int i = from;
+            int j = to - 1;
+            while (i <= j) {
+                while (less(keys, thenKeys, index[i], pivot))
+                    i++;
+                while (less(keys, thenKeys, pivot, index[j]))
+                    j--;
+                if (i <= j) {
+                    int t = index[i];
+                    index[i] = index[j];
+                    index[j] = t;
+                    i++;
+                    j--;
+                }
+            }
+            // recurse into the smaller part to bound the stack depth
+            if (j - from < to - i) {
+                sort(keys, thenKeys, index, from, j + 1);
+                from = i;
+            } else {
+                sort(keys, thenKeys, index, i, to);
+                to = j + 1;
+            }
+        }
+        insertionSort(keys, thenKeys, index, from, to);
+    }
+
+    /**
+     * Sorts all of {@code index} as {@link #sort(double[], double[], int[], int, int)}
+     * does, using {@code pool} to sort parts concurrently and then merge them.
+     * The order is the same as the order of a sort on a single thread.
+     *
+     * @param keys
+     *            key of each index
+     * @param thenKeys
+     *            key of each index used to break ties, may be null
+     * @param index
+     *            indexes to sort in place
+     * @param pool
+     *            the pool to sort on
+     */
+    public static void sort(double[] keys, double[] thenKeys, int[] index, ForkJoinPool pool) {
+        if (index.length < PARALLEL_THRESHOLD)
+            sort(keys, thenKeys, index, 0, index.length);
+        else
+            pool.invoke(new MergeSort(keys, thenKeys, index, new int[index.length], 0,
+                    index.length));
+    }
+
+    private static final class MergeSort extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final double[] keys;
+        private final double[] thenKeys;
+        private final int[] index;
+        private final int[] buffer;
+        private final int from;
+        private final int to;
+
+        MergeSort(double[] keys, double[] thenKeys, int[] index, int[] buffer, int from, int to) {
+            this.keys = keys;
+            this.thenKeys = thenKeys;
+            this.index = index;
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from < PARALLEL_THRESHOLD) {
+                sort(keys, thenKeys, index, from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new MergeSort(keys, thenKeys, index, buffer, from, mid),
+                    new MergeSort(keys, thenKeys, index, buffer, mid, to));
+            // merge the sorted halves, the left half is copied out of the way
+            System.arraycopy(index, from, buffer, from, mid - from);
+            int i = from;
+            int j = mid;
+            int k = from;
+            while (i < mid && j < to) {
+                if (less(keys, thenKeys, index[j], buffer[i]))
+                    index[k++] = index[j++];
+                else
+                    index[k++] = buffer[i++];
+            }
+            while (i < mid)
+                index[k++] = buffer[i++];
+        }
+    }
+
+    private static void insertionSort(double[] keys, double[] thenKeys, int[] index, int from,
+            int to) {
+        for (int i = from + 1; i < to; i++) {
+            int v = index[i];
+            int j = i - 1;
+            while (j >= from && less(keys, thenKeys, v, index[j])) {
+                index[j + 1] = index[j];
+                j--;
+            }
+            index[j + 1] = v;
+        }
+    }
+
+    private static int median(double[] keys, double[] thenKeys, int a, int b, int c) {
+        if (less(keys, thenKeys, a, b)) {
+            if (less(keys, thenKeys, b, c))
+                return b;
+            else if (less(keys, thenKeys, a, c))
+                return c;
+            else
+                return a;
+        } else if (less(keys, thenKeys, a, c))
+            return a;
+        else if (less(keys, thenKeys, b, c))
+            return c;
+        else
+            return b;
+    }
+
+    private static boolean less(double[] keys, double[] thenKeys, int a, int b) {
+        int c = Double.compare(keys[a], keys[b]);
+        if (c == 0 && thenKeys != null)
+            c = Double.compare(thenKeys[a], thenKeys[b]);
+        return c < 0 || c == 0 && a < b;
+    }
+
+}
@@ -0,0 +1,135 @@
+package com.github.davidmoten.rtree.multi;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.github.davidmoten.guavamini.Optional;
+import com.github.davidmoten.guavamini.Preconditions;
+import com.github.davidmoten.rtree.internal.util.ObjectsHelper;
+
+/**
+ * An immutable axis-aligned box in any number of dimensions.
+ */
+public final class Box {
+
+    private final double[] mins;
+    private final double[] maxes;
+
+    private Box(double[] mins, double[] maxes) {
+        this.mins = mins;
+        this.maxes = maxes;
+    }
+
+    /**
+     * Returns the box with the given lower and upper corners (the arrays are
+     * copied).
+     * 
+     * @param mins
+     *            lower bound in each dimension
+     * @param maxes
+     *            upper bound in each dimension
+     * @return box
+     */
+    public static Box create(double[] mins, double[] maxes) {
+        Preconditions.checkArgument(mins.length > 0, "at least one dimension is required");
+        Preconditions.checkArgument(mins.length == maxes.length,
+                "mins and maxes must have the same number of dimensions");
+        for (int i = 0; i < mins.length; i++)
+            Preconditions.checkArgument(mins[i] <= maxes[i], "mins must not be greater than maxes");
+        return new Box(mins.clone(), maxes.clone());
+    }
+
+    static Box of(Point p) {
+        return new Box(p.values(), p.values());
+    }
+
+    /**
+     * Returns the minimum bounding box of the given boxes.
+     */
+    static Box mbr(List<Box> boxes) {
+        int d = boxes.get(0).dimensions();
+        double[] mins = new double[d];
+        double[] maxes = new double[d];
+        Arrays.fill(mins, Double.POSITIVE_INFINITY);
+        Arrays.fill(maxes, Double.NEGATIVE_INFINITY);
+        for (Box b : boxes) {
+            for (int i = 0; i < d; i++) {
+                mins[i] = Math.min(mins[i], b.mins[i]);
+                maxes[i] = Math.max(maxes[i], b.maxes[i]);
+            }
+        }
+        return new Box(mins, maxes);
+    }
+
+    public int dimensions() {
+        return mins.length;
+    }
+
+    public double min(int dimension) {
+        return mins[dimension];
+    }
+
+    public double max(int dimension) {
+        return maxes[dimension];
+    }
+
+    public double volume() {
+        double v = 1;
+        for (int i = 0; i < mins.length; i++)
+            v *= maxes[i] - mins[i];
+        return v;
+    }
+
+    /**
+     * Returns the sum of the edge lengths, used to break ties between boxes
+     * of zero volume.
+     */
+    public double margin() {
+        double m = 0;
+        for (int i = 0; i < mins.length; i++)
+            m += maxes[i] - mins[i];
+        return m;
+    }
+
+    public Box add(Box b) {
+        double[] mins2 = new double[mins.length];
+        double[] maxes2 = new double[mins.length];
+        for (int i = 0; i < mins.length; i++) {
+            mins2[i] = Math.min(mins[i], b.mins[i]);
+            maxes2[i] = Math.max(maxes[i], b.maxes[i]);
+        }
+        return new Box(mins2, maxes2);
+    }
+
+    public boolean intersects(Box b) {
+        for (int i = 0; i < mins.length; i++)
+            if (b.maxes[i] < mins[i] || b.mins[i] > maxes[i])
+                return false;
+        return true;
+    }
+
+    public boolean contains(Point p) {
+        for (int i = 0; i < mins.length; i++)
+            if (p.value(i) < mins[i] || p.value(i) > maxes[i])
+                return false;
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(mins) + Arrays.hashCode(maxes);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        Optional<Box> other = ObjectsHelper.asClass(obj, Box.class);
+        return other.isPresent() && Arrays.equals(mins, other.get().mins)
+                && Arrays.equals(maxes, other.get().maxes);
+    }
+
+    @Override
+    public String toString() {
+        return "Box [mins=" + Arrays.toString(mins) + ", maxes=" + Arrays.toString(maxes) + "]";
+    }
+
+}
@@ -0,0 +1,151 @@
+package com.github.davidmoten.rtree.multi;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.github.davidmoten.rtree.internal.util.IndexSort;
+
+/**
+ * Grouping of boxes into nodes: the quadratic split of Guttman for an
+ * overflowing node and Sort-Tile-Recursive (STR) for bulk loading, both
+ * generalised to any number of dimensions. Groups are returned as indexes
+ * into the given arrays so the same code serves entries and nodes.
+ */
+final class BoxGroups {
+
+    private BoxGroups() {
+        // prevent instantiation
+    }
+
+    /**
+     * Splits the boxes into two groups of at least {@code minChildren} each
+     * using the quadratic split of Guttman (1984).
+     * 
+     * @param boxes
+     *            boxes to split
+     * @param minChildren
+     *            minimum size of each group
+     * @return the indexes of the two groups
+     */
+    static int[][] quadraticSplit(Box[] boxes, int minChildren) {
+        int n = boxes.length;
+        // pick the pair of seeds that would waste the most space together
+        int seed1 = 0;
+        int seed2 = 1;
+        double worstVolume = Double.NEGATIVE_INFINITY;
+        double worstMargin = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                Box b = boxes[i].add(boxes[j]);
+                double volume = b.volume() - boxes[i].volume() - boxes[j].volume();
+                double margin = b.margin();
+                if (volume > worstVolume || volume == worstVolume && margin > worstMargin) {
+                    worstVolume = volume;
+                    worstMargin = margin;
+                    seed1 = i;
+                    seed2 = j;
+                }
+            }
+        }
+        int[] group1 = new int[n];
+        int[] group2 = new int[n];
+        int size1 = 0;
+        int size2 = 0;
+        group1[size1++] = seed1;
+        group2[size2++] = seed2;
+        Box mbr1 = boxes[seed1];
+        Box mbr2 = boxes[seed2];
+        boolean[] assigned = new boolean[n];
+        assigned[seed1] = true;
+        assigned[seed2] = true;
+        int remaining = n - 2;
+        while (remaining > 0) {
+            int index = -1;
+            boolean toFirst;
+            if (size1 + remaining == minChildren || size2 + remaining == minChildren) {
+                // the short group must take everything left
+                toFirst = size1 + remaining == minChildren;
+                for (int i = 0; i < n; i++)
+                    if (!assigned[i]) {
+                        index = i;
+                        break;
+                    }
+            } else {
+                // pick the box with the greatest preference for one group
+                double best = Double.NEGATIVE_INFINITY;
+                double d1Best = 0;
+                double d2Best = 0;
+                for (int i = 0; i < n; i++) {
+                    if (!assigned[i]) {
+                        double d1 = mbr1.add(boxes[i]).volume() - mbr1.volume();
+                        double d2 = mbr2.add(boxes[i]).volume() - mbr2.volume();
+                        double preference = Math.abs(d1 - d2);
+                        if (preference > best) {
+                            best = preference;
+                            index = i;
+                            d1Best = d1;
+                            d2Best = d2;
+                        }
+                    }
+                }
+                if (d1Best != d2Best)
+                    toFirst = d1Best < d2Best;
+                else if (mbr1.volume() != mbr2.volume())
+                    toFirst = mbr1.volume() < mbr2.volume();
+                else
+                    toFirst = size1 <= size2;
+            }
+            assigned[index] = true;
+            remaining--;
+            if (toFirst) {
+                group1[size1++] = index;
+                mbr1 = mbr1.add(boxes[index]);
+            } else {
+                group2[size2++] = index;
+                mbr2 = mbr2.add(boxes[index]);
+            }
+        }
+        return new int[][] { Arrays.copyOf(group1, size1), Arrays.copyOf(group2, size2) };
+    }
+
+    /**
+     * Groups the items with the given centres into groups of at most
+     * {@code capacity} using Sort-Tile-Recursive (Leutenegger, Lopez,
+     * Edgington 1997): sort on the first dimension, cut into slabs, then
+     * recursively sort and cut each slab on the next dimension. Items are
+     * sorted as an {@code int[]} permutation with {@link IndexSort} so that
+     * nothing is boxed.
+     * 
+     * @param centres
+     *            {@code centres[d][i]} is the centre of item i in dimension d
+     * @param capacity
+     *            maximum size of a group
+     * @return the indexes of each group
+     */
+    static List<int[]> sortTileRecursive(double[][] centres, int capacity) {
+        int[] indexes = IndexSort.identity(centres[0].length);
+        List<int[]> groups = new ArrayList<int[]>();
+        tile(centres, indexes, 0, indexes.length, 0, capacity, groups);
+        return groups;
+    }
+
+    private static void tile(double[][] centres, int[] indexes, int from, int to, int dimension,
+            int capacity, List<int[]> groups) {
+        int n = to - from;
+        int dimensions = centres.length;
+        IndexSort.sort(centres[dimension], indexes, from, to);
+        if (dimension == dimensions - 1) {
+            for (int i = from; i < to; i += capacity)
+                groups.add(Arrays.copyOfRange(indexes, i, Math.min(to, i + capacity)));
+        } else {
+            int pages = (n + capacity - 1) / capacity;
+            int slabs = (int) Math.ceil(Math.pow(pages, 1.0 / (dimensions - dimension)));
+            int slabSize = capacity * ((pages + slabs - 1) / slabs);
+            for (int i = from; i < to; i += slabSize)
+                tile(centres, indexes, i, Math.min(to, i + slabSize), dimension + 1, capacity,
+                        groups);
+        }
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.github.davidmoten.rtree.multi;
+
+import com.github.davidmoten.guavamini.Objects;
+import com.github.davidmoten.guavamini.Optional;
+import com.github.davidmoten.guavamini.Preconditions;
+import com.github.davidmoten.rtree.internal.util.ObjectsHelper;
+
+/**
+ * An immutable value located at a {@link Point}.
+ * 
+ * @param <T>
+ *            value type
+ */
+public final class Entry<T> {
+
+    private final T value;
+    private final Point point;
+
+    private Entry(T value, Point point) {
+        Preconditions.checkNotNull(point);
+        this.value = value;
+        this.point = point;
+    }
+
+    public static <T> Entry<T> entry(T value, Point point) {
+        return new Entry<T>(value, point);
+    }
+
+    public T value() {
+        return value;
+    }
+
+    public Point point() {
+        return point;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(value, point);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        @SuppressWarnings("rawtypes")
+        Optional<Entry> other = ObjectsHelper.asClass(obj, Entry.class);
+        return other.isPresent() && Objects.equal(value, other.get().value)
+                && Objects.equal(point, other.get().point);
+    }
+
+    @Override
+    public String toString() {
+        return "Entry [value=" + value + ", point=" + point + "]";
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.github.davidmoten.rtree.multi;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An immutable node of an N-dimensional {@link RTree}, either a {@link Leaf}
+ * of entries or a {@link NonLeaf} of child nodes.
+ */
+abstract class Node<T> {
+
+    private final Box box;
+    private final int size;
+
+    Node(Box box, int size) {
+        this.box = box;
+        this.size = size;
+    }
+
+    /**
+     * Returns the minimum bounding box of the subtree.
+     */
+    final Box box() {
+        return box;
+    }
+
+    /**
+     * Returns the number of entries in the subtree.
+     */
+    final int size() {
+        return size;
+    }
+
+    abstract int count();
+
+    abstract void addEntriesTo(List<Entry<T>> list);
+
+    static final class Leaf<T> extends Node<T> {
+
+        final List<Entry<T>> entries;
+
+        Leaf(List<Entry<T>> entries) {
+            super(mbrOfEntries(entries), entries.size());
+            this.entries = entries;
+        }
+
+        @Override
+        int count() {
+            return entries.size();
+        }
+
+        @Override
+        void addEntriesTo(List<Entry<T>> list) {
+            list.addAll(entries);
+        }
+
+        private static <T> Box mbrOfEntries(List<Entry<T>> entries) {
+            List<Box> boxes = new ArrayList<Box>(entries.size());
+            for (Entry<T> e : entries)
+                boxes.add(Box.of(e.point()));
+            return Box.mbr(boxes);
+        }
+    }
+
+    static final class NonLeaf<T> extends Node<T> {
+
+        final List<Node<T>> children;
+
+        NonLeaf(List<Node<T>> children) {
+            super(mbrOfNodes(children), sizeOf(children));
+            this.children = children;
+        }
+
+        @Override
+        int count() {
+            return children.size();
+        }
+
+        @Override
+        void addEntriesTo(List<Entry<T>> list) {
+            for (Node<T> child : children)
+                child.addEntriesTo(list);
+        }
+
+        private static <T> Box mbrOfNodes(List<Node<T>> children) {
+            List<Box> boxes = new ArrayList<Box>(children.size());
+            for (Node<T> child : children)
+                boxes.add(child.box());
+            return Box.mbr(boxes);
+        }
+
+        private static <T> int sizeOf(List<Node<T>> children) {
+            int size = 0;
+            for (Node<T> child : children)
+                size += child.size();
+            return size;
+        }
+    }
+
+}
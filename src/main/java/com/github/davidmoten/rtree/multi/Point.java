@@ -0,0 +1,67 @@
+package com.github.davidmoten.rtree.multi;
+
+import java.util.Arrays;
+
+import com.github.davidmoten.guavamini.Optional;
+import com.github.davidmoten.guavamini.Preconditions;
+import com.github.davidmoten.rtree.internal.util.ObjectsHelper;
+
+/**
+ * An immutable point in any number of dimensions.
+ */
+public final class Point {
+
+    private final double[] values;
+
+    private Point(double[] values) {
+        this.values = values;
+    }
+
+    /**
+     * Returns a point with the given coordinates (the array is copied).
+     * 
+     * @param values
+     *            coordinates, one per dimension
+     * @return point
+     */
+    public static Point create(double... values) {
+        Preconditions.checkArgument(values.length > 0, "at least one dimension is required");
+        return new Point(values.clone());
+    }
+
+    public int dimensions() {
+        return values.length;
+    }
+
+    public double value(int dimension) {
+        return values[dimension];
+    }
+
+    /**
+     * Returns the coordinates without copying. Must not be modified.
+     */
+    double[] values() {
+        return values;
+    }
+
+    public Box mbr() {
+        return Box.of(this);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        Optional<Point> other = ObjectsHelper.asClass(obj, Point.class);
+        return other.isPresent() && Arrays.equals(values, other.get().values);
+    }
+
+    @Override
+    public String toString() {
+        return "Point " + Arrays.toString(values);
+    }
+
+}
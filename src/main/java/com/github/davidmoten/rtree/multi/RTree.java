@@ -0,0 +1,423 @@
+package com.github.davidmoten.rtree.multi;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import com.github.davidmoten.guavamini.Optional;
+import com.github.davidmoten.guavamini.Preconditions;
+import com.github.davidmoten.rtree.multi.Node.Leaf;
+import com.github.davidmoten.rtree.multi.Node.NonLeaf;
+
+import rx.Observable;
+
+/**
+ * Immutable in-memory R-tree of points in any (fixed) number of dimensions
+ * using the quadratic splitter of Guttman for inserts and Sort-Tile-Recursive
+ * for bulk loading.
+ * 
+ * @param <T>
+ *            the entry value type
+ */
+public final class RTree<T> {
+
+    /**
+     * Default maximum number of children of a node.
+     */
+    public static final int MAX_CHILDREN_DEFAULT = 8;
+
+    private static final double DEFAULT_LOADING_FACTOR = 0.7;
+
+    private final Optional<Node<T>> root;
+    private final int dimensions;
+    private final int minChildren;
+    private final int maxChildren;
+
+    private RTree(Optional<Node<T>> root, int dimensions, int minChildren, int maxChildren) {
+        this.root = root;
+        this.dimensions = dimensions;
+        this.minChildren = minChildren;
+        this.maxChildren = maxChildren;
+    }
+
+    /**
+     * Returns an empty tree of points with the given number of dimensions and
+     * default node sizes.
+     * 
+     * @param dimensions
+     *            number of dimensions of every point in the tree
+     * @param <T>
+     *            value type
+     * @return empty tree
+     */
+    public static <T> RTree<T> create(int dimensions) {
+        return dimensions(dimensions).create();
+    }
+
+    /**
+     * Returns a builder for a tree of points with the given number of
+     * dimensions.
+     * 
+     * @param dimensions
+     *            number of dimensions of every point in the tree
+     * @return builder
+     */
+    public static Builder dimensions(int dimensions) {
+        return new Builder(dimensions);
+    }
+
+    /**
+     * RTree Builder.
+     */
+    public static final class Builder {
+
+        private final int dimensions;
+        private Optional<Integer> minChildren = Optional.absent();
+        private int maxChildren = MAX_CHILDREN_DEFAULT;
+        private double loadingFactor = DEFAULT_LOADING_FACTOR;
+
+        private Builder(int dimensions) {
+            Preconditions.checkArgument(dimensions > 0, "dimensions must be positive");
+            this.dimensions = dimensions;
+        }
+
+        /**
+         * Sets the minimum number of children of a node. Defaults to 40% of
+         * maxChildren.
+         * 
+         * @param minChildren
+         *            minimum number of children of a node
+         * @return builder
+         */
+        public Builder minChildren(int minChildren) {
+            this.minChildren = Optional.of(minChildren);
+            return this;
+        }
+
+        public Builder maxChildren(int maxChildren) {
+            this.maxChildren = maxChildren;
+            return this;
+        }
+
+        /**
+         * The fraction of maxChildren to fill nodes with when bulk loading.
+         * Defaults to 0.7.
+         * 
+         * @param factor
+         *            loading factor
+         * @return builder
+         */
+        public Builder loadingFactor(double factor) {
+            this.loadingFactor = factor;
+            return this;
+        }
+
+        public <T> RTree<T> create() {
+            int min = minChildren.isPresent() ? minChildren.get()
+                    : (int) Math.max(1, Math.round(maxChildren * 0.4));
+            Preconditions.checkArgument(maxChildren >= 3, "maxChildren must be at least 3");
+            Preconditions.checkArgument(min >= 1 && min <= maxChildren / 2,
+                    "minChildren must be between 1 and maxChildren / 2");
+            return new RTree<T>(Optional.<Node<T>>absent(), dimensions, min, maxChildren);
+        }
+
+        /**
+         * Builds a tree containing the given entries packed with
+         * Sort-Tile-Recursive which is much faster than adding the entries one
+         * at a time and gives a better tree.
+         * 
+         * @param entries
+         *            entries to load
+         * @param <T>
+         *            value type
+         * @return packed tree
+         */
+        public <T> RTree<T> create(List<Entry<T>> entries) {
+            RTree<T> tree = create();
+            if (entries.isEmpty())
+                return tree;
+            for (Entry<T> entry : entries)
+                tree.checkDimensions(entry);
+            int capacity = (int) Math.max(Math.max(2, tree.minChildren),
+                    Math.min(maxChildren, Math.round(maxChildren * loadingFactor)));
+            return new RTree<T>(Optional.of(pack(entries, dimensions, capacity)), dimensions,
+                    tree.minChildren, maxChildren);
+        }
+
+        private static <T> Node<T> pack(List<Entry<T>> entries, int dimensions, int capacity) {
+            // centres by dimension so each dimension is sorted on a double[]
+            double[][] centres = new double[dimensions][entries.size()];
+            for (int i = 0; i < entries.size(); i++) {
+                double[] values = entries.get(i).point().values();
+                for (int d = 0; d < dimensions; d++)
+                    centres[d][i] = values[d];
+            }
+            List<Node<T>> nodes = new ArrayList<Node<T>>();
+            for (int[] group : BoxGroups.sortTileRecursive(centres, capacity)) {
+                List<Entry<T>> list = new ArrayList<Entry<T>>(group.length);
+                for (int i : group)
+                    list.add(entries.get(i));
+                nodes.add(new Leaf<T>(list));
+            }
+            while (nodes.size() > 1) {
+                centres = new double[dimensions][nodes.size()];
+                for (int i = 0; i < nodes.size(); i++) {
+                    Box b = nodes.get(i).box();
+                    for (int d = 0; d < dimensions; d++)
+                        centres[d][i] = (b.min(d) + b.max(d)) / 2;
+                }
+                List<Node<T>> parents = new ArrayList<Node<T>>();
+                for (int[] group : BoxGroups.sortTileRecursive(centres, capacity)) {
+                    List<Node<T>> list = new ArrayList<Node<T>>(group.length);
+                    for (int i : group)
+                        list.add(nodes.get(i));
+                    parents.add(new NonLeaf<T>(list));
+                }
+                nodes = parents;
+            }
+            return nodes.get(0);
+        }
+    }
+
+    public int dimensions() {
+        return dimensions;
+    }
+
+    public int size() {
+        return root.isPresent() ? root.get().size() : 0;
+    }
+
+    public boolean isEmpty() {
+        return !root.isPresent();
+    }
+
+    /**
+     * Returns the minimum bounding box of all entries or absent if the tree is
+     * empty.
+     * 
+     * @return minimum bounding box
+     */
+    public Optional<Box> mbr() {
+        return root.isPresent() ? Optional.of(root.get().box()) : Optional.<Box>absent();
+    }
+
+    Optional<Node<T>> root() {
+        return root;
+    }
+
+    public RTree<T> add(T value, Point point) {
+        return add(Entry.entry(value, point));
+    }
+
+    /**
+     * Returns a new tree with the entry added.
+     * 
+     * @param entry
+     *            entry to add
+     * @return new tree with the entry added
+     */
+    public RTree<T> add(Entry<T> entry) {
+        checkDimensions(entry);
+        final Node<T> node;
+        if (!root.isPresent())
+            node = new Leaf<T>(Collections.singletonList(entry));
+        else {
+            List<Node<T>> nodes = add(root.get(), entry);
+            if (nodes.size() == 1)
+                node = nodes.get(0);
+            else
+                node = new NonLeaf<T>(nodes);
+        }
+        return new RTree<T>(Optional.of(node), dimensions, minChildren, maxChildren);
+    }
+
+    public RTree<T> add(Iterable<Entry<T>> entries) {
+        RTree<T> tree = this;
+        for (Entry<T> entry : entries)
+            tree = tree.add(entry);
+        return tree;
+    }
+
+    /**
+     * Returns a new tree with one entry equal to {@code entry} deleted or this
+     * if there is no such entry.
+     * 
+     * @param entry
+     *            entry to delete
+     * @return new tree with the entry deleted
+     */
+    public RTree<T> delete(Entry<T> entry) {
+        if (!root.isPresent())
+            return this;
+        List<Entry<T>> orphans = new ArrayList<Entry<T>>();
+        Optional<Node<T>> node = delete(root.get(), entry, orphans);
+        if (node == null)
+            // not found
+            return this;
+        while (node.isPresent() && node.get() instanceof NonLeaf && node.get().count() == 1)
+            node = Optional.of(((NonLeaf<T>) node.get()).children.get(0));
+        RTree<T> tree = new RTree<T>(node, dimensions, minChildren, maxChildren);
+        return tree.add(orphans);
+    }
+
+    /**
+     * Returns the entries whose points lie within {@code box}. The tree is
+     * traversed lazily so only as much of it is visited as the subscriber
+     * requests.
+     * 
+     * @param box
+     *            box to search
+     * @return entries within the box
+     */
+    public Observable<Entry<T>> search(Box box) {
+        Preconditions.checkArgument(box.dimensions() == dimensions, "wrong number of dimensions");
+        return traverse(box);
+    }
+
+    /**
+     * Returns all entries of the tree. Like {@link #search(Box)} the tree is
+     * only visited as far as the subscriber requests.
+     * 
+     * @return all entries
+     */
+    public Observable<Entry<T>> entries() {
+        return traverse(null);
+    }
+
+    private Observable<Entry<T>> traverse(final Box box) {
+        return Observable.from(new Iterable<Entry<T>>() {
+            @Override
+            public Iterator<Entry<T>> iterator() {
+                return new SearchIterator<T>(root, box);
+            }
+        });
+    }
+
+    /**
+     * Returns the skyline of the entries (minimising every dimension) using
+     * branch and bound skyline (BBS). Each skyline point is emitted as soon as
+     * it is confirmed, in ascending order of the sum of its coordinates, and
+     * only as much of the tree is visited as the subscriber requests.
+     * 
+     * @return skyline entries
+     */
+    public Observable<Entry<T>> skyline() {
+        return Observable.from(new Iterable<Entry<T>>() {
+            @Override
+            public Iterator<Entry<T>> iterator() {
+                return new SkylineIterator<T>(root);
+            }
+        });
+    }
+
+    private void checkDimensions(Entry<T> entry) {
+        Preconditions.checkArgument(entry.point().dimensions() == dimensions,
+                "wrong number of dimensions");
+    }
+
+    private List<Node<T>> add(Node<T> node, Entry<T> entry) {
+        if (node instanceof Leaf) {
+            List<Entry<T>> entries = new ArrayList<Entry<T>>(((Leaf<T>) node).entries);
+            entries.add(entry);
+            if (entries.size() <= maxChildren)
+                return Collections.<Node<T>>singletonList(new Leaf<T>(entries));
+            Box[] boxes = new Box[entries.size()];
+            for (int i = 0; i < boxes.length; i++)
+                boxes[i] = Box.of(entries.get(i).point());
+            List<Node<T>> result = new ArrayList<Node<T>>(2);
+            for (int[] group : BoxGroups.quadraticSplit(boxes, minChildren)) {
+                List<Entry<T>> list = new ArrayList<Entry<T>>(group.length);
+                for (int i : group)
+                    list.add(entries.get(i));
+                result.add(new Leaf<T>(list));
+            }
+            return result;
+        } else {
+            List<Node<T>> children = ((NonLeaf<T>) node).children;
+            int best = chooseSubtree(children, Box.of(entry.point()));
+            List<Node<T>> children2 = new ArrayList<Node<T>>(children.size() + 1);
+            children2.addAll(children.subList(0, best));
+            children2.addAll(add(children.get(best), entry));
+            children2.addAll(children.subList(best + 1, children.size()));
+            if (children2.size() <= maxChildren)
+                return Collections.<Node<T>>singletonList(new NonLeaf<T>(children2));
+            Box[] boxes = new Box[children2.size()];
+            for (int i = 0; i < boxes.length; i++)
+                boxes[i] = children2.get(i).box();
+            List<Node<T>> result = new ArrayList<Node<T>>(2);
+            for (int[] group : BoxGroups.quadraticSplit(boxes, minChildren)) {
+                List<Node<T>> list = new ArrayList<Node<T>>(group.length);
+                for (int i : group)
+                    list.add(children2.get(i));
+                result.add(new NonLeaf<T>(list));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Returns the index of the child needing the least volume enlargement to
+     * include {@code b}, breaking ties by smallest volume.
+     */
+    private static <T> int chooseSubtree(List<Node<T>> children, Box b) {
+        int best = 0;
+        double bestIncrease = Double.POSITIVE_INFINITY;
+        double bestVolume = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < children.size(); i++) {
+            Box box = children.get(i).box();
+            double volume = box.volume();
+            double increase = box.add(b).volume() - volume;
+            if (increase < bestIncrease || increase == bestIncrease && volume < bestVolume) {
+                best = i;
+                bestIncrease = increase;
+                bestVolume = volume;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns null if the entry was not found, otherwise the replacement for
+     * the node (absent if the node underflowed, in which case its remaining
+     * entries are added to {@code orphans} for reinsertion).
+     */
+    private Optional<Node<T>> delete(Node<T> node, Entry<T> entry, List<Entry<T>> orphans) {
+        if (!node.box().contains(entry.point()))
+            return null;
+        if (node instanceof Leaf) {
+            List<Entry<T>> entries = new ArrayList<Entry<T>>(((Leaf<T>) node).entries);
+            if (!entries.remove(entry))
+                return null;
+            if (entries.isEmpty())
+                return Optional.absent();
+            else if (entries.size() < minChildren) {
+                orphans.addAll(entries);
+                return Optional.absent();
+            } else
+                return Optional.<Node<T>>of(new Leaf<T>(entries));
+        } else {
+            List<Node<T>> children = ((NonLeaf<T>) node).children;
+            for (int i = 0; i < children.size(); i++) {
+                Optional<Node<T>> child = delete(children.get(i), entry, orphans);
+                if (child != null) {
+                    List<Node<T>> children2 = new ArrayList<Node<T>>(children);
+                    if (child.isPresent())
+                        children2.set(i, child.get());
+                    else
+                        children2.remove(i);
+                    if (children2.isEmpty())
+                        return Optional.absent();
+                    else if (children2.size() < minChildren) {
+                        for (Node<T> c : children2)
+                            c.addEntriesTo(orphans);
+                        return Optional.absent();
+                    } else
+                        return Optional.<Node<T>>of(new NonLeaf<T>(children2));
+                }
+            }
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.github.davidmoten.rtree.multi;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.github.davidmoten.guavamini.Optional;
+import com.github.davidmoten.rtree.multi.Node.Leaf;
+import com.github.davidmoten.rtree.multi.Node.NonLeaf;
+
+/**
+ * Depth-first traversal of the entries of a tree that lie within a box (or of
+ * all entries if the box is null) using an explicit stack of nodes, so that
+ * the tree is only visited as far as entries are requested. Nodes whose boxes
+ * do not intersect the search box are not pushed.
+ */
+final class SearchIterator<T> implements Iterator<Entry<T>> {
+
+    private final Box box;
+    private final Deque<Node<T>> stack = new ArrayDeque<Node<T>>();
+    private List<Entry<T>> entries;
+    private int index;
+    private Entry<T> next;
+
+    SearchIterator(Optional<Node<T>> root, Box box) {
+        this.box = box;
+        if (root.isPresent())
+            push(root.get());
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null)
+            next = computeNext();
+        return next != null;
+    }
+
+    @Override
+    public Entry<T> next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        Entry<T> result = next;
+        next = null;
+        return result;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    private Entry<T> computeNext() {
+        while (true) {
+            if (entries != null) {
+                while (index < entries.size()) {
+                    Entry<T> entry = entries.get(index++);
+                    if (box == null || box.contains(entry.point()))
+                        return entry;
+                }
+                entries = null;
+            }
+            Node<T> node = stack.poll();
+            if (node == null)
+                return null;
+            else if (node instanceof Leaf) {
+                entries = ((Leaf<T>) node).entries;
+                index = 0;
+            } else {
+                List<Node<T>> children = ((NonLeaf<T>) node).children;
+                // pushed in reverse so that children are visited in order
+                for (int i = children.size() - 1; i >= 0; i--)
+                    push(children.get(i));
+            }
+        }
+    }
+
+    private void push(Node<T> node) {
+        if (box == null || node.box().intersects(box))
+            stack.push(node);
+    }
+
+}
@@ -0,0 +1,151 @@
+package com.github.davidmoten.rtree.multi;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.github.davidmoten.guavamini.Optional;
+import com.github.davidmoten.rtree.internal.util.DoubleHeap;
+import com.github.davidmoten.rtree.multi.Node.Leaf;
+import com.github.davidmoten.rtree.multi.Node.NonLeaf;
+
+/**
+ * Branch and bound skyline (BBS) in any number of dimensions, minimising every
+ * dimension. Nodes and entries are visited in ascending order of the sum of
+ * the coordinates of the lower corner of their bounding box, ties broken by
+ * comparing coordinates dimension by dimension, so that an entry
+ * that is not dominated by the skyline found so far when popped is a skyline
+ * point. Dominated nodes are discarded before being pushed and again when
+ * popped.
+ * 
+ * <p>
+ * Unlike the 2D case the skyline cannot be kept in an order that makes the
+ * dominance test logarithmic so it is a scan of the skyline found so far,
+ * held in one flat array of coordinates.
+ */
+final class SkylineIterator<T> implements Iterator<Entry<T>> {
+
+    private final DoubleHeap<Object> heap;
+    private final List<Entry<T>> skyline = new ArrayList<Entry<T>>();
+    private double[] coordinates = new double[64];
+    private final int dimensions;
+    private Entry<T> next;
+
+    SkylineIterator(Optional<Node<T>> root) {
+        dimensions = root.isPresent() ? root.get().box().dimensions() : 0;
+        // the sums of a point and a point it dominates can round to the same
+        // double so ties are broken by the coordinates in turn
+        heap = new DoubleHeap<Object>(64, dimensions);
+        if (root.isPresent())
+            push(root.get());
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null)
+            next = computeNext();
+        return next != null;
+    }
+
+    @Override
+    public Entry<T> next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        Entry<T> result = next;
+        next = null;
+        return result;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Entry<T> computeNext() {
+        while (!heap.isEmpty()) {
+            Object item = heap.poll();
+            if (item instanceof Entry) {
+                Entry<T> entry = (Entry<T>) item;
+                double[] p = entry.point().values();
+                if (!isDominated(p)) {
+                    add(entry, p);
+                    return entry;
+                }
+            } else if (item instanceof Leaf) {
+                Leaf<T> leaf = (Leaf<T>) item;
+                if (!isDominated(lowerCorner(leaf.box())))
+                    for (Entry<T> entry : leaf.entries)
+                        push(entry);
+            } else {
+                NonLeaf<T> node = (NonLeaf<T>) item;
+                if (!isDominated(lowerCorner(node.box())))
+                    for (Node<T> child : node.children)
+                        push(child);
+            }
+        }
+        return null;
+    }
+
+    private void push(Entry<T> entry) {
+        double[] p = entry.point().values();
+        if (!isDominated(p))
+            heap.add(sum(p), p, entry);
+    }
+
+    private void push(Node<T> node) {
+        double[] p = lowerCorner(node.box());
+        if (!isDominated(p))
+            heap.add(sum(p), p, node);
+    }
+
+    private static double[] lowerCorner(Box b) {
+        double[] p = new double[b.dimensions()];
+        for (int i = 0; i < p.length; i++)
+            p[i] = b.min(i);
+        return p;
+    }
+
+    private static double sum(double[] p) {
+        double s = 0;
+        for (double v : p)
+            s += v;
+        return s;
+    }
+
+    /**
+     * Returns true if a skyline point found so far dominates {@code p}: it is
+     * no greater in every dimension and is not at the same location.
+     */
+    private boolean isDominated(double[] p) {
+        int n = skyline.size() * dimensions;
+        for (int offset = 0; offset < n; offset += dimensions) {
+            boolean dominates = true;
+            boolean equal = true;
+            for (int i = 0; i < dimensions; i++) {
+                double v = coordinates[offset + i];
+                if (v > p[i]) {
+                    dominates = false;
+                    break;
+                } else if (v < p[i])
+                    equal = false;
+            }
+            if (dominates && !equal)
+                return true;
+        }
+        return false;
+    }
+
+    private void add(Entry<T> entry, double[] p) {
+        int offset = skyline.size() * dimensions;
+        if (offset + dimensions > coordinates.length) {
+            double[] c = new double[Math.max(coordinates.length * 2, offset + dimensions)];
+            System.arraycopy(coordinates, 0, c, 0, offset);
+            coordinates = c;
+        }
+        System.arraycopy(p, 0, coordinates, offset, dimensions);
+        skyline.add(entry);
+    }
+
+}
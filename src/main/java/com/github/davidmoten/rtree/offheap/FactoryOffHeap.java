@@ -0,0 +1,64 @@
+package com.github.davidmoten.rtree.offheap;
+
+import java.util.List;
+
+import com.github.davidmoten.guavamini.Preconditions;
+import com.github.davidmoten.rtree.Context;
+import com.github.davidmoten.rtree.Entries;
+import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.Factory;
+import com.github.davidmoten.rtree.Leaf;
+import com.github.davidmoten.rtree.Node;
+import com.github.davidmoten.rtree.NonLeaf;
+import com.github.davidmoten.rtree.geometry.Point;
+import com.github.davidmoten.rtree.internal.FactoryDefault;
+
+/**
+ * Reduces heap use and garbage collection work in comparison to
+ * {@link FactoryDefault} for large trees of points by holding the bounds of
+ * every node and the coordinates of every point in an {@link OffHeapStore}.
+ * Only the node objects themselves and the entry values remain on the heap;
+ * entries and rectangles are created on demand when a node is read.
+ *
+ * <p>
+ * Points read back from a leaf are double precision if any point in the leaf
+ * was double precision, otherwise single precision.
+ *
+ * <p>
+ * Call {@link OffHeapStore#retainOnly(com.github.davidmoten.rtree.RTree...)}
+ * from time to time with the tree versions still in use so that the slots of
+ * discarded nodes can be reused.
+ *
+ * @param <T>
+ *            the object type
+ */
+public final class FactoryOffHeap<T> implements Factory<T, Point> {
+
+    private final OffHeapStore store;
+
+    public FactoryOffHeap(OffHeapStore store) {
+        Preconditions.checkNotNull(store);
+        this.store = store;
+    }
+
+    @Override
+    public Leaf<T, Point> createLeaf(List<Entry<T, Point>> entries, Context<T, Point> context) {
+        return new LeafOffHeap<T>(entries, context, store);
+    }
+
+    @Override
+    public NonLeaf<T, Point> createNonLeaf(List<? extends Node<T, Point>> children,
+            Context<T, Point> context) {
+        return new NonLeafOffHeap<T>(children, context, store);
+    }
+
+    @Override
+    public Entry<T, Point> createEntry(T value, Point geometry) {
+        return Entries.entry(value, geometry);
+    }
+
+    public OffHeapStore store() {
+        return store;
+    }
+
+}
@@ -0,0 +1,133 @@
+package com.github.davidmoten.rtree.offheap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.davidmoten.rtree.Context;
+import com.github.davidmoten.rtree.Entries;
+import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.Leaf;
+import com.github.davidmoten.rtree.Node;
+import com.github.davidmoten.rtree.SearchPredicate;
+import com.github.davidmoten.rtree.geometry.Geometries;
+import com.github.davidmoten.rtree.geometry.Geometry;
+import com.github.davidmoten.rtree.geometry.Point;
+import com.github.davidmoten.rtree.geometry.Rectangle;
+import com.github.davidmoten.rtree.internal.LeafHelper;
+import com.github.davidmoten.rtree.internal.NodeAndEntries;
+import com.github.davidmoten.rtree.internal.Util;
+
+import rx.Subscriber;
+
+final class LeafOffHeap<T> implements Leaf<T, Point>, OffHeapNode {
+
+    private final OffHeapStore store;
+    private final long handle;
+    private final Object[] values;
+    // false if every point is single precision
+    private final boolean doublePrecision;
+    private final Context<T, Point> context;
+
+    LeafOffHeap(List<Entry<T, Point>> entries, Context<T, Point> context, OffHeapStore store) {
+        Rectangle mbr = Util.mbr(entries);
+        int n = entries.size();
+        double[] coordinates = new double[4 + 2 * n];
+        coordinates[0] = mbr.x1();
+        coordinates[1] = mbr.y1();
+        coordinates[2] = mbr.x2();
+        coordinates[3] = mbr.y2();
+        Object[] values = new Object[n];
+        for (int i = 0; i < n; i++) {
+            Entry<T, Point> entry = entries.get(i);
+            values[i] = entry.value();
+            coordinates[4 + 2 * i] = entry.geometry().x();
+            coordinates[5 + 2 * i] = entry.geometry().y();
+        }
+        this.store = store;
+        this.handle = store.allocate(coordinates, coordinates.length);
+        this.values = values;
+        this.doublePrecision = mbr.isDoublePrecision();
+        this.context = context;
+    }
+
+    @Override
+    public OffHeapStore store() {
+        return store;
+    }
+
+    @Override
+    public long handle() {
+        return handle;
+    }
+
+    @Override
+    public List<Node<T, Point>> add(Entry<? extends T, ? extends Point> entry) {
+        return LeafHelper.add(entry, this);
+    }
+
+    @Override
+    public NodeAndEntries<T, Point> delete(Entry<? extends T, ? extends Point> entry,
+            boolean all) {
+        return LeafHelper.delete(entry, all, this);
+    }
+
+    @Override
+    public void searchWithoutBackpressure(SearchPredicate<? super Point> predicate,
+            Subscriber<? super Entry<T, Point>> subscriber) {
+        // test the bounds straight from the store so no Rectangle is created
+        if (!predicate.testNode(store.getDouble(handle, 0), store.getDouble(handle, 1),
+                store.getDouble(handle, 2), store.getDouble(handle, 3)))
+            return;
+        for (int i = 0; i < values.length; i++) {
+            if (subscriber.isUnsubscribed())
+                return;
+            Point point = point(i);
+            if (predicate.testEntry(point))
+                subscriber.onNext(entry(i, point));
+        }
+    }
+
+    @Override
+    public int count() {
+        return values.length;
+    }
+
+    @Override
+    public Context<T, Point> context() {
+        return context;
+    }
+
+    @Override
+    public Geometry geometry() {
+        // create on demand to reduce heap use (though not gc pressure)
+        return store.bounds(handle, doublePrecision);
+    }
+
+    @Override
+    public List<Entry<T, Point>> entries() {
+        List<Entry<T, Point>> list = new ArrayList<Entry<T, Point>>(values.length);
+        for (int i = 0; i < values.length; i++)
+            list.add(entry(i));
+        return list;
+    }
+
+    @Override
+    public Entry<T, Point> entry(int i) {
+        return entry(i, point(i));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Entry<T, Point> entry(int i, Point point) {
+        return Entries.entry((T) values[i], point);
+    }
+
+    private Point point(int i) {
+        double x = store.getDouble(handle, 4 + 2 * i);
+        double y = store.getDouble(handle, 5 + 2 * i);
+        if (doublePrecision)
+            return Geometries.point(x, y);
+        else
+            return Geometries.point((float) x, (float) y);
+    }
+
+}
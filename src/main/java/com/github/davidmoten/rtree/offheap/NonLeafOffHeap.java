@@ -0,0 +1,101 @@
+package com.github.davidmoten.rtree.offheap;
+
+import java.util.List;
+
+import com.github.davidmoten.guavamini.Preconditions;
+import com.github.davidmoten.rtree.Context;
+import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.Node;
+import com.github.davidmoten.rtree.NonLeaf;
+import com.github.davidmoten.rtree.SearchPredicate;
+import com.github.davidmoten.rtree.geometry.Geometry;
+import com.github.davidmoten.rtree.geometry.Point;
+import com.github.davidmoten.rtree.geometry.Rectangle;
+import com.github.davidmoten.rtree.internal.NodeAndEntries;
+import com.github.davidmoten.rtree.internal.NonLeafHelper;
+import com.github.davidmoten.rtree.internal.Util;
+
+import rx.Subscriber;
+
+final class NonLeafOffHeap<T> implements NonLeaf<T, Point>, OffHeapNode {
+
+    private final OffHeapStore store;
+    private final long handle;
+    private final List<? extends Node<T, Point>> children;
+    private final boolean doublePrecision;
+    private final Context<T, Point> context;
+
+    NonLeafOffHeap(List<? extends Node<T, Point>> children, Context<T, Point> context,
+            OffHeapStore store) {
+        Preconditions.checkArgument(!children.isEmpty());
+        Rectangle mbr = Util.mbr(children);
+        this.store = store;
+        this.handle = store.allocate(new double[] { mbr.x1(), mbr.y1(), mbr.x2(), mbr.y2() },
+                4);
+        this.children = children;
+        this.doublePrecision = mbr.isDoublePrecision();
+        this.context = context;
+    }
+
+    @Override
+    public OffHeapStore store() {
+        return store;
+    }
+
+    @Override
+    public long handle() {
+        return handle;
+    }
+
+    @Override
+    public List<Node<T, Point>> add(Entry<? extends T, ? extends Point> entry) {
+        return NonLeafHelper.add(entry, this);
+    }
+
+    @Override
+    public NodeAndEntries<T, Point> delete(Entry<? extends T, ? extends Point> entry,
+            boolean all) {
+        return NonLeafHelper.delete(entry, all, this);
+    }
+
+    @Override
+    public void searchWithoutBackpressure(SearchPredicate<? super Point> predicate,
+            Subscriber<? super Entry<T, Point>> subscriber) {
+        // test the bounds straight from the store so no Rectangle is created
+        if (!predicate.testNode(store.getDouble(handle, 0), store.getDouble(handle, 1),
+                store.getDouble(handle, 2), store.getDouble(handle, 3)))
+            return;
+        for (int i = 0; i < children.size(); i++) {
+            if (subscriber.isUnsubscribed())
+                return;
+            children.get(i).searchWithoutBackpressure(predicate, subscriber);
+        }
+    }
+
+    @Override
+    public int count() {
+        return children.size();
+    }
+
+    @Override
+    public Context<T, Point> context() {
+        return context;
+    }
+
+    @Override
+    public Geometry geometry() {
+        return store.bounds(handle, doublePrecision);
+    }
+
+    @Override
+    public Node<T, Point> child(int i) {
+        return children.get(i);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public List<Node<T, Point>> children() {
+        return (List<Node<T, Point>>) children;
+    }
+
+}
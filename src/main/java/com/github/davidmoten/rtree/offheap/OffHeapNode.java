@@ -0,0 +1,12 @@
+package com.github.davidmoten.rtree.offheap;
+
+/**
+ * A node whose coordinates are held in an {@link OffHeapStore}.
+ */
+interface OffHeapNode {
+
+    OffHeapStore store();
+
+    long handle();
+
+}
@@ -0,0 +1,243 @@
+package com.github.davidmoten.rtree.offheap;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.BitSet;
+
+import com.github.davidmoten.guavamini.Preconditions;
+import com.github.davidmoten.rtree.Node;
+import com.github.davidmoten.rtree.NonLeaf;
+import com.github.davidmoten.rtree.RTree;
+import com.github.davidmoten.rtree.geometry.Geometries;
+import com.github.davidmoten.rtree.geometry.Rectangle;
+
+/**
+ * Holds the coordinates of the nodes created by a {@link FactoryOffHeap} in
+ * slabs of direct {@link ByteBuffer} memory outside the Java heap.
+ *
+ * <p>
+ * A node is stored in a slot holding its bounds and (for a leaf) the
+ * coordinates of its points. Slots are grouped into size classes by the number
+ * of points they can hold (0, 1, 2, 4, 8, ...) and each size class allocates
+ * whole slabs at a time. Because R-trees are immutable and every version of a
+ * tree shares most of its nodes with the previous version, the store cannot
+ * tell by itself when a slot is no longer needed: call
+ * {@link #retainOnly(RTree...)} with the tree versions still in use to return
+ * the slots of every other node to the store for reuse. Direct memory is never
+ * given back to the operating system before the store itself is garbage
+ * collected.
+ *
+ * <p>
+ * Allocation and release are thread-safe.
+ */
+public final class OffHeapStore {
+
+    private static final int DEFAULT_SLAB_BYTES = 1 << 20;
+
+    // minX, minY, maxX, maxY
+    private static final int BOUNDS_BYTES = 4 * 8;
+
+    // x, y
+    private static final int POINT_BYTES = 2 * 8;
+
+    private final int slabBytes;
+    private final SizeClass[] sizeClasses = new SizeClass[32];
+
+    public OffHeapStore() {
+        this(DEFAULT_SLAB_BYTES);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param slabBytes
+     *            the size of each direct buffer allocated (a slab is made larger
+     *            if it is too small for a single slot)
+     */
+    public OffHeapStore(int slabBytes) {
+        Preconditions.checkArgument(slabBytes > 0, "slabBytes must be > 0");
+        this.slabBytes = slabBytes;
+    }
+
+    /**
+     * Stores {@code coordinates} in a free slot and returns its handle.
+     * {@code coordinates} are the bounds followed by the x and y of each
+     * point.
+     */
+    synchronized long allocate(double[] coordinates, int length) {
+        int points = (length - 4) / 2;
+        int index = sizeClassIndex(points);
+        SizeClass sizeClass = sizeClasses[index];
+        if (sizeClass == null) {
+            int capacity = index == 0 ? 0 : 1 << (index - 1);
+            sizeClass = new SizeClass(BOUNDS_BYTES + capacity * POINT_BYTES, slabBytes);
+            sizeClasses[index] = sizeClass;
+        }
+        int slot = sizeClass.allocate();
+        ByteBuffer slab = sizeClass.slab(slot);
+        int offset = sizeClass.offset(slot);
+        for (int i = 0; i < length; i++)
+            slab.putDouble(offset + i * 8, coordinates[i]);
+        return ((long) index << 32) | slot;
+    }
+
+    double getDouble(long handle, int i) {
+        SizeClass sizeClass = sizeClasses[(int) (handle >>> 32)];
+        int slot = (int) handle;
+        return sizeClass.slab(slot).getDouble(sizeClass.offset(slot) + i * 8);
+    }
+
+    Rectangle bounds(long handle, boolean doublePrecision) {
+        double x1 = getDouble(handle, 0);
+        double y1 = getDouble(handle, 1);
+        double x2 = getDouble(handle, 2);
+        double y2 = getDouble(handle, 3);
+        if (doublePrecision)
+            return Geometries.rectangle(x1, y1, x2, y2);
+        else
+            return Geometries.rectangle((float) x1, (float) y1, (float) x2, (float) y2);
+    }
+
+    /**
+     * Releases the slots of all nodes created by factories using this store
+     * except those of the nodes of {@code trees}. The nodes of any other tree
+     * must not be used afterwards.
+     *
+     * @param trees
+     *            the trees whose nodes are to be kept
+     */
+    public void retainOnly(RTree<?, ?>... trees) {
+        retainOnly(Arrays.asList(trees));
+    }
+
+    /**
+     * Releases the slots of all nodes created by factories using this store
+     * except those of the nodes of {@code trees}. The nodes of any other tree
+     * must not be used afterwards.
+     *
+     * @param trees
+     *            the trees whose nodes are to be kept
+     */
+    public synchronized void retainOnly(Iterable<? extends RTree<?, ?>> trees) {
+        BitSet[] marked = new BitSet[sizeClasses.length];
+        for (int i = 0; i < marked.length; i++)
+            marked[i] = new BitSet();
+        for (RTree<?, ?> tree : trees)
+            if (tree.root().isPresent())
+                mark(tree.root().get(), marked);
+        for (int i = 0; i < sizeClasses.length; i++)
+            if (sizeClasses[i] != null)
+                sizeClasses[i].retainOnly(marked[i]);
+    }
+
+    private void mark(Node<?, ?> node, BitSet[] marked) {
+        if (node instanceof OffHeapNode && ((OffHeapNode) node).store() == this) {
+            long handle = ((OffHeapNode) node).handle();
+            BitSet bits = marked[(int) (handle >>> 32)];
+            int slot = (int) handle;
+            if (bits.get(slot))
+                // the subtree is shared with a tree already marked
+                return;
+            bits.set(slot);
+        }
+        if (node instanceof NonLeaf) {
+            NonLeaf<?, ?> nonLeaf = (NonLeaf<?, ?>) node;
+            for (int i = 0; i < nonLeaf.count(); i++)
+                mark(nonLeaf.child(i), marked);
+        }
+    }
+
+    /**
+     * Returns the number of slots in use.
+     *
+     * @return number of slots in use
+     */
+    public synchronized long slotsInUse() {
+        long count = 0;
+        for (SizeClass sizeClass : sizeClasses)
+            if (sizeClass != null)
+                count += sizeClass.allocated.cardinality();
+        return count;
+    }
+
+    /**
+     * Returns the number of bytes of direct memory allocated to slabs.
+     *
+     * @return number of bytes of direct memory allocated
+     */
+    public synchronized long bytesAllocated() {
+        long bytes = 0;
+        for (SizeClass sizeClass : sizeClasses)
+            if (sizeClass != null)
+                bytes += (long) sizeClass.slabs.length * sizeClass.slabSize;
+        return bytes;
+    }
+
+    private static int sizeClassIndex(int points) {
+        if (points == 0)
+            return 0;
+        else
+            // smallest power of two >= points
+            return 33 - Integer.numberOfLeadingZeros(points - 1);
+    }
+
+    private static final class SizeClass {
+
+        private final int slotBytes;
+        private final int slotsPerSlab;
+        private final int slabSize;
+        private final BitSet allocated = new BitSet();
+
+        // replaced rather than modified so that readers need not lock
+        private volatile ByteBuffer[] slabs = new ByteBuffer[0];
+
+        private int[] free = new int[16];
+        private int freeCount;
+        private int slotCount;
+
+        SizeClass(int slotBytes, int slabBytes) {
+            this.slotBytes = slotBytes;
+            this.slotsPerSlab = Math.max(1, slabBytes / slotBytes);
+            this.slabSize = slotsPerSlab * slotBytes;
+        }
+
+        int allocate() {
+            final int slot;
+            if (freeCount > 0)
+                slot = free[--freeCount];
+            else {
+                if (slotCount == slabs.length * slotsPerSlab) {
+                    ByteBuffer[] s = Arrays.copyOf(slabs, slabs.length + 1);
+                    s[slabs.length] = ByteBuffer.allocateDirect(slabSize)
+                            .order(ByteOrder.nativeOrder());
+                    slabs = s;
+                }
+                slot = slotCount++;
+            }
+            allocated.set(slot);
+            return slot;
+        }
+
+        void retainOnly(BitSet marked) {
+            for (int slot = allocated.nextSetBit(0); slot >= 0; slot = allocated
+                    .nextSetBit(slot + 1)) {
+                if (!marked.get(slot)) {
+                    if (freeCount == free.length)
+                        free = Arrays.copyOf(free, freeCount * 2);
+                    free[freeCount++] = slot;
+                }
+            }
+            allocated.and(marked);
+        }
+
+        ByteBuffer slab(int slot) {
+            return slabs[slot / slotsPerSlab];
+        }
+
+        int offset(int slot) {
+            return (slot % slotsPerSlab) * slotBytes;
+        }
+    }
+
+}
@@ -0,0 +1,35 @@
+package com.github.davidmoten.skyline;
+
+import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.RTree;
+import com.github.davidmoten.rtree.geometry.Point;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+final class AutoSkyline implements SkylineAlgorithm {
+
+    static final AutoSkyline INSTANCE = new AutoSkyline();
+
+    // below this the cost of forking exceeds the gain from parallelism
+    private static final int PARALLEL_THRESHOLD = 65536;
+
+    private AutoSkyline() {
+    }
+
+    @Override
+    public <T> List<Entry<T, Point>> skyline(List<Entry<T, Point>> entries) {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        if (entries.size() < PARALLEL_THRESHOLD || pool.getParallelism() == 1) {
+            return SkylineAlgorithm.sortFilter().skyline(entries);
+        } else {
+            return SkylineAlgorithm.divideAndConquer(pool).skyline(entries);
+        }
+    }
+
+    @Override
+    public <T> List<Entry<T, Point>> skyline(RTree<T, Point> tree) {
+        return SkylineAlgorithm.branchAndBound().skyline(tree);
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.github.davidmoten.skyline;
+
+import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.RTree;
+import com.github.davidmoten.rtree.geometry.Point;
+
+import java.util.List;
+
+final class BranchAndBoundSkylineAlgorithm implements SkylineAlgorithm {
+
+    static final BranchAndBoundSkylineAlgorithm INSTANCE = new BranchAndBoundSkylineAlgorithm();
+
+    private BranchAndBoundSkylineAlgorithm() {
+    }
+
+    @Override
+    public <T> List<Entry<T, Point>> skyline(List<Entry<T, Point>> entries) {
+        return skyline(RTree.create(entries));
+    }
+
+    @Override
+    public <T> List<Entry<T, Point>> skyline(RTree<T, Point> tree) {
+        Skyline<T> s = new Skyline<>(tree);
+        s.findSkylinePoints();
+        return s.getSkyLinePoints();
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.github.davidmoten.skyline;
+
+import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.geometry.Point;
+import com.github.davidmoten.rtree.internal.SortedSkyline;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+final class DivideAndConquerSkyline implements SkylineAlgorithm {
+
+    // below this a chunk is not worth splitting further
+    private static final int MIN_CHUNK = 4096;
+
+    // chunks per worker thread so that uneven chunks balance
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final ForkJoinPool pool;
+
+    DivideAndConquerSkyline(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public <T> List<Entry<T, Point>> skyline(List<Entry<T, Point>> entries) {
+        int chunk = Math.max(MIN_CHUNK,
+                entries.size() / (pool.getParallelism() * CHUNKS_PER_THREAD) + 1);
+        return pool.invoke(new Task<>(entries, 0, entries.size(), chunk)).entries();
+    }
+
+    private static final class Task<T> extends RecursiveTask<SortedSkyline<T, Point>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<Entry<T, Point>> entries;
+        private final int from;
+        private final int to;
+        private final int chunk;
+
+        Task(List<Entry<T, Point>> entries, int from, int to, int chunk) {
+            this.entries = entries;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected SortedSkyline<T, Point> compute() {
+            if (to - from <= chunk) {
+                return SortFilterSkyline.skyline(entries, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            Task<T> right = new Task<>(entries, mid, to, chunk);
+            right.fork();
+            SortedSkyline<T, Point> left = new Task<>(entries, from, mid, chunk).compute();
+            return SortedSkyline.merge(left, right.join());
+        }
+    }
+
+}
@@ -18,7 +18,7 @@ public class Main {
         List<Entry<Object, Point>> dataEntries = Preprocess.getDataEntries();
         rTree = rTree.add(dataEntries);
         // Find the skyline points.
-        Skyline skyLine = new Skyline(rTree);
+        Skyline<Object> skyLine = new Skyline<>(rTree);
         skyLine.findSkylinePoints();
         List<Entry<Object, Point>> skylinePoints = skyLine.getSkyLinePoints();
 //        for(Entry<Object, Point> entry: skylinePoints) {
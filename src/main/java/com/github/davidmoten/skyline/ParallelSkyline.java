@@ -0,0 +1,178 @@
+package com.github.davidmoten.skyline;
+
+import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.Node;
+import com.github.davidmoten.rtree.NonLeaf;
+import com.github.davidmoten.rtree.Preference;
+import com.github.davidmoten.rtree.geometry.Point;
+import com.github.davidmoten.rtree.geometry.Rectangle;
+import com.github.davidmoten.rtree.internal.BranchAndBoundSkyline;
+import com.github.davidmoten.rtree.internal.SortedSkyline;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Computes the skyline of an R-tree on a {@link ForkJoinPool}. The tree is
+ * partitioned into subtrees near the root, a BBS search is run on each subtree
+ * as a separate task and the local skylines are combined pairwise with a
+ * linear merge as the tasks are joined.
+ *
+ * The tasks share a best-so-far skyline that each task merges the points it
+ * finds into (with compare-and-set) from time to time. Every task prunes
+ * against the latest shared skyline so a subtree dominated by points found by
+ * another task is never expanded.
+ */
+final class ParallelSkyline<T> {
+
+    // number of partitions per worker thread so that uneven subtrees balance
+    private static final int PARTITIONS_PER_THREAD = 4;
+
+    private static final int MAX_PUBLISH_BATCH = 1024;
+
+    private final AtomicReference<SortedSkyline<T, Point>> shared = new AtomicReference<>(
+            new SortedSkyline<>());
+    private final AtomicLong prunedNodes = new AtomicLong();
+    private final AtomicLong prunedEntries = new AtomicLong();
+    private final List<Node<T, Point>> partitions;
+    private final Rectangle constraint;
+    private final Preference xPreference;
+    private final Preference yPreference;
+
+    ParallelSkyline(Node<T, Point> root, int parallelism, Rectangle constraint, Preference xPreference,
+            Preference yPreference) {
+        this.constraint = constraint;
+        this.xPreference = xPreference;
+        this.yPreference = yPreference;
+        this.partitions = partition(root, parallelism * PARTITIONS_PER_THREAD);
+    }
+
+    SortedSkyline<T, Point> compute(ForkJoinPool pool) {
+        return pool.invoke(new Task(0, partitions.size()));
+    }
+
+    long prunedNodes() {
+        return prunedNodes.get();
+    }
+
+    long prunedEntries() {
+        return prunedEntries.get();
+    }
+
+    /**
+     * Expands the tree a level at a time until there are at least
+     * {@code target} subtrees (or only leaves remain). The subtrees are ordered
+     * by the BBS key of their lower-left corner so that the tasks most likely
+     * to find skyline points early are started first.
+     */
+    private List<Node<T, Point>> partition(Node<T, Point> root, int target) {
+        List<Node<T, Point>> nodes = new ArrayList<>();
+        nodes.add(root);
+        boolean expanded = true;
+        while (nodes.size() < target && expanded) {
+            expanded = false;
+            List<Node<T, Point>> next = new ArrayList<>();
+            for (Node<T, Point> node : nodes) {
+                if (node instanceof NonLeaf) {
+                    NonLeaf<T, Point> nonLeaf = (NonLeaf<T, Point>) node;
+                    for (int i = 0; i < nonLeaf.count(); i++) {
+                        next.add(nonLeaf.child(i));
+                    }
+                    expanded = true;
+                } else {
+                    next.add(node);
+                }
+            }
+            nodes = next;
+        }
+        if (constraint != null) {
+            nodes.removeIf(n -> !constraint.intersects(n.geometry().mbr()));
+            if (nodes.isEmpty()) {
+                // a single task that finds nothing
+                nodes.add(root);
+            }
+        }
+        // only used for its transform to the key space of the search
+        BranchAndBoundSkyline<T, Point> keys = search(root);
+        nodes.sort(Comparator.comparingDouble(
+                n -> keys.x(n.geometry().mbr()) + keys.y(n.geometry().mbr())));
+        return nodes;
+    }
+
+    private SortedSkyline<T, Point> localSkyline(Node<T, Point> node) {
+        BranchAndBoundSkyline<T, Point> bbs = search(node);
+        SortedSkyline<T, Point> seen = shared.get();
+        bbs.pruneWith(seen);
+        // points found since the last publish, BBS never finds a point that
+        // dominates an earlier one so these form a skyline too
+        SortedSkyline<T, Point> unpublished = new SortedSkyline<>();
+        int batch = 1;
+        Entry<T, Point> entry;
+        while ((entry = bbs.next()) != null) {
+            Rectangle r = entry.geometry().mbr();
+            unpublished.add(entry, bbs.x(r), bbs.y(r));
+            // publish in geometrically growing batches so that the first
+            // points are shared quickly but merging stays cheap overall
+            if (unpublished.size() == batch) {
+                publish(unpublished);
+                unpublished = new SortedSkyline<>();
+                batch = Math.min(batch << 1, MAX_PUBLISH_BATCH);
+            }
+            SortedSkyline<T, Point> latest = shared.get();
+            if (latest != seen) {
+                seen = latest;
+                bbs.pruneWith(seen);
+            }
+        }
+        if (!unpublished.isEmpty()) {
+            publish(unpublished);
+        }
+        prunedNodes.addAndGet(bbs.prunedNodes());
+        prunedEntries.addAndGet(bbs.prunedEntries());
+        return bbs.skyline();
+    }
+
+    private BranchAndBoundSkyline<T, Point> search(Node<T, Point> node) {
+        return new BranchAndBoundSkyline<>(node, constraint, xPreference, yPreference);
+    }
+
+    private void publish(SortedSkyline<T, Point> local) {
+        while (true) {
+            SortedSkyline<T, Point> current = shared.get();
+            if (shared.compareAndSet(current, SortedSkyline.merge(current, local))) {
+                return;
+            }
+        }
+    }
+
+    private final class Task extends RecursiveTask<SortedSkyline<T, Point>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        Task(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected SortedSkyline<T, Point> compute() {
+            if (to - from == 1) {
+                return localSkyline(partitions.get(from));
+            }
+            int mid = (from + to) >>> 1;
+            Task right = new Task(mid, to);
+            right.fork();
+            SortedSkyline<T, Point> left = new Task(from, mid).compute();
+            return SortedSkyline.merge(left, right.join());
+        }
+    }
+
+}
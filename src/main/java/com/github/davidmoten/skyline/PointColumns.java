@@ -0,0 +1,245 @@
+package com.github.davidmoten.skyline;
+
+import com.github.davidmoten.guavamini.Preconditions;
+import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.RTree;
+import com.github.davidmoten.rtree.geometry.Point;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Points held as primitive columns, with a compact binary file format for
+ * snapshotting large data sets and reloading them without parsing text.
+ *
+ * The file is little-endian: a header of magic number, version, flags and
+ * point count followed by the x column, the y column and, if present, the
+ * value column. Coordinates are stored as doubles or (to halve the size) as
+ * floats. Values are longs, typically ids into another store.
+ */
+public final class PointColumns {
+
+    // "RTPC"
+    private static final int MAGIC = 0x52545043;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 20;
+
+    private static final int FLAG_FLOAT = 1;
+    private static final int FLAG_VALUES = 2;
+
+    // columns are mapped in pieces no larger than this
+    private static final int MAX_MAPPED_BYTES = 1 << 30;
+
+    private final double[] x;
+    private final double[] y;
+    private final long[] values;
+
+    private PointColumns(double[] x, double[] y, long[] values) {
+        Preconditions.checkArgument(x.length == y.length, "x and y must have the same length");
+        Preconditions.checkArgument(values == null || values.length == x.length,
+                "values must have the same length as x");
+        this.x = x;
+        this.y = y;
+        this.values = values;
+    }
+
+    public static PointColumns of(double[] x, double[] y) {
+        return new PointColumns(x, y, null);
+    }
+
+    public static PointColumns of(double[] x, double[] y, long[] values) {
+        return new PointColumns(x, y, values);
+    }
+
+    /**
+     * Returns the coordinates of the entries (without values).
+     */
+    public static PointColumns from(List<? extends Entry<?, Point>> entries) {
+        double[] x = new double[entries.size()];
+        double[] y = new double[entries.size()];
+        for (int i = 0; i < x.length; i++) {
+            Point p = entries.get(i).geometry();
+            x[i] = p.x();
+            y[i] = p.y();
+        }
+        return of(x, y);
+    }
+
+    public int size() {
+        return x.length;
+    }
+
+    public double[] x() {
+        return x;
+    }
+
+    public double[] y() {
+        return y;
+    }
+
+    public boolean hasValues() {
+        return values != null;
+    }
+
+    /**
+     * Returns the value column or null if there is none.
+     */
+    public long[] values() {
+        return values;
+    }
+
+    public RTree<Long, Point> toRTree() {
+        return RTree.create(x, y, this::value);
+    }
+
+    /**
+     * Bulk loads the points into a tree with STR. The value of an entry is the
+     * value of its point or, without a value column, the index of its point.
+     * No entry is created until the leaves of the tree are built.
+     */
+    public RTree<Long, Point> toRTree(RTree.Builder builder) {
+        return builder.create(x, y, this::value);
+    }
+
+    private Long value(Integer i) {
+        return values == null ? (long) i : values[i];
+    }
+
+
+    /**
+     * Writes the columns to {@code path}, storing coordinates as floats if
+     * {@code singlePrecision} is true.
+     */
+    public void write(Path path, boolean singlePrecision) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer bb = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            bb.putInt(MAGIC);
+            bb.putInt(VERSION);
+            bb.putInt((singlePrecision ? FLAG_FLOAT : 0) | (values != null ? FLAG_VALUES : 0));
+            bb.putLong(x.length);
+            writeColumn(channel, bb, x, singlePrecision);
+            writeColumn(channel, bb, y, singlePrecision);
+            if (values != null) {
+                for (long v : values) {
+                    flushIfFull(channel, bb, Long.BYTES);
+                    bb.putLong(v);
+                }
+            }
+            flush(channel, bb);
+        }
+    }
+
+    /**
+     * Reads columns written by {@link #write(Path, boolean)}.
+     */
+    public static PointColumns read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // keep reading
+            }
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC) {
+                throw new IOException("not a point columns file: " + path);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("unsupported point columns version " + version + ": " + path);
+            }
+            int flags = header.getInt();
+            long count = header.getLong();
+            if (count < 0 || count > Integer.MAX_VALUE) {
+                throw new IOException("invalid point count " + count + ": " + path);
+            }
+            int n = (int) count;
+            boolean singlePrecision = (flags & FLAG_FLOAT) != 0;
+            int coordinateBytes = singlePrecision ? Float.BYTES : Double.BYTES;
+            long expected = HEADER_BYTES + 2L * n * coordinateBytes
+                    + ((flags & FLAG_VALUES) != 0 ? (long) n * Long.BYTES : 0);
+            if (channel.size() < expected) {
+                throw new IOException("truncated point columns file: " + path);
+            }
+            long position = HEADER_BYTES;
+            double[] x = new double[n];
+            double[] y = new double[n];
+            position = readColumn(channel, position, x, singlePrecision);
+            position = readColumn(channel, position, y, singlePrecision);
+            long[] values = null;
+            if ((flags & FLAG_VALUES) != 0) {
+                values = new long[n];
+                int i = 0;
+                while (i < n) {
+                    int length = Math.min(n - i, MAX_MAPPED_BYTES / Long.BYTES);
+                    map(channel, position, (long) length * Long.BYTES).asLongBuffer().get(values, i,
+                            length);
+                    position += (long) length * Long.BYTES;
+                    i += length;
+                }
+            }
+            return new PointColumns(x, y, values);
+        }
+    }
+
+    private static void writeColumn(FileChannel channel, ByteBuffer bb, double[] column,
+            boolean singlePrecision) throws IOException {
+        for (double v : column) {
+            if (singlePrecision) {
+                flushIfFull(channel, bb, Float.BYTES);
+                bb.putFloat((float) v);
+            } else {
+                flushIfFull(channel, bb, Double.BYTES);
+                bb.putDouble(v);
+            }
+        }
+    }
+
+    private static long readColumn(FileChannel channel, long position, double[] column,
+            boolean singlePrecision) throws IOException {
+        int bytes = singlePrecision ? Float.BYTES : Double.BYTES;
+        int i = 0;
+        while (i < column.length) {
+            int length = Math.min(column.length - i, MAX_MAPPED_BYTES / bytes);
+            MappedByteBuffer bb = map(channel, position, (long) length * bytes);
+            if (singlePrecision) {
+                for (int j = 0; j < length; j++) {
+                    column[i + j] = bb.getFloat();
+                }
+            } else {
+                bb.asDoubleBuffer().get(column, i, length);
+            }
+            position += (long) length * bytes;
+            i += length;
+        }
+        return position;
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long position, long size)
+            throws IOException {
+        MappedByteBuffer bb = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        bb.order(ByteOrder.LITTLE_ENDIAN);
+        return bb;
+    }
+
+    private static void flushIfFull(FileChannel channel, ByteBuffer bb, int bytes)
+            throws IOException {
+        if (bb.remaining() < bytes) {
+            flush(channel, bb);
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer bb) throws IOException {
+        bb.flip();
+        while (bb.hasRemaining()) {
+            channel.write(bb);
+        }
+        bb.clear();
+    }
+
+}
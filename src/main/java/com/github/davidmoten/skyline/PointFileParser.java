@@ -0,0 +1,333 @@
+package com.github.davidmoten.skyline;
+
+import com.github.davidmoten.rtree.Entries;
+import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.RTree;
+import com.github.davidmoten.rtree.geometry.Geometries;
+import com.github.davidmoten.rtree.geometry.Point;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Reads a text file of points, one {@code x y} pair per line, by memory
+ * mapping the file in line-aligned chunks that are parsed in parallel. Plain
+ * decimal numbers (with optional sign, fraction and exponent) are parsed
+ * straight from the mapped bytes without creating strings. Any other token is
+ * passed to {@link Double#parseDouble(String)} so that every form it accepts
+ * (such as {@code NaN}, {@code Infinity} or a {@code d} or {@code f} suffix) is
+ * read as it would be line by line. Lines that do not hold exactly two numbers
+ * are skipped.
+ *
+ * The entries are returned in file order, each with a new {@link Object} as
+ * its value.
+ */
+public final class PointFileParser {
+
+    // large enough to amortise mapping, small enough to balance across cores
+    static final int DEFAULT_CHUNK_SIZE = 64 * 1024 * 1024;
+
+    // powers of ten that are exact doubles
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    // largest mantissa that is an exact double
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private PointFileParser() {
+        // prevent instantiation
+    }
+
+    public static List<Entry<Object, Point>> read(Path path) throws IOException {
+        return read(path, ForkJoinPool.commonPool());
+    }
+
+    public static List<Entry<Object, Point>> read(Path path, ForkJoinPool pool) throws IOException {
+        return read(path, pool, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Reads the file and bulk loads the entries into an {@link RTree} with
+     * Sort-Tile-Recursive packing.
+     */
+    public static RTree<Object, Point> load(Path path, ForkJoinPool pool) throws IOException {
+        return RTree.create(read(path, pool));
+    }
+
+    static List<Entry<Object, Point>> read(Path path, ForkJoinPool pool, int chunkSize)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long[] boundaries = boundaries(channel, chunkSize);
+            try {
+                return pool.invoke(new Task(channel, boundaries, 0, boundaries.length - 1));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Returns the offsets that split the file into chunks of roughly
+     * {@code chunkSize} bytes, each ending just after a newline (or at the end
+     * of the file).
+     */
+    private static long[] boundaries(FileChannel channel, int chunkSize) throws IOException {
+        long size = channel.size();
+        List<Long> list = new ArrayList<>();
+        list.add(0L);
+        ByteBuffer bb = ByteBuffer.allocate(4096);
+        long position = 0;
+        while (size - position > chunkSize) {
+            long p = position + chunkSize;
+            // find the end of the line containing p
+            long end = -1;
+            while (end == -1 && p < size) {
+                bb.clear();
+                int n = channel.read(bb, p);
+                for (int i = 0; i < n; i++) {
+                    if (bb.get(i) == '\n') {
+                        end = p + i + 1;
+                        break;
+                    }
+                }
+                p += n;
+            }
+            if (end == -1) {
+                break;
+            }
+            list.add(end);
+            position = end;
+        }
+        if (list.get(list.size() - 1) != size) {
+            list.add(size);
+        }
+        long[] boundaries = new long[list.size()];
+        for (int i = 0; i < boundaries.length; i++) {
+            boundaries[i] = list.get(i);
+        }
+        return boundaries;
+    }
+
+    private static final class Task extends RecursiveTask<List<Entry<Object, Point>>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final long[] boundaries;
+        private final int from;
+        private final int to;
+
+        Task(FileChannel channel, long[] boundaries, int from, int to) {
+            this.channel = channel;
+            this.boundaries = boundaries;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<Entry<Object, Point>> compute() {
+            if (to - from <= 1) {
+                if (to == from) {
+                    return new ArrayList<>();
+                }
+                long start = boundaries[from];
+                try {
+                    MappedByteBuffer bb = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                            boundaries[to] - start);
+                    return parse(bb);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            int mid = (from + to) >>> 1;
+            Task right = new Task(channel, boundaries, mid, to);
+            right.fork();
+            List<Entry<Object, Point>> list = new Task(channel, boundaries, from, mid).compute();
+            list.addAll(right.join());
+            return list;
+        }
+    }
+
+    /**
+     * Parses every line of {@code bb} from its position to its limit.
+     */
+    static List<Entry<Object, Point>> parse(ByteBuffer bb) {
+        List<Entry<Object, Point>> list = new ArrayList<>();
+        Cursor cursor = new Cursor(bb);
+        double[] values = new double[2];
+        while (cursor.position < cursor.limit) {
+            if (parseLine(cursor, values)) {
+                list.add(Entries.entry(new Object(), Geometries.point(values[0], values[1])));
+            }
+        }
+        return list;
+    }
+
+    private static final class Cursor {
+        final ByteBuffer bb;
+        int position;
+        final int limit;
+
+        Cursor(ByteBuffer bb) {
+            this.bb = bb;
+            this.position = bb.position();
+            this.limit = bb.limit();
+        }
+    }
+
+    /**
+     * Parses one line into {@code values} and moves the cursor past the end of
+     * the line. Returns false if the line does not hold exactly two numbers.
+     */
+    private static boolean parseLine(Cursor c, double[] values) {
+        int count = 0;
+        boolean valid = true;
+        while (c.position < c.limit) {
+            byte b = c.bb.get(c.position);
+            if (b == '\n') {
+                c.position++;
+                break;
+            } else if (b == ' ' || b == '\t' || b == '\r') {
+                c.position++;
+            } else if (valid && count < 2) {
+                if (parseNumber(c, values, count)) {
+                    count++;
+                } else {
+                    valid = false;
+                }
+            } else {
+                valid = false;
+                c.position++;
+            }
+        }
+        return valid && count == 2;
+    }
+
+    /**
+     * Parses the number at the cursor into {@code values[index]} and moves the
+     * cursor past it. Returns false if the token is not a number.
+     */
+    private static boolean parseNumber(Cursor c, double[] values, int index) {
+        ByteBuffer bb = c.bb;
+        int start = c.position;
+        int i = start;
+        boolean negative = false;
+        byte b = bb.get(i);
+        if (b == '-' || b == '+') {
+            negative = b == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean exact = true;
+        boolean any = false;
+        while (i < c.limit && isDigit(b = bb.get(i))) {
+            any = true;
+            if (mantissa == 0 && b == '0') {
+                // leading zero
+            } else if (digits < 18) {
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+            } else {
+                exact = false;
+                scale++;
+            }
+            i++;
+        }
+        if (i < c.limit && bb.get(i) == '.') {
+            i++;
+            while (i < c.limit && isDigit(b = bb.get(i))) {
+                any = true;
+                if (mantissa == 0 && b == '0') {
+                    scale--;
+                } else if (digits < 18) {
+                    mantissa = mantissa * 10 + (b - '0');
+                    digits++;
+                    scale--;
+                } else {
+                    exact = false;
+                }
+                i++;
+            }
+        }
+        if (i < c.limit && any && ((b = bb.get(i)) == 'e' || b == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < c.limit && ((b = bb.get(i)) == '-' || b == '+')) {
+                negativeExponent = b == '-';
+                i++;
+            }
+            int exponent = 0;
+            boolean anyExponent = false;
+            while (i < c.limit && isDigit(b = bb.get(i))) {
+                anyExponent = true;
+                if (exponent < 100000)
+                    exponent = exponent * 10 + (b - '0');
+                i++;
+            }
+            if (!anyExponent) {
+                any = false;
+            }
+            scale += negativeExponent ? -exponent : exponent;
+        }
+        c.position = i;
+        if (!any || i < c.limit && !isSeparator(bb.get(i))) {
+            // not a plain decimal (for example NaN, Infinity or 1.5d)
+            skipToken(c);
+            try {
+                values[index] = Double.parseDouble(text(bb, start, c.position));
+                return true;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        if (exact && mantissa < MAX_EXACT_MANTISSA && scale >= -22 && scale <= 22) {
+            // both operands are exact so the single rounding is correct
+            double v = scale < 0 ? mantissa / POWERS_OF_TEN[-scale] : mantissa * POWERS_OF_TEN[scale];
+            values[index] = negative ? -v : v;
+        } else {
+            // rare (long mantissas or large exponents)
+            values[index] = Double.parseDouble(text(bb, start, i));
+        }
+        return true;
+    }
+
+    private static String text(ByteBuffer bb, int start, int end) {
+        char[] chars = new char[end - start];
+        for (int i = start; i < end; i++) {
+            chars[i - start] = (char) bb.get(i);
+        }
+        return new String(chars);
+    }
+
+    private static void skipToken(Cursor c) {
+        while (c.position < c.limit && !isSeparator(c.bb.get(c.position))) {
+            c.position++;
+        }
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean isSeparator(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+}
@@ -2,98 +2,167 @@ package com.github.davidmoten.skyline;
 
 import com.github.davidmoten.rtree.*;
 import com.github.davidmoten.rtree.geometry.Point;
+import com.github.davidmoten.rtree.geometry.Rectangle;
+import com.github.davidmoten.rtree.internal.BranchAndBoundSkyline;
+import com.github.davidmoten.rtree.internal.SortedSkyline;
 
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
-import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
 
 
-public class Skyline {
-    private RTree<Object, Point> rTree;
-    private PriorityQueue<MyNode> pq;
-    private List<Entry<Object, Point>> skyLinePoints;
+public class Skyline<T> {
+    private RTree<T, Point> rTree;
+    private List<Entry<T, Point>> skyLinePoints;
+    private long prunedNodeCount;
+    private long prunedEntryCount;
+    private ForkJoinPool pool;
+    private Rectangle constraint;
+    private Preference xPreference = Preference.MIN;
+    private Preference yPreference = Preference.MIN;
+    private SkylineCache<T> cache;
 
 
-    public Skyline(RTree<Object, Point> rTree) {
+    public Skyline(RTree<T, Point> rTree) {
         this.rTree = rTree;
-        pq = new PriorityQueue<>(new Comparator<MyNode>() {
-            @Override
-            public int compare(MyNode o1, MyNode o2) {
-                return (int) (o1.getManhattanDistance() - o2.getManhattanDistance());
-            }
-        });
         skyLinePoints = new ArrayList<>();
     }
 
 
-    public RTree<Object, Point> getRTree() {
+    /**
+     * Computes the skyline on {@code pool} from now on. Subtrees near the root
+     * are searched concurrently, pruning against a shared best-so-far skyline,
+     * and their skylines are merged as the tasks join.
+     */
+    public Skyline<T> parallel(ForkJoinPool pool) {
+        this.pool = pool;
+        return this;
+    }
+
+
+    /**
+     * Only considers points inside {@code constraint} from now on. Nodes not
+     * intersecting the constraint are never visited.
+     */
+    public Skyline<T> within(Rectangle constraint) {
+        this.constraint = constraint;
+        return this;
+    }
+
+
+    /**
+     * Sets whether smaller or larger values are preferred for x and y (both
+     * default to {@link Preference#MIN}).
+     */
+    public Skyline<T> prefer(Preference xPreference, Preference yPreference) {
+        this.xPreference = xPreference;
+        this.yPreference = yPreference;
+        return this;
+    }
+
+
+    /**
+     * Reuses the skylines of subtrees held in {@code cache} from now on so that
+     * after an update only the replaced nodes of the tree are evaluated. Only
+     * used for the unconstrained skyline with both dimensions minimised.
+     */
+    public Skyline<T> cached(SkylineCache<T> cache) {
+        this.cache = cache;
+        return this;
+    }
+
+
+    public RTree<T, Point> getRTree() {
         return rTree;
     }
 
 
-    public List<Entry<Object, Point>> getSkyLinePoints() {
+    /**
+     * Returns the skyline points sorted by x, ascending if smaller x is
+     * preferred and descending otherwise.
+     */
+    public List<Entry<T, Point>> getSkyLinePoints() {
         return skyLinePoints;
     }
 
 
+    /**
+     * Returns the number of R-tree nodes discarded without being expanded by the
+     * last call to {@link #findSkylinePoints()}. This is 0 when the skyline
+     * came from the cache (see {@link #cached(SkylineCache)}), which merges the
+     * skylines of subtrees rather than discarding them.
+     */
+    public long getPrunedNodeCount() {
+        return prunedNodeCount;
+    }
+
+
+    /**
+     * Returns the number of entries discarded as dominated by the last call to
+     * {@link #findSkylinePoints()}. This is 0 when the skyline came from the
+     * cache (see {@link #cached(SkylineCache)}).
+     */
+    public long getPrunedEntryCount() {
+        return prunedEntryCount;
+    }
+
+
     public static boolean judgeIfDominate(double x1, double y1, double x2, double y2) {
-        return x1 <= x2 && y1 <= y2 && (Math.pow((x1 - x2), 2) + Math.pow((y1 - y2), 2) != 0);
+        return SortedSkyline.dominates(x1, y1, x2, y2);
     }
 
 
     /**
-     * Find out all the skyline points of the Rtree.
+     * Find out all the skyline points of the Rtree using branch and bound
+     * skyline (BBS) over a primitive keyed heap. Dominated nodes and entries
+     * are pruned lazily when pushed or popped rather than by scanning the heap
+     * each time a skyline point is found.
+     *
+     * @see #parallel(ForkJoinPool)
+     * @see #cached(SkylineCache)
      */
     public void findSkylinePoints() {
-        // Add the root node of the RTree to the pq.
-        pq.add(new MyNode(rTree.root().get()));
-        while(pq.peek() != null) {
-            MyNode myNode = pq.poll();
-            if(myNode.isIntermediateNode()) { // If the node is intermediate, expand it and add all its children to pq.
-                Node<Object, Point> node = myNode.getNode();
-                if(node instanceof NonLeaf) {
-                    NonLeaf<Object, Point> nonLeaf = (NonLeaf<Object, Point>) node;
-                    for(int i = 0; i < nonLeaf.count(); i++) {
-                        pq.add(new MyNode(nonLeaf.child(i)));
-                    }
-                }else{
-                    Leaf<Object, Point> leaf = (Leaf<Object, Point>) node;
-                    for(Entry<Object, Point> entry: leaf.entries()) {
-                        pq.add(new MyNode(entry));
-                    }
-                }
-            }else {
-                // Judge whether myNode is dominated by any node in ArrayList
-                boolean dominance = false;
-                for (Entry<Object, Point> skyLinePoint : skyLinePoints) {
-                    if (judgeIfDominate(skyLinePoint.geometry().x(), skyLinePoint.geometry().y(), myNode.getX(), myNode.getY())) {
-                        dominance = true;
-                        break;
-                    }
-                }
-                if(!dominance) {
-                    skyLinePoints.add(myNode.getEntry());
-                    // Remove the node in the pq that is dominated by myNode
-                    pq.removeIf(myNode1 -> judgeIfDominate(myNode.getX(), myNode.getY(), myNode1.getX(), myNode1.getY()));
-                }
-            }
+        prunedNodeCount = 0;
+        prunedEntryCount = 0;
+        if (!rTree.root().isPresent()) {
+            skyLinePoints = new ArrayList<>();
+            return;
+        }
+        if (cache != null && constraint == null && xPreference == Preference.MIN
+                && yPreference == Preference.MIN) {
+            // nothing is pruned so the counts stay at 0
+            skyLinePoints = cache.skyline(rTree);
+            return;
+        }
+        if (pool != null) {
+            ParallelSkyline<T> parallel = new ParallelSkyline<>(rTree.root().get(), pool.getParallelism(),
+                    constraint, xPreference, yPreference);
+            skyLinePoints = parallel.compute(pool).entries();
+            prunedNodeCount = parallel.prunedNodes();
+            prunedEntryCount = parallel.prunedEntries();
+            return;
+        }
+        BranchAndBoundSkyline<T, Point> bbs = new BranchAndBoundSkyline<>(rTree.root().get(), constraint,
+                xPreference, yPreference);
+        while (bbs.next() != null) {
+            // the skyline is accumulated (sorted by x) by bbs
         }
-        // Sort by x;
-        skyLinePoints.sort((o1, o2) -> (int) Math.floor (o1.geometry().x() - o2.geometry().x()));
+        skyLinePoints = bbs.skyline().entries();
+        prunedNodeCount = bbs.prunedNodes();
+        prunedEntryCount = bbs.prunedEntries();
     }
 
 
-    public void traverse(Node<Object, Point> node) {
+    public void traverse(Node<T, Point> node) {
         System.out.println(node.geometry());
         if(node instanceof NonLeaf) {
-            NonLeaf<Object, Point> nonLeaf = (NonLeaf<Object, Point>) node;
+            NonLeaf<T, Point> nonLeaf = (NonLeaf<T, Point>) node;
             for(int i = 0; i < nonLeaf.count(); i++) {
                 traverse(nonLeaf.child(i));
             }
         }else{
-            Leaf<Object, Point> leaf = (Leaf<Object, Point>) node;
-            for(Entry<Object, Point> entry: leaf.entries()) {
+            Leaf<T, Point> leaf = (Leaf<T, Point>) node;
+            for(Entry<T, Point> entry: leaf.entries()) {
                 System.out.println(entry.geometry());
             }
         }
@@ -0,0 +1,63 @@
+package com.github.davidmoten.skyline;
+
+import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.RTree;
+import com.github.davidmoten.rtree.geometry.Point;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Computes the skyline (minimising both x and y) of a batch of points. Index
+ * free algorithms avoid the cost of building an {@link RTree} for a one-off
+ * batch while branch and bound skyline (BBS) is the best choice when a tree
+ * exists already.
+ *
+ * Every implementation returns the skyline sorted by ascending x.
+ */
+public interface SkylineAlgorithm {
+
+    <T> List<Entry<T, Point>> skyline(List<Entry<T, Point>> entries);
+
+    /**
+     * Returns the skyline of the entries of {@code tree}. Index free
+     * algorithms read all the entries of the tree.
+     */
+    default <T> List<Entry<T, Point>> skyline(RTree<T, Point> tree) {
+        return skyline(tree.entries().toList().toBlocking().single());
+    }
+
+    /**
+     * Sort-filter-skyline: presorts by x + y so that no point can dominate a
+     * point before it, then keeps each point not dominated by the skyline found
+     * so far in a single pass.
+     */
+    static SkylineAlgorithm sortFilter() {
+        return SortFilterSkyline.INSTANCE;
+    }
+
+    /**
+     * Splits the batch into chunks, runs sort-filter-skyline on each chunk as a
+     * separate task on {@code pool} and merges the chunk skylines pairwise in
+     * linear time as the tasks join.
+     */
+    static SkylineAlgorithm divideAndConquer(ForkJoinPool pool) {
+        return new DivideAndConquerSkyline(pool);
+    }
+
+    /**
+     * BBS over an R-tree. A list is bulk loaded into a tree first.
+     */
+    static SkylineAlgorithm branchAndBound() {
+        return BranchAndBoundSkylineAlgorithm.INSTANCE;
+    }
+
+    /**
+     * Uses BBS if a tree exists already, otherwise sort-filter-skyline for
+     * small batches and divide-and-conquer on the common pool for large ones.
+     */
+    static SkylineAlgorithm auto() {
+        return AutoSkyline.INSTANCE;
+    }
+
+}
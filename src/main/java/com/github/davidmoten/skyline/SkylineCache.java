@@ -0,0 +1,109 @@
+package com.github.davidmoten.skyline;
+
+import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.Leaf;
+import com.github.davidmoten.rtree.Node;
+import com.github.davidmoten.rtree.NonLeaf;
+import com.github.davidmoten.rtree.RTree;
+import com.github.davidmoten.rtree.geometry.Point;
+import com.github.davidmoten.rtree.internal.SortedSkyline;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Memoises the skyline of every node of an {@link RTree} of points, weakly
+ * keyed on the node instance. Nodes are immutable and an {@code add} or
+ * {@code delete} only replaces the nodes on the path to the change (the rest
+ * are shared with the previous tree) so after an update only the replaced
+ * nodes are evaluated, each by merging the cached skylines of its children.
+ *
+ * A cached skyline is released when its node is no longer reachable from any
+ * tree. Nodes that are created on every access (such as those of a tree read
+ * with the FlatBuffers serializer) are never found in the cache.
+ *
+ * This class is thread-safe and one instance may be shared between trees.
+ */
+public final class SkylineCache<T> {
+
+    private static final Comparator<Entry<?, Point>> X_THEN_Y = Comparator
+            .<Entry<?, Point>> comparingDouble(e -> e.geometry().x())
+            .thenComparingDouble(e -> e.geometry().y());
+
+    private final Map<Node<T, Point>, SortedSkyline<T, Point>> skylines = Collections
+            .synchronizedMap(new WeakHashMap<>());
+    private final AtomicLong misses = new AtomicLong();
+
+    private SkylineCache() {
+    }
+
+    public static <T> SkylineCache<T> create() {
+        return new SkylineCache<>();
+    }
+
+    /**
+     * Returns the skyline of {@code tree} sorted by ascending x.
+     */
+    public List<Entry<T, Point>> skyline(RTree<T, Point> tree) {
+        if (!tree.root().isPresent()) {
+            return new ArrayList<>();
+        }
+        return skyline(tree.root().get()).entries();
+    }
+
+    /**
+     * Returns the number of nodes whose skyline has been computed rather than
+     * found in the cache.
+     */
+    public long misses() {
+        return misses.get();
+    }
+
+    SortedSkyline<T, Point> skyline(Node<T, Point> node) {
+        SortedSkyline<T, Point> skyline = skylines.get(node);
+        if (skyline == null) {
+            misses.incrementAndGet();
+            // computed without holding the lock, a concurrent miss on the same
+            // node computes an identical skyline
+            skyline = compute(node);
+            skylines.put(node, skyline);
+        }
+        return skyline;
+    }
+
+    private SortedSkyline<T, Point> compute(Node<T, Point> node) {
+        if (node instanceof NonLeaf) {
+            NonLeaf<T, Point> nonLeaf = (NonLeaf<T, Point>) node;
+            SortedSkyline<T, Point> skyline = skyline(nonLeaf.child(0));
+            for (int i = 1; i < nonLeaf.count(); i++) {
+                skyline = SortedSkyline.merge(skyline, skyline(nonLeaf.child(i)));
+            }
+            return skyline;
+        } else {
+            List<Entry<T, Point>> entries = new ArrayList<>(((Leaf<T, Point>) node).entries());
+            entries.sort(X_THEN_Y);
+            SortedSkyline<T, Point> skyline = new SortedSkyline<>();
+            // in ascending x (then y) order an entry is in the skyline if and
+            // only if it is lower than every entry before it or at the same
+            // location as the lowest
+            double minY = Double.POSITIVE_INFINITY;
+            double minYx = Double.POSITIVE_INFINITY;
+            for (Entry<T, Point> e : entries) {
+                double x = e.geometry().x();
+                double y = e.geometry().y();
+                if (y < minY || y == minY && x == minYx) {
+                    minY = y;
+                    minYx = x;
+                    skyline.add(e, x, y);
+                }
+            }
+            return skyline;
+        }
+    }
+
+}
@@ -0,0 +1,106 @@
+package com.github.davidmoten.skyline;
+
+import com.github.davidmoten.rtree.Entries;
+import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.RTree;
+import com.github.davidmoten.rtree.geometry.Point;
+
+import java.util.List;
+
+/**
+ * An immutable {@link RTree} of points together with its skyline. Every
+ * {@code add} or {@code delete} returns a new index whose skyline has been
+ * maintained incrementally and shares structure with the skyline of this
+ * index, so old versions stay valid (just like the tree itself).
+ *
+ * An insert costs O(log s) on top of the tree insert. Deleting a skyline point
+ * only re-queries its exclusive dominance region, the region that was
+ * dominated by the deleted point and by no other skyline point.
+ */
+public final class SkylineIndex<T> {
+
+    private final RTree<T, Point> tree;
+    private final SkylineTree<T> skyline;
+
+    private SkylineIndex(RTree<T, Point> tree, SkylineTree<T> skyline) {
+        this.tree = tree;
+        this.skyline = skyline;
+    }
+
+    /**
+     * Returns an index over {@code tree}, computing its skyline with BBS.
+     */
+    public static <T> SkylineIndex<T> create(RTree<T, Point> tree) {
+        Skyline<T> s = new Skyline<>(tree);
+        s.findSkylinePoints();
+        return new SkylineIndex<>(tree, SkylineTree.fromSorted(s.getSkyLinePoints()));
+    }
+
+    /**
+     * Returns an empty index backed by a default {@link RTree}.
+     */
+    public static <T> SkylineIndex<T> create() {
+        return new SkylineIndex<>(RTree.<T, Point>create(), SkylineTree.<T>empty());
+    }
+
+    public RTree<T, Point> tree() {
+        return tree;
+    }
+
+    /**
+     * Returns the skyline points sorted by ascending x.
+     */
+    public List<Entry<T, Point>> skyline() {
+        return skyline.entries();
+    }
+
+    public int skylineSize() {
+        return skyline.size();
+    }
+
+    public SkylineIndex<T> add(T value, Point point) {
+        return add(Entries.entry(value, point));
+    }
+
+    /**
+     * Returns a new index with {@code entry} added to the tree and the skyline
+     * updated.
+     */
+    public SkylineIndex<T> add(Entry<T, Point> entry) {
+        RTree<T, Point> tree2 = tree.add(entry);
+        Point p = entry.geometry();
+        if (skyline.isDominated(p.x(), p.y())) {
+            return new SkylineIndex<>(tree2, skyline);
+        } else {
+            return new SkylineIndex<>(tree2, skyline.add(entry));
+        }
+    }
+
+    /**
+     * Returns a new index with one entry equal to {@code entry} deleted from the
+     * tree and the skyline updated. Returns this if there is no such entry.
+     */
+    public SkylineIndex<T> delete(Entry<T, Point> entry) {
+        RTree<T, Point> tree2 = tree.delete(entry);
+        if (tree2.size() == tree.size()) {
+            return this;
+        }
+        SkylineTree<T> skyline2 = skyline.remove(entry);
+        if (skyline2 == skyline || tree2.isEmpty()) {
+            // not a skyline point so the skyline is unchanged
+            return new SkylineIndex<>(tree2, skyline2);
+        }
+        Point p = entry.geometry();
+        if (skyline.hasOtherAt(p.x(), p.y(), entry)) {
+            // a duplicate location still dominates the same region
+            return new SkylineIndex<>(tree2, skyline2);
+        }
+        Entry<T, Point> previous = skyline2.lower(p.x());
+        Entry<T, Point> next = skyline2.higher(p.x());
+        for (Entry<T, Point> e : SkylineUpdate.exclusiveRegionSkyline(tree2, p, previous, next)) {
+            skyline2 = skyline2.add(e);
+        }
+        return new SkylineIndex<>(tree2, skyline2);
+    }
+
+}
@@ -0,0 +1,296 @@
+package com.github.davidmoten.skyline;
+
+import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.geometry.Point;
+import com.github.davidmoten.rtree.internal.SortedSkyline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Persistent (immutable, structurally shared) skyline ordered by ascending x.
+ * Backed by a treap with path copying so that every update returns a new
+ * version in O(log s) expected time while previous versions remain valid.
+ *
+ * Because members of a skyline never dominate each other, ascending x means
+ * non-increasing y, which lets the points dominated by a new point be split off
+ * as one contiguous range.
+ */
+final class SkylineTree<T> {
+
+    private static final SkylineTree<?> EMPTY = new SkylineTree<>(null);
+
+    private final Node<T> root;
+
+    private SkylineTree(Node<T> root) {
+        this.root = root;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> SkylineTree<T> empty() {
+        return (SkylineTree<T>) EMPTY;
+    }
+
+    /**
+     * Builds a tree from skyline points already sorted by ascending x.
+     */
+    static <T> SkylineTree<T> fromSorted(List<Entry<T, Point>> skyline) {
+        Node<T> node = null;
+        for (Entry<T, Point> entry : skyline) {
+            node = merge(node, new Node<>(entry));
+        }
+        return new SkylineTree<>(node);
+    }
+
+    int size() {
+        return size(root);
+    }
+
+    boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * Returns true if a member dominates the location (x, y).
+     */
+    boolean isDominated(double x, double y) {
+        Node<T> floor = floor(root, x);
+        return floor != null && SortedSkyline.dominates(floor.x, floor.y, x, y);
+    }
+
+    /**
+     * Returns true if a member other than {@code entry} is located at (x, y).
+     */
+    boolean hasOtherAt(double x, double y, Entry<T, Point> entry) {
+        List<Entry<T, Point>> list = new ArrayList<>();
+        collectAt(root, x, list);
+        boolean skipped = false;
+        for (Entry<T, Point> e : list) {
+            if (!skipped && e.equals(entry)) {
+                skipped = true;
+            } else if (e.geometry().y() == y) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns a new version with {@code entry} added and the members it
+     * dominates removed. The entry must not be dominated by a member.
+     */
+    SkylineTree<T> add(Entry<T, Point> entry) {
+        double x = entry.geometry().x();
+        double y = entry.geometry().y();
+        Pair<T> lr = splitBefore(root, x);
+        // members at the same x are all at the same location
+        Node<T> first = min(lr.right);
+        Node<T> right;
+        if (first != null && first.x == x && first.y == y) {
+            // a duplicate location dominates nothing new
+            right = lr.right;
+        } else {
+            right = splitDominated(lr.right, y).right;
+        }
+        return new SkylineTree<>(merge(merge(lr.left, new Node<>(entry)), right));
+    }
+
+    /**
+     * Returns a new version with one member equal to {@code entry} removed or
+     * this if there is no such member.
+     */
+    SkylineTree<T> remove(Entry<T, Point> entry) {
+        double x = entry.geometry().x();
+        Pair<T> lr = splitBefore(root, x);
+        Pair<T> mr = splitBefore(lr.right, Math.nextUp(x));
+        List<Entry<T, Point>> list = new ArrayList<>();
+        collectAt(mr.left, x, list);
+        if (!list.remove(entry)) {
+            return this;
+        }
+        Node<T> middle = null;
+        for (Entry<T, Point> e : list) {
+            middle = merge(middle, new Node<>(e));
+        }
+        return new SkylineTree<>(merge(merge(lr.left, middle), mr.right));
+    }
+
+    /**
+     * Returns the last member with x strictly less than {@code x} or null.
+     */
+    Entry<T, Point> lower(double x) {
+        Node<T> node = root;
+        Node<T> result = null;
+        while (node != null) {
+            if (node.x < x) {
+                result = node;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return result == null ? null : result.entry;
+    }
+
+    /**
+     * Returns the first member with x strictly greater than {@code x} or null.
+     */
+    Entry<T, Point> higher(double x) {
+        Node<T> node = root;
+        Node<T> result = null;
+        while (node != null) {
+            if (node.x > x) {
+                result = node;
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return result == null ? null : result.entry;
+    }
+
+    /**
+     * Returns the members in ascending x order.
+     */
+    List<Entry<T, Point>> entries() {
+        List<Entry<T, Point>> list = new ArrayList<>(size());
+        addAll(root, list);
+        return list;
+    }
+
+    private static final class Node<T> {
+        final Entry<T, Point> entry;
+        final double x;
+        final double y;
+        final int priority;
+        final Node<T> left;
+        final Node<T> right;
+        final int size;
+
+        Node(Entry<T, Point> entry) {
+            this(entry, ThreadLocalRandom.current().nextInt(), null, null);
+        }
+
+        private Node(Entry<T, Point> entry, int priority, Node<T> left, Node<T> right) {
+            this.entry = entry;
+            this.x = entry.geometry().x();
+            this.y = entry.geometry().y();
+            this.priority = priority;
+            this.left = left;
+            this.right = right;
+            this.size = 1 + size(left) + size(right);
+        }
+
+        Node<T> with(Node<T> left, Node<T> right) {
+            return new Node<>(entry, priority, left, right);
+        }
+    }
+
+    private static final class Pair<T> {
+        final Node<T> left;
+        final Node<T> right;
+
+        Pair(Node<T> left, Node<T> right) {
+            this.left = left;
+            this.right = right;
+        }
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * Splits into members with x strictly less than {@code x} and the rest.
+     */
+    private static <T> Pair<T> splitBefore(Node<T> node, double x) {
+        if (node == null) {
+            return new Pair<>(null, null);
+        } else if (node.x < x) {
+            Pair<T> p = splitBefore(node.right, x);
+            return new Pair<>(node.with(node.left, p.left), p.right);
+        } else {
+            Pair<T> p = splitBefore(node.left, x);
+            return new Pair<>(p.left, node.with(p.right, node.right));
+        }
+    }
+
+    /**
+     * Splits off the prefix of members with y greater than or equal to
+     * {@code y}. Relies on y being non-increasing in x order.
+     */
+    private static <T> Pair<T> splitDominated(Node<T> node, double y) {
+        if (node == null) {
+            return new Pair<>(null, null);
+        } else if (node.y >= y) {
+            Pair<T> p = splitDominated(node.right, y);
+            return new Pair<>(node.with(node.left, p.left), p.right);
+        } else {
+            Pair<T> p = splitDominated(node.left, y);
+            return new Pair<>(p.left, node.with(p.right, node.right));
+        }
+    }
+
+    /**
+     * Merges two treaps where every member of {@code a} precedes every member
+     * of {@code b}.
+     */
+    private static <T> Node<T> merge(Node<T> a, Node<T> b) {
+        if (a == null) {
+            return b;
+        } else if (b == null) {
+            return a;
+        } else if (a.priority > b.priority) {
+            return a.with(a.left, merge(a.right, b));
+        } else {
+            return b.with(merge(a, b.left), b.right);
+        }
+    }
+
+    private static <T> Node<T> floor(Node<T> node, double x) {
+        Node<T> result = null;
+        while (node != null) {
+            if (node.x <= x) {
+                result = node;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return result;
+    }
+
+    private static <T> Node<T> min(Node<T> node) {
+        if (node == null) {
+            return null;
+        }
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node;
+    }
+
+    private static <T> void collectAt(Node<T> node, double x, List<Entry<T, Point>> list) {
+        if (node == null) {
+            return;
+        }
+        if (x <= node.x) {
+            collectAt(node.left, x, list);
+        }
+        if (node.x == x) {
+            list.add(node.entry);
+        }
+        if (x >= node.x) {
+            collectAt(node.right, x, list);
+        }
+    }
+
+    private static <T> void addAll(Node<T> node, List<Entry<T, Point>> list) {
+        while (node != null) {
+            addAll(node.left, list);
+            list.add(node.entry);
+            node = node.right;
+        }
+    }
+}
@@ -4,8 +4,9 @@ import com.github.davidmoten.rtree.Entry;
 import com.github.davidmoten.rtree.RTree;
 import com.github.davidmoten.rtree.geometry.Geometries;
 import com.github.davidmoten.rtree.geometry.Point;
-import rx.Observable;
+import com.github.davidmoten.rtree.internal.BranchAndBoundSkyline;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class SkylineUpdate {
@@ -39,33 +40,61 @@ public class SkylineUpdate {
             }
         }
         if(index >= 0) {
-            double boundX2 = rTree.mbr().get().x2();
-            double boundY2 = rTree.mbr().get().y2();
-
-            double regionX1 = skylinePoints.get(index).geometry().x();
-            double regionY1 = skylinePoints.get(index).geometry().y();
-            double regionX2 = (index+1) < skylinePoints.size() ? skylinePoints.get(index+1).geometry().x() : boundX2;
-            double regionY2 = (index-1) >= 0 ? skylinePoints.get(index-1).geometry().y() : boundY2;
+            Point p = skylinePoints.remove(index).geometry();
+            // A duplicate of the deleted point still dominates the same region.
+            boolean duplicate = (index < skylinePoints.size() && skylinePoints.get(index).geometry().equals(p))
+                    || (index > 0 && skylinePoints.get(index - 1).geometry().equals(p));
+            if(!duplicate) {
+                Entry<Object, Point> previous = index > 0 ? skylinePoints.get(index - 1) : null;
+                Entry<Object, Point> next = index < skylinePoints.size() ? skylinePoints.get(index) : null;
+                // The new skyline points all lie between previous and next in x order.
+                skylinePoints.addAll(index, exclusiveRegionSkyline(rTree, p, previous, next));
+            }
+        }
+    }
 
-            // Create a region RTree.
-            Observable<Entry<Object, Point>> results = rTree.search(Geometries.rectangle(regionX1, regionY1, regionX2, regionY2));
-            List<Entry<Object, Point>> regionEntries = results.toList().toBlocking().single();
-            regionEntries.removeIf(e -> (e.geometry().x() == regionX1 && e.geometry().y() == regionY1));
-            RTree<Object, Point> regionRTree = RTree.create();
-            regionRTree = regionRTree.add(regionEntries);
 
-            // Find the region skyline points.
-            Skyline skyline = new Skyline(regionRTree);
-            skyline.findSkylinePoints();
+    /**
+     * Returns the skyline points (sorted by x) of the exclusive dominance region of a deleted
+     * skyline point p, the region [p.x, next.x) x [p.y, previous.y) that was dominated only by p.
+     * Entries located exactly at p are ignored. Constrained BBS runs directly over the tree so
+     * nothing outside the region is visited and no candidate list or temporary tree is built.
+     */
+    static <T> List<Entry<T, Point>> exclusiveRegionSkyline(RTree<T, Point> rTree, Point p,
+            Entry<T, Point> previous, Entry<T, Point> next) {
+        // upper bounds are exclusive
+        double x2 = Math.nextDown(next == null ? Double.POSITIVE_INFINITY : next.geometry().x());
+        double y2 = Math.nextDown(previous == null ? Double.POSITIVE_INFINITY : previous.geometry().y());
+        if (!rTree.root().isPresent()) {
+            return new ArrayList<>();
+        }
+        // Split the region so that p itself is excluded: the points directly above p and the
+        // points strictly to the right of p. The lowest points above p come first in x order
+        // and dominate the points to the right that are no lower.
+        List<Entry<T, Point>> above = constrainedSkyline(rTree, p.x(), Math.nextUp(p.y()), p.x(), y2);
+        List<Entry<T, Point>> right = constrainedSkyline(rTree, Math.nextUp(p.x()), p.y(), x2, y2);
+        if (above.isEmpty()) {
+            return right;
+        }
+        double y = above.get(0).geometry().y();
+        int i = 0;
+        while (i < right.size() && right.get(i).geometry().y() >= y) {
+            i++;
+        }
+        above.addAll(right.subList(i, right.size()));
+        return above;
+    }
 
-            // Combine the region skyline points and the original skyline points.
-            skylinePoints.remove(index);
-            List<Entry<Object, Point>> regionSkylinePoints = skyline.getSkyLinePoints();
-            for(Entry<Object, Point> skylinePoint: skylinePoints) {
-                regionSkylinePoints.removeIf(e -> Skyline.judgeIfDominate(skylinePoint.geometry().x(), skylinePoint.geometry().y(), e.geometry().x(), e.geometry().y()));
-            }
-            skylinePoints.addAll(regionSkylinePoints);
-            skylinePoints.sort((o1, o2) -> (int) Math.floor(o1.geometry().x() - o2.geometry().x()));
+    private static <T> List<Entry<T, Point>> constrainedSkyline(RTree<T, Point> rTree, double x1, double y1,
+            double x2, double y2) {
+        if (x2 < x1 || y2 < y1) {
+            return new ArrayList<>();
+        }
+        BranchAndBoundSkyline<T, Point> bbs = new BranchAndBoundSkyline<>(rTree.root().get(),
+                Geometries.rectangle(x1, y1, x2, y2));
+        while (bbs.next() != null) {
+            // the skyline is accumulated (sorted by x) by bbs
         }
+        return bbs.skyline().entries();
     }
 }
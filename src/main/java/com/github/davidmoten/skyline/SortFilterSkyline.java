@@ -0,0 +1,48 @@
+package com.github.davidmoten.skyline;
+
+import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.geometry.Point;
+import com.github.davidmoten.rtree.internal.SortedSkyline;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+final class SortFilterSkyline implements SkylineAlgorithm {
+
+    static final SortFilterSkyline INSTANCE = new SortFilterSkyline();
+
+    // a point that dominates another has a smaller sum (rounding is
+    // monotonic) or an equal sum and smaller x or y, so it always comes first
+    private static final Comparator<Entry<?, Point>> SUM_THEN_X_THEN_Y = Comparator
+            .<Entry<?, Point>> comparingDouble(e -> e.geometry().x() + e.geometry().y())
+            .thenComparingDouble(e -> e.geometry().x())
+            .thenComparingDouble(e -> e.geometry().y());
+
+    private SortFilterSkyline() {
+    }
+
+    @Override
+    public <T> List<Entry<T, Point>> skyline(List<Entry<T, Point>> entries) {
+        return skyline(entries, 0, entries.size()).entries();
+    }
+
+    /**
+     * Returns the skyline of the entries from index {@code from} (inclusive) to
+     * {@code to} (exclusive). {@code entries} is not modified.
+     */
+    static <T> SortedSkyline<T, Point> skyline(List<Entry<T, Point>> entries, int from, int to) {
+        List<Entry<T, Point>> sorted = new ArrayList<>(entries.subList(from, to));
+        sorted.sort(SUM_THEN_X_THEN_Y);
+        SortedSkyline<T, Point> skyline = new SortedSkyline<>();
+        for (Entry<T, Point> e : sorted) {
+            double x = e.geometry().x();
+            double y = e.geometry().y();
+            if (!skyline.isDominated(x, y)) {
+                skyline.add(e, x, y);
+            }
+        }
+        return skyline;
+    }
+
+}
@@ -21,7 +21,6 @@ import com.github.davidmoten.rtree.internal.util.ImmutableStack;
 
 import rx.Subscriber;
 import rx.Subscription;
-import rx.functions.Func1;
 
 public class BackpressureTest {
 
@@ -35,7 +34,7 @@ public class BackpressureTest {
     public void testBackpressureSearch() {
         Subscriber<Object> sub = Mockito.mock(Subscriber.class);
         ImmutableStack<NodePosition<Object, Geometry>> stack = ImmutableStack.empty();
-        Func1<Geometry, Boolean> condition = Mockito.mock(Func1.class);
+        SearchPredicate<Geometry> condition = Mockito.mock(SearchPredicate.class);
         Backpressure.search(condition, sub, stack, 1);
         Mockito.verify(sub, Mockito.never()).onNext(Mockito.any());
     }
@@ -85,7 +84,7 @@ public class BackpressureTest {
         NodePosition<Object, Geometry> np = new NodePosition<Object, Geometry>(node, 1);
         ImmutableStack<NodePosition<Object, Geometry>> stack = ImmutableStack
                 .<NodePosition<Object, Geometry>> empty().push(np);
-        Func1<Geometry, Boolean> condition = Mockito.mock(Func1.class);
+        SearchPredicate<Geometry> condition = Mockito.mock(SearchPredicate.class);
         ImmutableStack<NodePosition<Object, Geometry>> stack2 = Backpressure.search(condition, sub,
                 stack, 0);
         assertTrue(stack2 == stack);
@@ -128,7 +127,7 @@ public class BackpressureTest {
         NodePosition<Object, Geometry> np = new NodePosition<Object, Geometry>(node, 1);
         ImmutableStack<NodePosition<Object, Geometry>> stack = ImmutableStack
                 .<NodePosition<Object, Geometry>> empty().push(np);
-        Func1<Geometry, Boolean> condition = Mockito.mock(Func1.class);
+        SearchPredicate<Geometry> condition = Mockito.mock(SearchPredicate.class);
         ImmutableStack<NodePosition<Object, Geometry>> stack2 = Backpressure.search(condition, sub,
                 stack, 1);
         assertTrue(stack2.isEmpty());
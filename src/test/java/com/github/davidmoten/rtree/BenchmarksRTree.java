@@ -5,6 +5,7 @@ import static com.github.davidmoten.rtree.Utilities.entries1000;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.Iterator;
 import java.util.List;
 
 import org.openjdk.jmh.annotations.Benchmark;
@@ -36,6 +37,8 @@ public class BenchmarksRTree {
     private final RTree<Object, Point> defaultTreeM10 = RTree.maxChildren(10)
             .<Object, Point> create().add(entries);
 
+    private final PackedRTree<Object, Point> packedDefaultTreeM10 = defaultTreeM10.freeze();
+
     private final RTree<Object, Point> starTreeM4 = RTree.maxChildren(4).star()
             .<Object, Point> create().add(entries);
 
@@ -177,6 +180,28 @@ public class BenchmarksRTree {
         searchGreek(defaultTreeM10, bh);
     }
 
+    @Benchmark
+    public void defaultRTreeSynchronousSearchOfGreekDataPointsMaxChildren010(Blackhole bh) {
+        defaultTreeM10.search(searchRectangle(), consumeWith(bh));
+    }
+
+    @Benchmark
+    public void defaultRTreeIteratorSearchOfGreekDataPointsMaxChildren010(Blackhole bh) {
+        Iterator<Entry<Object, Point>> it = defaultTreeM10.searchIterator(searchRectangle());
+        while (it.hasNext())
+            bh.consume(it.next());
+    }
+
+    @Benchmark
+    public void packedRTreeSearchOfGreekDataPointsMaxChildren010(Blackhole bh) {
+        packedDefaultTreeM10.search(searchRectangle()).subscribe(consumeWith(bh));
+    }
+
+    @Benchmark
+    public void packedRTreeSynchronousSearchOfGreekDataPointsMaxChildren010(Blackhole bh) {
+        packedDefaultTreeM10.search(searchRectangle(), consumeWith(bh));
+    }
+
     @Benchmark
     public RTree<Object, Point> rStarTreeInsertOneEntryIntoGreekDataEntriesMaxChildren004() {
         return insertPoint(starTreeM4);
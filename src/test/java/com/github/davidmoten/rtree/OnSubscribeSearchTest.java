@@ -12,7 +12,6 @@ import com.github.davidmoten.rtree.geometry.Point;
 import com.github.davidmoten.rtree.internal.LeafDefault;
 
 import rx.Subscriber;
-import rx.functions.Func1;
 
 public class OnSubscribeSearchTest {
 
@@ -20,7 +19,7 @@ public class OnSubscribeSearchTest {
     @Test
     public void testSearchProducerThrowsExceptionFromRequestAll() {
         Node<Integer, Geometry> node = Mockito.mock(Node.class);
-        Func1<Geometry, Boolean> condition = Mockito.mock(Func1.class);
+        SearchPredicate<Geometry> condition = Mockito.mock(SearchPredicate.class);
         Subscriber<Entry<Integer, Geometry>> subscriber = Mockito.mock(Subscriber.class);
         RuntimeException error = new RuntimeException();
         Mockito.doThrow(error).when(node).searchWithoutBackpressure(condition, subscriber);
@@ -36,7 +35,7 @@ public class OnSubscribeSearchTest {
         Node<Integer, Point> node = new LeafDefault<Integer, Point>(Collections.singletonList(Entries.entry(
                 1, Geometries.point(1, 1))), null);
 
-        Func1<Geometry, Boolean> condition = Mockito.mock(Func1.class);
+        SearchPredicate<Geometry> condition = Mockito.mock(SearchPredicate.class);
         Subscriber<Entry<Integer, Point>> subscriber = new Subscriber<Entry<Integer, Point>>() {
 
             @Override
@@ -0,0 +1,115 @@
+package com.github.davidmoten.rtree;
+
+import static com.github.davidmoten.rtree.geometry.Geometries.circle;
+import static com.github.davidmoten.rtree.geometry.Geometries.point;
+import static com.github.davidmoten.rtree.geometry.Geometries.rectangle;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.github.davidmoten.rtree.geometry.Geometry;
+import com.github.davidmoten.rtree.geometry.Point;
+import com.github.davidmoten.rtree.geometry.Rectangle;
+
+import rx.Observable;
+import rx.functions.Action1;
+
+public class PackedRTreeTest {
+
+    @Test
+    public void testSearchesMatchTree() {
+        Random r = new Random(24);
+        for (int run = 0; run < 30; run++) {
+            RTree<Integer, Geometry> tree = RTree.maxChildren(4 + r.nextInt(8)).create();
+            int n = r.nextInt(300);
+            for (int i = 0; i < n; i++) {
+                double x = r.nextInt(50);
+                double y = r.nextInt(50);
+                if (r.nextBoolean())
+                    tree = tree.add(i, point(x, y));
+                else
+                    tree = tree.add(i, rectangle(x, y, x + r.nextInt(5), y + r.nextInt(5)));
+            }
+            // deletions leave the tree balanced
+            for (int i = 0; i < n / 4; i++)
+                tree = tree.delete(tree.entries().skip(r.nextInt(tree.size())).toBlocking()
+                        .first());
+            PackedRTree<Integer, Geometry> packed = tree.freeze();
+            assertEquals(tree.size(), packed.size());
+            if (!tree.isEmpty())
+                assertEquals(tree.mbr().get(), packed.mbr().get());
+            double x = r.nextInt(50);
+            double y = r.nextInt(50);
+            Rectangle query = rectangle(x, y, x + r.nextInt(20), y + r.nextInt(20));
+            assertEquals(list(tree.entries()), list(packed.entries()));
+            assertEquals(list(tree.search(query)), list(packed.search(query)));
+            assertEquals(list(tree.search(query, 3)), list(packed.search(query, 3)));
+            assertEquals(list(tree.search(circle(x, y, 10))),
+                    list(packed.search(circle(x, y, 10))));
+            // backpressure
+            assertEquals(list(tree.search(query)),
+                    list(packed.search(query).rebatchRequests(1)));
+            final List<Entry<Integer, Geometry>> found = new ArrayList<Entry<Integer, Geometry>>();
+            packed.search(query, new Action1<Entry<Integer, Geometry>>() {
+                @Override
+                public void call(Entry<Integer, Geometry> e) {
+                    found.add(e);
+                }
+            });
+            assertEquals(list(tree.search(query)), found);
+            int k = 1 + r.nextInt(20);
+            assertEquals(distances(tree.nearest(query, 15, k), query),
+                    distances(packed.nearest(query, 15, k), query));
+            assertEquals(distances(tree.nearest(query), query),
+                    distances(packed.nearest(query), query));
+        }
+    }
+
+    @Test
+    public void testFreezeEmptyTree() {
+        PackedRTree<Integer, Point> packed = RTree.<Integer, Point> create().freeze();
+        assertTrue(packed.isEmpty());
+        assertFalse(packed.mbr().isPresent());
+        assertEquals(0, (int) packed.search(rectangle(0, 0, 1, 1)).count().toBlocking()
+                .single());
+        assertEquals(0, (int) packed.nearest(point(0, 0)).count().toBlocking().single());
+    }
+
+    @Test
+    public void testFreezeFlatBuffersTree() throws IOException {
+        Random r = new Random(25);
+        RTree<String, Point> tree = RTree.maxChildren(4).create();
+        for (int i = 0; i < 500; i++)
+            tree = tree.add(String.valueOf(i), point(r.nextInt(100), r.nextInt(100)));
+        Serializer<String, Point> serializer = Serializers.flatBuffers().utf8();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        serializer.write(tree, bytes);
+        byte[] array = bytes.toByteArray();
+        RTree<String, Point> tree2 = serializer.read(new ByteArrayInputStream(array),
+                array.length, InternalStructure.SINGLE_ARRAY);
+        Rectangle query = rectangle(20, 30, 60, 55);
+        assertEquals(list(tree2.search(query)), list(tree2.freeze().search(query)));
+    }
+
+    private static <T> List<T> list(Observable<T> o) {
+        return o.toList().toBlocking().single();
+    }
+
+    private static <T, S extends Geometry> List<Double> distances(Observable<Entry<T, S>> o,
+            Rectangle r) {
+        List<Double> list = new ArrayList<Double>();
+        for (Entry<T, S> e : o.toBlocking().toIterable())
+            list.add(e.geometry().distance(r));
+        return list;
+    }
+
+}
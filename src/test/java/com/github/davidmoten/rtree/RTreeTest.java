@@ -22,8 +22,12 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -1141,4 +1145,350 @@ public class RTreeTest {
                 .assertCompleted();
     }
     
+    @Test
+    public void testSkylineOfEmptyTree() {
+        RTree<Object, Point> tree = RTree.create();
+        tree.skyline().test().assertNoValues().assertCompleted();
+    }
+
+    @Test
+    public void testSkylineEmitsInAscendingXPlusY() {
+        Entry<Object, Point> a = entry((Object) 1, point(1, 5));
+        Entry<Object, Point> b = entry((Object) 2, point(3, 2));
+        Entry<Object, Point> c = entry((Object) 3, point(6, 1));
+        RTree<Object, Point> tree = RTree.maxChildren(4).<Object, Point>create()
+                .add(Arrays.asList(a, b, c, entry((Object) 4, point(4, 4)), entry((Object) 5, point(7, 7))));
+        tree.skyline().test().assertReceivedOnNext(Arrays.asList(b, a, c)).assertCompleted();
+    }
+
+    @Test
+    public void testSkylineHonoursBackpressure() {
+        List<Entry<Object, Point>> entries = new ArrayList<Entry<Object, Point>>();
+        for (int i = 0; i < 100; i++)
+            entries.add(entry((Object) i, point(i, 100 - i)));
+        RTree<Object, Point> tree = RTree.maxChildren(4).<Object, Point>create().add(entries);
+        tree.skyline().test(1).assertValueCount(1).assertNotCompleted().requestMore(10)
+                .assertValueCount(11).requestMore(Long.MAX_VALUE).assertValueCount(100).assertCompleted();
+        tree.skyline().take(3).test().assertValueCount(3).assertCompleted();
+    }
+
+    @Test
+    public void testSkybandMatchesBruteForce() {
+        Random r = new Random(5);
+        for (int run = 0; run < 20; run++) {
+            List<Entry<Object, Point>> entries = randomPointEntries(r, 1 + r.nextInt(500));
+            RTree<Object, Point> tree = RTree.maxChildren(4 + r.nextInt(8)).<Object, Point>create().add(entries);
+            int k = 1 + r.nextInt(5);
+            Set<Entry<Object, Point>> expected = new HashSet<Entry<Object, Point>>();
+            for (Entry<Object, Point> e : entries)
+                if (dominatorCount(entries, e) < k)
+                    expected.add(e);
+            List<Entry<Object, Point>> skyband = tree.skyband(k).toList().toBlocking().single();
+            assertEquals(expected.size(), skyband.size());
+            assertEquals(expected, new HashSet<Entry<Object, Point>>(skyband));
+        }
+    }
+
+    @Test
+    public void testSkybandExcludesDominatedEntryWithEqualCoordinateSum() {
+        // 0.1 + 0.2 and 0.1 + nextUp(0.2) round to the same double
+        Entry<Object, Point> q = entry((Object) 1, point(0.1, Math.nextUp(0.2)));
+        Entry<Object, Point> p = entry((Object) 2, point(0.1, 0.2));
+        RTree<Object, Point> tree = RTree.<Object, Point>create().add(q).add(p);
+        assertEquals(Collections.singletonList(p), tree.skyband(1).toList().toBlocking().single());
+    }
+
+    @Test
+    public void testTopKDominatingMatchesBruteForce() {
+        Random r = new Random(6);
+        for (int run = 0; run < 20; run++) {
+            List<Entry<Object, Point>> entries = randomPointEntries(r, 1 + r.nextInt(500));
+            RTree<Object, Point> tree = RTree.maxChildren(4 + r.nextInt(8)).<Object, Point>create().add(entries);
+            int k = 1 + r.nextInt(10);
+            List<Integer> scores = new ArrayList<Integer>();
+            for (Entry<Object, Point> e : entries)
+                scores.add(dominatedCount(entries, e));
+            Collections.sort(scores, Collections.reverseOrder());
+            List<Integer> actual = new ArrayList<Integer>();
+            for (Entry<Object, Point> e : tree.topKDominating(k).toList().toBlocking().single())
+                actual.add(dominatedCount(entries, e));
+            assertEquals(scores.subList(0, Math.min(k, scores.size())), actual);
+        }
+    }
+
+    @Test
+    public void testCountMatchesSearch() {
+        Random r = new Random(8);
+        List<Entry<Object, Point>> entries = randomPointEntries(r, 1000);
+        RTree<Object, Point> plain = RTree.maxChildren(4).<Object, Point>create().add(entries);
+        RTree<Object, Point> aggregate = RTree.aggregate().maxChildren(4).<Object, Point>create()
+                .add(entries);
+        RTree<Object, Point> packed = RTree.aggregate().maxChildren(4).<Object, Point>create(entries);
+        RTree<Object, Point> deleted = aggregate.delete(entries.subList(0, 300));
+        for (RTree<Object, Point> tree : Arrays.asList(plain, aggregate, packed, deleted)) {
+            if (tree != plain)
+                assertEquals(tree.size(), ((HasEntryCount) tree.root().get()).entryCount());
+            for (int i = 0; i < 20; i++) {
+                double x = r.nextInt(50);
+                double y = r.nextInt(50);
+                Rectangle rect = rectangle(x, y, x + r.nextInt(30), y + r.nextInt(30));
+                assertEquals((int) tree.search(rect).count().toBlocking().single(), tree.count(rect));
+            }
+        }
+    }
+
+    @Test
+    public void testCountOfEmptyTree() {
+        assertEquals(0, RTree.aggregate().<Object, Point>create().count(rectangle(0, 0, 1, 1)));
+    }
+
+    @Test
+    public void testHilbertBulkLoadSearchMatchesBruteForce() {
+        Random r = new Random(67);
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            for (int run = 0; run < 20; run++) {
+                List<Entry<Object, Point>> entries = randomPointEntries(r, r.nextInt(20000));
+                RTree.Builder builder = RTree.maxChildren(4 + r.nextInt(30)).hilbert();
+                if (r.nextBoolean())
+                    builder = builder.parallel(pool);
+                RTree<Object, Point> tree = builder.<Object, Point> create(entries);
+                assertEquals(entries.size(), tree.size());
+                for (int i = 0; i < 10; i++) {
+                    double x = r.nextInt(50);
+                    double y = r.nextInt(50);
+                    Rectangle rect = rectangle(x, y, x + r.nextInt(20), y + r.nextInt(20));
+                    Set<Entry<Object, Point>> expected = new HashSet<Entry<Object, Point>>();
+                    for (Entry<Object, Point> e : entries)
+                        if (rect.intersects(e.geometry().mbr()))
+                            expected.add(e);
+                    List<Entry<Object, Point>> found = tree.search(rect).toList().toBlocking().single();
+                    assertEquals(expected.size(), found.size());
+                    assertEquals(expected, new HashSet<Entry<Object, Point>>(found));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testCreatePackedKeepsOrderOfEntries() {
+        List<Entry<Object, Point>> entries = randomPointEntries(new Random(71), 1000);
+        RTree<Object, Point> tree = RTree.maxChildren(10).<Object, Point> createPacked(entries);
+        assertEquals(1000, tree.size());
+        assertEquals(entries, tree.entries().toList().toBlocking().single());
+        assertEquals(0, RTree.maxChildren(10)
+                .createPacked(new ArrayList<Entry<Object, Point>>()).size());
+    }
+
+    @Test
+    public void testBulkLoadDoesNotModifyEntries() {
+        List<Entry<Object, Point>> entries = randomPointEntries(new Random(61), 5000);
+        List<Entry<Object, Point>> copy = new ArrayList<Entry<Object, Point>>(entries);
+        RTree<Object, Point> tree = RTree.create(entries);
+        assertEquals(copy, entries);
+        // a second load must not disturb the first tree
+        RTree.create(entries);
+        assertEquals(entries.size(), (int) tree.entries().count().toBlocking().single());
+    }
+
+    @Test
+    public void testParallelBulkLoadMatchesSequential() {
+        Random r = new Random(53);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int run = 0; run < 10; run++) {
+                List<Entry<Object, Point>> entries = randomPointEntries(r, r.nextInt(50000));
+                int maxChildren = 4 + r.nextInt(30);
+                RTree<Object, Point> expected = RTree.maxChildren(maxChildren)
+                        .<Object, Point> create(new ArrayList<Entry<Object, Point>>(entries));
+                RTree<Object, Point> tree = RTree.maxChildren(maxChildren).parallel(pool)
+                        .<Object, Point> create(new ArrayList<Entry<Object, Point>>(entries));
+                assertEquals(entries.size(), tree.size());
+                assertEquals(expected.asString(), tree.asString());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testBulkLoadFromColumnsMatchesBulkLoadFromEntries() {
+        Random r = new Random(43);
+        for (int run = 0; run < 20; run++) {
+            int n = r.nextInt(3000);
+            double[] x = new double[n];
+            double[] y = new double[n];
+            List<Entry<Integer, Point>> entries = new ArrayList<Entry<Integer, Point>>();
+            for (int i = 0; i < n; i++) {
+                x[i] = r.nextInt(100);
+                y[i] = r.nextInt(100);
+                entries.add(entry(i, point(x[i], y[i])));
+            }
+            RTree<Integer, Point> tree = RTree.maxChildren(4 + r.nextInt(10)).create(x, y,
+                    new Func1<Integer, Integer>() {
+                        @Override
+                        public Integer call(Integer i) {
+                            return i;
+                        }
+                    });
+            RTree<Integer, Point> expected = RTree.maxChildren(tree.context().maxChildren())
+                    .<Integer, Point> create(entries);
+            assertEquals(n, tree.size());
+            assertEquals(expected.asString(), tree.asString());
+            assertEquals(expected.entries().toList().toBlocking().single(),
+                    tree.entries().toList().toBlocking().single());
+        }
+    }
+
+    @Test
+    public void testDynamicAndReverseSkylineMatchBruteForce() {
+        Random r = new Random(9);
+        for (int run = 0; run < 30; run++) {
+            List<Entry<Object, Point>> entries = randomPointEntries(r, 1 + r.nextInt(300));
+            RTree<Object, Point> tree = RTree.maxChildren(4 + r.nextInt(8)).<Object, Point>create().add(entries);
+            Point q = point(r.nextInt(50), r.nextInt(50));
+            Set<Entry<Object, Point>> dynamic = new HashSet<Entry<Object, Point>>();
+            Set<Entry<Object, Point>> reverse = new HashSet<Entry<Object, Point>>();
+            for (Entry<Object, Point> e : entries) {
+                boolean dominated = false;
+                boolean queryDominated = false;
+                for (Entry<Object, Point> d : entries) {
+                    dominated |= dynamicallyDominates(q, d.geometry(), e.geometry());
+                    queryDominated |= d != e && dynamicallyDominates(e.geometry(), d.geometry(), q);
+                }
+                if (!dominated)
+                    dynamic.add(e);
+                if (!queryDominated)
+                    reverse.add(e);
+            }
+            List<Entry<Object, Point>> list = tree.dynamicSkyline(q).toList().toBlocking().single();
+            assertEquals(dynamic.size(), list.size());
+            assertEquals(dynamic, new HashSet<Entry<Object, Point>>(list));
+            list = tree.reverseSkyline(q).toList().toBlocking().single();
+            assertEquals(reverse.size(), list.size());
+            assertEquals(reverse, new HashSet<Entry<Object, Point>>(list));
+        }
+    }
+
+    @Test
+    public void testBestFirstNearestMatchesBruteForce() {
+        Random r = new Random(21);
+        for (int run = 0; run < 30; run++) {
+            List<Entry<Object, Point>> entries = randomPointEntries(r, 1 + r.nextInt(300));
+            RTree<Object, Point> tree = RTree.maxChildren(4 + r.nextInt(8)).<Object, Point>create().add(entries);
+            Point q = point(r.nextInt(50), r.nextInt(50));
+            double maxDistance = 5 + r.nextInt(30);
+            int k = 1 + r.nextInt(20);
+            List<Double> all = new ArrayList<Double>();
+            for (Entry<Object, Point> e : entries)
+                all.add(e.geometry().distance(q.mbr()));
+            Collections.sort(all);
+            List<Double> within = new ArrayList<Double>();
+            for (Double d : all)
+                if (d < maxDistance && within.size() < k)
+                    within.add(d);
+            assertEquals(within, distances(tree.nearest(q, maxDistance, k), q));
+            // unbounded and incremental
+            assertEquals(all.subList(0, Math.min(k, all.size())),
+                    distances(tree.nearest(q).take(k), q));
+            assertEquals(all, distances(tree.nearest(q), q));
+        }
+    }
+
+    @Test
+    public void testSynchronousSearchMatchesObservableSearch() {
+        Random r = new Random(22);
+        for (int run = 0; run < 30; run++) {
+            RTree<Object, Geometry> tree = RTree.maxChildren(4 + r.nextInt(8)).create();
+            int n = r.nextInt(300);
+            for (int i = 0; i < n; i++) {
+                double x = r.nextInt(50);
+                double y = r.nextInt(50);
+                if (r.nextBoolean())
+                    tree = tree.add(i, point(x, y));
+                else
+                    tree = tree.add(i, rectangle(x, y, x + r.nextInt(5), y + r.nextInt(5)));
+            }
+            double x = r.nextInt(50);
+            double y = r.nextInt(50);
+            Rectangle query = rectangle(x, y, x + r.nextInt(20), y + r.nextInt(20));
+            List<Entry<Object, Geometry>> expected = tree.search(query).toList().toBlocking()
+                    .single();
+            final List<Entry<Object, Geometry>> found = new ArrayList<Entry<Object, Geometry>>();
+            Action1<Entry<Object, Geometry>> add = new Action1<Entry<Object, Geometry>>() {
+                @Override
+                public void call(Entry<Object, Geometry> e) {
+                    found.add(e);
+                }
+            };
+            tree.search(query, add);
+            assertEquals(expected, found);
+            found.clear();
+            tree.search(query.x1(), query.y1(), query.x2(), query.y2(), add);
+            assertEquals(expected, found);
+            found.clear();
+            Iterator<Entry<Object, Geometry>> it = tree.searchIterator(query);
+            while (it.hasNext())
+                found.add(it.next());
+            assertEquals(expected, found);
+        }
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testSearchIteratorOfEmptyTree() {
+        Iterator<Entry<Object, Point>> it = RTree.<Object, Point>create()
+                .searchIterator(rectangle(0, 0, 1, 1));
+        assertFalse(it.hasNext());
+        it.next();
+    }
+
+    private static List<Double> distances(Observable<Entry<Object, Point>> o, Point q) {
+        List<Double> list = new ArrayList<Double>();
+        for (Entry<Object, Point> e : o.toBlocking().toIterable())
+            list.add(e.geometry().distance(q.mbr()));
+        return list;
+    }
+
+    /**
+     * Returns true if a is at least as near to the centre as b in both
+     * dimensions and strictly nearer in one.
+     */
+    private static boolean dynamicallyDominates(Point centre, Point a, Point b) {
+        double ax = Math.abs(a.x() - centre.x());
+        double ay = Math.abs(a.y() - centre.y());
+        double bx = Math.abs(b.x() - centre.x());
+        double by = Math.abs(b.y() - centre.y());
+        return ax <= bx && ay <= by && (ax < bx || ay < by);
+    }
+
+    private static List<Entry<Object, Point>> randomPointEntries(Random r, int n) {
+        List<Entry<Object, Point>> entries = new ArrayList<Entry<Object, Point>>();
+        for (int i = 0; i < n; i++)
+            // coarse grid so that ties and duplicates occur
+            entries.add(entry((Object) i, point(r.nextInt(50), r.nextInt(50))));
+        return entries;
+    }
+
+    private static int dominatorCount(List<Entry<Object, Point>> entries, Entry<Object, Point> e) {
+        int count = 0;
+        for (Entry<Object, Point> d : entries)
+            if (dominates(d.geometry(), e.geometry()))
+                count++;
+        return count;
+    }
+
+    private static int dominatedCount(List<Entry<Object, Point>> entries, Entry<Object, Point> e) {
+        int count = 0;
+        for (Entry<Object, Point> d : entries)
+            if (dominates(e.geometry(), d.geometry()))
+                count++;
+        return count;
+    }
+
+    private static boolean dominates(Point a, Point b) {
+        return a.x() <= b.x() && a.y() <= b.y() && (a.x() != b.x() || a.y() != b.y());
+    }
+
 }
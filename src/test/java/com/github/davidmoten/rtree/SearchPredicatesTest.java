@@ -0,0 +1,153 @@
+package com.github.davidmoten.rtree;
+
+import static com.github.davidmoten.rtree.geometry.Geometries.circle;
+import static com.github.davidmoten.rtree.geometry.Geometries.line;
+import static com.github.davidmoten.rtree.geometry.Geometries.point;
+import static com.github.davidmoten.rtree.geometry.Geometries.rectangle;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.github.davidmoten.junit.Asserts;
+import com.github.davidmoten.rtree.geometry.Circle;
+import com.github.davidmoten.rtree.geometry.Geometry;
+import com.github.davidmoten.rtree.geometry.Intersects;
+import com.github.davidmoten.rtree.geometry.Line;
+import com.github.davidmoten.rtree.geometry.Point;
+import com.github.davidmoten.rtree.geometry.Rectangle;
+
+import rx.functions.Action1;
+import rx.functions.Func1;
+
+public class SearchPredicatesTest {
+
+    @Test
+    public void isUtilityClass() {
+        Asserts.assertIsUtilityClass(SearchPredicates.class);
+    }
+
+    @Test
+    public void testPredicatesMatchBruteForce() {
+        Random r = new Random(23);
+        for (int run = 0; run < 30; run++) {
+            RTree<String, Geometry> tree = RTree.maxChildren(4 + r.nextInt(8)).create();
+            int n = r.nextInt(300);
+            for (int i = 0; i < n; i++) {
+                double x = r.nextInt(50);
+                double y = r.nextInt(50);
+                if (r.nextBoolean())
+                    tree = tree.add(String.valueOf(i), point(x, y));
+                else
+                    tree = tree.add(String.valueOf(i),
+                            rectangle(x, y, x + r.nextInt(5), y + r.nextInt(5)));
+            }
+            double x = r.nextInt(50);
+            double y = r.nextInt(50);
+            final Rectangle rect = rectangle(x, y, x + r.nextInt(20), y + r.nextInt(20));
+            final Circle c = circle(x, y, 1 + r.nextInt(10));
+            final Line ln = line(x, y, r.nextInt(50), r.nextInt(50));
+            final double maxDistance = 1 + r.nextInt(10);
+            check(tree, SearchPredicates.intersects(rect), new Func1<Geometry, Boolean>() {
+                @Override
+                public Boolean call(Geometry g) {
+                    return g.intersects(rect);
+                }
+            });
+            check(tree, SearchPredicates.intersects(c), new Func1<Geometry, Boolean>() {
+                @Override
+                public Boolean call(Geometry g) {
+                    return Intersects.geometryIntersectsCircle.call(g, c);
+                }
+            });
+            check(tree, SearchPredicates.intersects(ln), new Func1<Geometry, Boolean>() {
+                @Override
+                public Boolean call(Geometry g) {
+                    return Intersects.geometryIntersectsLine.call(g, ln);
+                }
+            });
+            check(tree, SearchPredicates.withinDistance(rect, maxDistance),
+                    new Func1<Geometry, Boolean>() {
+                        @Override
+                        public Boolean call(Geometry g) {
+                            return g.distance(rect) < maxDistance;
+                        }
+                    });
+            check(tree, SearchPredicates.all(), new Func1<Geometry, Boolean>() {
+                @Override
+                public Boolean call(Geometry g) {
+                    return true;
+                }
+            });
+        }
+    }
+
+    @Test
+    public void testPredicateSearchOfFlatBuffersTree() throws IOException {
+        Random r = new Random(24);
+        RTree<String, Point> tree = RTree.maxChildren(4).create();
+        for (int i = 0; i < 500; i++)
+            tree = tree.add(String.valueOf(i), point(r.nextInt(100), r.nextInt(100)));
+        Serializer<String, Point> serializer = Serializers.flatBuffers().utf8();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        serializer.write(tree, bytes);
+        byte[] array = bytes.toByteArray();
+        RTree<String, Point> tree2 = serializer.read(new ByteArrayInputStream(array),
+                array.length, InternalStructure.SINGLE_ARRAY);
+        SearchPredicate<Geometry> predicate = SearchPredicates
+                .intersects(circle(50, 50, 20));
+        assertEquals(set(tree.search(predicate).toList().toBlocking().single()),
+                set(tree2.search(predicate).toList().toBlocking().single()));
+    }
+
+    @Test
+    public void testFromFuncMatchesEquivalentPredicate() {
+        Random r = new Random(25);
+        RTree<String, Point> tree = RTree.maxChildren(4).create();
+        for (int i = 0; i < 300; i++)
+            tree = tree.add(String.valueOf(i), point(r.nextInt(100), r.nextInt(100)));
+        final Rectangle rect = rectangle(10, 20, 60, 45);
+        assertEquals(tree.search(SearchPredicates.intersects(rect)).toList().toBlocking().single(),
+                tree.search(SearchPredicates.from(RTree.intersects(rect))).toList().toBlocking()
+                        .single());
+    }
+
+    private static <S extends Geometry> void check(RTree<String, S> tree,
+            SearchPredicate<? super S> predicate, Func1<Geometry, Boolean> condition) {
+        Set<Entry<String, S>> expected = new HashSet<Entry<String, S>>();
+        for (Entry<String, S> e : tree.entries().toBlocking().toIterable())
+            if (condition.call(e.geometry()))
+                expected.add(e);
+        assertEquals(expected, set(tree.search(predicate).toList().toBlocking().single()));
+        // backpressure path
+        assertEquals(expected, set(tree.search(predicate).rebatchRequests(1).toList()
+                .toBlocking().single()));
+        final List<Entry<String, S>> found = new ArrayList<Entry<String, S>>();
+        tree.search(predicate, new Action1<Entry<String, S>>() {
+            @Override
+            public void call(Entry<String, S> e) {
+                found.add(e);
+            }
+        });
+        assertEquals(expected, set(found));
+        found.clear();
+        Iterator<Entry<String, S>> it = tree.searchIterator(predicate);
+        while (it.hasNext())
+            found.add(it.next());
+        assertEquals(expected, set(found));
+    }
+
+    private static <T> Set<T> set(List<T> list) {
+        return new HashSet<T>(list);
+    }
+
+}
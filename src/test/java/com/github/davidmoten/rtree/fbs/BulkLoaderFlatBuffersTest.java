@@ -0,0 +1,125 @@
+package com.github.davidmoten.rtree.fbs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.davidmoten.rtree.Entries;
+import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.GreekEarthquakes;
+import com.github.davidmoten.rtree.HasEntryCount;
+import com.github.davidmoten.rtree.InternalStructure;
+import com.github.davidmoten.rtree.Precision;
+import com.github.davidmoten.rtree.RTree;
+import com.github.davidmoten.rtree.Serializer;
+import com.github.davidmoten.rtree.geometry.Geometries;
+import com.github.davidmoten.rtree.geometry.Point;
+import com.github.davidmoten.rtree.geometry.Rectangle;
+
+import rx.functions.Func1;
+
+public class BulkLoaderFlatBuffersTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final Func1<Integer, byte[]> SERIALIZER = new Func1<Integer, byte[]>() {
+        @Override
+        public byte[] call(Integer i) {
+            return ByteBuffer.allocate(4).putInt(i).array();
+        }
+    };
+
+    private static final Func1<byte[], Integer> DESERIALIZER = new Func1<byte[], Integer>() {
+        @Override
+        public Integer call(byte[] bytes) {
+            return ByteBuffer.wrap(bytes).getInt();
+        }
+    };
+
+    @Test
+    public void testSearchMatchesBruteForceWhenRunsSpilled() throws IOException {
+        Random r = new Random(123);
+        List<Entry<Integer, Point>> entries = new ArrayList<Entry<Integer, Point>>();
+        for (int i = 0; i < 10000; i++)
+            entries.add(Entries.entry(i, Geometries.point(r.nextDouble() * 100,
+                    r.nextDouble() * 100)));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        long size = BulkLoaderFlatBuffers.<Integer, Point> serializer(SERIALIZER)
+                .maxChildren(8).runSize(1000).tempDirectory(folder.getRoot())
+                .write(entries, bytes);
+        assertEquals(entries.size(), size);
+        // the spilled runs are deleted
+        assertEquals(0, folder.getRoot().list().length);
+        for (InternalStructure structure : InternalStructure.values()) {
+            RTree<Integer, Point> tree = read(bytes.toByteArray(), structure);
+            assertEquals(entries.size(), tree.size());
+            assertEquals(8, tree.context().maxChildren());
+            if (tree.root().get() instanceof HasEntryCount)
+                assertEquals(tree.size(), ((HasEntryCount) tree.root().get()).entryCount());
+            for (int i = 0; i < 20; i++) {
+                double x = r.nextDouble() * 90;
+                double y = r.nextDouble() * 90;
+                Rectangle rect = Geometries.rectangle(x, y, x + 10, y + 10);
+                Set<Integer> expected = new HashSet<Integer>();
+                for (Entry<Integer, Point> e : entries)
+                    if (rect.intersects(e.geometry().mbr()))
+                        expected.add(e.value());
+                Set<Integer> found = new HashSet<Integer>();
+                for (Entry<Integer, Point> e : tree.search(rect).toBlocking().toIterable())
+                    found.add(e.value());
+                assertEquals(expected, found);
+            }
+        }
+    }
+
+    @Test
+    public void testRoundTripOfSinglePrecisionPointsWithBounds() throws IOException {
+        final List<Entry<Object, Point>> entries = GreekEarthquakes.entries(Precision.SINGLE)
+                .toList().toBlocking().single();
+        List<Entry<Integer, Point>> list = new ArrayList<Entry<Integer, Point>>();
+        for (int i = 0; i < entries.size(); i++)
+            list.add(Entries.entry(i, entries.get(i).geometry()));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BulkLoaderFlatBuffers.<Integer, Point> serializer(SERIALIZER)
+                .bounds(Geometries.rectangle(30, 15, 45, 35)).runSize(5000)
+                .tempDirectory(folder.getRoot()).write(list, bytes);
+        RTree<Integer, Point> tree = read(bytes.toByteArray(), InternalStructure.SINGLE_ARRAY);
+        assertEquals(entries.size(), tree.size());
+        assertFalse(tree.root().get().geometry().mbr().isDoublePrecision());
+        assertEquals(22, (int) tree.search(Geometries.rectangle(40, 27.0, 40.5, 27.5)).count()
+                .toBlocking().single());
+    }
+
+    @Test
+    public void testEmpty() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        long size = BulkLoaderFlatBuffers.<Integer, Point> serializer(SERIALIZER)
+                .write(new ArrayList<Entry<Integer, Point>>(), bytes);
+        assertEquals(0, size);
+        RTree<Integer, Point> tree = read(bytes.toByteArray(), InternalStructure.DEFAULT);
+        assertEquals(0, tree.size());
+        assertFalse(tree.root().isPresent());
+    }
+
+    private static RTree<Integer, Point> read(byte[] bytes, InternalStructure structure)
+            throws IOException {
+        Serializer<Integer, Point> serializer = SerializerFlatBuffers.create(SERIALIZER,
+                DESERIALIZER);
+        return serializer.read(new ByteArrayInputStream(bytes), bytes.length, structure);
+    }
+
+}
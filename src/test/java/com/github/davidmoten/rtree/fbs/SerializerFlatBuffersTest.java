@@ -13,6 +13,7 @@ import org.junit.Test;
 
 import com.github.davidmoten.rtree.Entry;
 import com.github.davidmoten.rtree.GreekEarthquakes;
+import com.github.davidmoten.rtree.HasEntryCount;
 import com.github.davidmoten.rtree.InternalStructure;
 import com.github.davidmoten.rtree.Precision;
 import com.github.davidmoten.rtree.RTree;
@@ -102,6 +103,9 @@ public class SerializerFlatBuffersTest {
         int found = o.count().toBlocking().single();
         System.out.println("found=" + found);
         assertEquals(22, found);
+        assertEquals(22, tr.count(Geometries.rectangle(40, 27.0, 40.5, 27.5)));
+        if (tr.root().get() instanceof HasEntryCount)
+            assertEquals(tr.size(), ((HasEntryCount) tr.root().get()).entryCount());
         System.out.println(tr.size());
     }
 
@@ -0,0 +1,37 @@
+package com.github.davidmoten.rtree.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class HilbertCurveTest {
+
+    @Test
+    public void visitsEveryCellOnceMovingOneCellAtATime() {
+        for (int order = 1; order <= 6; order++) {
+            int n = 1 << order;
+            long[] xs = new long[n * n];
+            long[] ys = new long[n * n];
+            boolean[] seen = new boolean[n * n];
+            for (int x = 0; x < n; x++)
+                for (int y = 0; y < n; y++) {
+                    int d = (int) HilbertCurve.index(order, x, y);
+                    assertTrue(!seen[d]);
+                    seen[d] = true;
+                    xs[d] = x;
+                    ys[d] = y;
+                }
+            for (int d = 1; d < n * n; d++)
+                assertEquals(1, Math.abs(xs[d] - xs[d - 1]) + Math.abs(ys[d] - ys[d - 1]));
+        }
+    }
+
+    @Test
+    public void largestOrderStaysInRange() {
+        long max = (1L << HilbertCurve.MAX_ORDER) - 1;
+        assertTrue(HilbertCurve.index(HilbertCurve.MAX_ORDER, max, 0) < 1L << 62);
+        assertTrue(HilbertCurve.index(HilbertCurve.MAX_ORDER, max, max) >= 0);
+    }
+
+}
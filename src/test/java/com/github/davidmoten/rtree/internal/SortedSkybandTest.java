@@ -0,0 +1,58 @@
+package com.github.davidmoten.rtree.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class SortedSkybandTest {
+
+    @Test
+    public void emptyDominatesNothing() {
+        assertFalse(new SortedSkyband(1).isDominatedByK(0, 0));
+    }
+
+    @Test
+    public void sameLocationDoesNotDominate() {
+        SortedSkyband s = new SortedSkyband(2);
+        s.add(1, 1);
+        s.add(1, 1);
+        assertFalse(s.isDominatedByK(1, 1));
+        s.add(0, 1);
+        assertFalse(s.isDominatedByK(1, 1));
+        s.add(1, 0);
+        assertTrue(s.isDominatedByK(1, 1));
+    }
+
+    @Test
+    public void matchesBruteForceOnRandomData() {
+        Random r = new Random(8);
+        for (int run = 0; run < 50; run++) {
+            int k = 1 + r.nextInt(8);
+            int n = r.nextInt(200);
+            SortedSkyband s = new SortedSkyband(k, 1);
+            double[] xs = new double[n];
+            double[] ys = new double[n];
+            for (int i = 0; i < n; i++) {
+                // coarse grid so that ties and duplicates occur
+                xs[i] = r.nextInt(20);
+                ys[i] = r.nextInt(20);
+                s.add(xs[i], ys[i]);
+                assertEquals(i + 1, s.size());
+                for (int j = 0; j < 20; j++) {
+                    double x = r.nextInt(22) - 1;
+                    double y = r.nextInt(22) - 1;
+                    int count = 0;
+                    for (int m = 0; m <= i; m++)
+                        if (SortedSkyline.dominates(xs[m], ys[m], x, y))
+                            count++;
+                    assertEquals(count >= k, s.isDominatedByK(x, y));
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.github.davidmoten.rtree.internal.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class DoubleHeapTest {
+
+    @Test
+    public void emptyHeapPollReturnsNull() {
+        DoubleHeap<String> h = new DoubleHeap<String>();
+        assertTrue(h.isEmpty());
+        assertNull(h.poll());
+    }
+
+    @Test
+    public void orderedByKeyIncludingSubUnitDifferences() {
+        DoubleHeap<String> h = new DoubleHeap<String>(1);
+        h.add(0.5, "b");
+        h.add(0.25, "a");
+        h.add(0.75, "c");
+        h.add(-1, "z");
+        assertEquals(4, h.size());
+        assertEquals(-1, h.peekKey(), 0);
+        assertEquals("z", h.poll());
+        assertEquals("a", h.poll());
+        assertEquals("b", h.poll());
+        assertEquals("c", h.poll());
+        assertTrue(h.isEmpty());
+    }
+
+    @Test
+    public void equalKeysOrderedByTieBreakKeys() {
+        DoubleHeap<String> h = new DoubleHeap<String>(1, 2);
+        h.add(1, 0.5, 0.1, "c");
+        h.add(1, 0.5, 0.0, "b");
+        h.add(2, 0.0, 0.0, "d");
+        h.add(1, 0.25, 0.9, "a");
+        assertEquals("a", h.poll());
+        assertEquals("b", h.poll());
+        assertEquals("c", h.poll());
+        assertEquals("d", h.poll());
+        assertTrue(h.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addWithoutTieBreakKeysToHeapWithTieBreakKeysThrows() {
+        new DoubleHeap<String>(1, 2).add(1, "a");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addWithTwoTieBreakKeysToHeapWithoutTieBreakKeysThrows() {
+        new DoubleHeap<String>(1).add(1, 0, 0, "a");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addWithWrongNumberOfTieBreakKeysThrows() {
+        new DoubleHeap<String>(1, 3).add(1, new double[] { 0, 0 }, "a");
+    }
+
+    @Test
+    public void randomKeysPolledInAscendingOrder() {
+        Random r = new Random(123);
+        DoubleHeap<Double> h = new DoubleHeap<Double>(4);
+        List<Double> list = new ArrayList<Double>();
+        for (int i = 0; i < 1000; i++) {
+            double d = r.nextDouble();
+            list.add(d);
+            h.add(d, d);
+        }
+        Collections.sort(list);
+        for (Double d : list)
+            assertEquals(d, h.poll());
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.github.davidmoten.rtree.internal.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class DoubleIntHeapTest {
+
+    @Test
+    public void orderedByKeyIncludingSubUnitDifferences() {
+        DoubleIntHeap h = new DoubleIntHeap(1);
+        assertTrue(h.isEmpty());
+        h.add(0.5, 2);
+        h.add(0.25, 1);
+        h.add(0.75, 3);
+        h.add(-1, 0);
+        assertEquals(4, h.size());
+        assertEquals(-1, h.peekKey(), 0);
+        assertEquals(0, h.poll());
+        assertEquals(1, h.poll());
+        assertEquals(2, h.poll());
+        assertEquals(3, h.poll());
+        assertTrue(h.isEmpty());
+    }
+
+    @Test
+    public void randomKeysPolledInAscendingOrder() {
+        Random r = new Random(123);
+        DoubleIntHeap h = new DoubleIntHeap(4);
+        double[] keys = new double[1000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = r.nextDouble();
+            h.add(keys[i], i);
+        }
+        double[] sorted = keys.clone();
+        Arrays.sort(sorted);
+        for (double d : sorted)
+            assertEquals(d, keys[h.poll()], 0);
+        assertTrue(h.isEmpty());
+    }
+
+}
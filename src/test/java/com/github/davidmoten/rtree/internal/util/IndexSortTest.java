@@ -0,0 +1,85 @@
+package com.github.davidmoten.rtree.internal.util;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+public class IndexSortTest {
+
+    @Test
+    public void matchesStableSortOfIndexes() {
+        Random r = new Random(41);
+        for (int run = 0; run < 200; run++) {
+            int n = r.nextInt(500);
+            final double[] keys = new double[n];
+            for (int i = 0; i < n; i++)
+                // few distinct keys so that ties are common
+                keys[i] = r.nextBoolean() ? r.nextInt(10) : r.nextDouble();
+            int from = n == 0 ? 0 : r.nextInt(n);
+            int to = from + (n == from ? 0 : r.nextInt(n - from + 1));
+            int[] index = IndexSort.identity(n);
+            IndexSort.sort(keys, index, from, to);
+            List<Integer> expected = new ArrayList<Integer>();
+            for (int i = from; i < to; i++)
+                expected.add(i);
+            Collections.sort(expected, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer a, Integer b) {
+                    return Double.compare(keys[a], keys[b]);
+                }
+            });
+            int[] e = IndexSort.identity(n);
+            for (int i = from; i < to; i++)
+                e[i] = expected.get(i - from);
+            assertArrayEquals(e, index);
+        }
+    }
+
+    @Test
+    public void parallelSortMatchesSequentialSort() {
+        Random r = new Random(59);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int run = 0; run < 10; run++) {
+                int n = r.nextInt(100000);
+                double[] keys = new double[n];
+                double[] thenKeys = new double[n];
+                for (int i = 0; i < n; i++) {
+                    keys[i] = r.nextInt(100);
+                    thenKeys[i] = r.nextInt(100);
+                }
+                int[] expected = IndexSort.identity(n);
+                IndexSort.sort(keys, thenKeys, expected, 0, n);
+                int[] index = IndexSort.identity(n);
+                IndexSort.sort(keys, thenKeys, index, pool);
+                assertArrayEquals(expected, index);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void sortsSortedAndReversedInput() {
+        int n = 10000;
+        double[] keys = new double[n];
+        for (int i = 0; i < n; i++)
+            keys[i] = n - i;
+        int[] index = IndexSort.identity(n);
+        IndexSort.sort(keys, index, 0, n);
+        int[] expected = new int[n];
+        for (int i = 0; i < n; i++)
+            expected[i] = n - 1 - i;
+        assertArrayEquals(expected, index);
+        IndexSort.sort(keys, index, 0, n);
+        assertArrayEquals(expected, index);
+    }
+
+}
@@ -0,0 +1,142 @@
+package com.github.davidmoten.rtree.multi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class RTreeTest {
+
+    @Test
+    public void testEmptyTree() {
+        RTree<Integer> tree = RTree.create(4);
+        assertTrue(tree.isEmpty());
+        assertEquals(0, tree.size());
+        assertTrue(tree.skyline().isEmpty().toBlocking().single());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddPointWithWrongDimensionsThrows() {
+        RTree.<Integer>create(3).add(1, Point.create(1, 2));
+    }
+
+    @Test
+    public void testAddDeleteAndSearchMatchBruteForce() {
+        Random r = new Random(1);
+        List<Entry<Integer>> entries = randomEntries(r, 4, 1000);
+        RTree<Integer> tree = RTree.dimensions(4).maxChildren(6).<Integer>create().add(entries);
+        assertEquals(1000, tree.size());
+        checkSearches(r, tree, entries);
+        List<Entry<Integer>> remaining = new ArrayList<Entry<Integer>>(entries);
+        for (int i = 0; i < 600; i++) {
+            Entry<Integer> entry = remaining.remove(r.nextInt(remaining.size()));
+            tree = tree.delete(entry);
+        }
+        assertEquals(400, tree.size());
+        checkSearches(r, tree, remaining);
+        assertEquals(tree, tree.delete(Entry.entry(-1, Point.create(0, 0, 0, 0))));
+    }
+
+    @Test
+    public void testBulkLoadedTreeMatchesBruteForce() {
+        Random r = new Random(2);
+        List<Entry<Integer>> entries = randomEntries(r, 5, 2000);
+        RTree<Integer> tree = RTree.dimensions(5).maxChildren(10).create(entries);
+        assertEquals(2000, tree.size());
+        checkSearches(r, tree, entries);
+        assertEquals(2001, tree.add(-1, Point.create(1, 2, 3, 4, 5)).size());
+    }
+
+    @Test
+    public void testSkylineMatchesBruteForce() {
+        Random r = new Random(3);
+        for (int run = 0; run < 20; run++) {
+            int d = 2 + r.nextInt(5);
+            List<Entry<Integer>> entries = randomEntries(r, d, 1 + r.nextInt(1000));
+            RTree<Integer> tree = RTree.dimensions(d).maxChildren(4 + r.nextInt(8)).create(entries);
+            Set<Entry<Integer>> expected = new HashSet<Entry<Integer>>();
+            for (Entry<Integer> a : entries) {
+                boolean dominated = false;
+                for (Entry<Integer> b : entries)
+                    dominated |= dominates(b.point(), a.point());
+                if (!dominated)
+                    expected.add(a);
+            }
+            List<Entry<Integer>> skyline = tree.skyline().toList().toBlocking().single();
+            assertEquals(expected.size(), skyline.size());
+            assertEquals(expected, new HashSet<Entry<Integer>>(skyline));
+        }
+    }
+
+    @Test
+    public void testSkylineExcludesDominatedEntryWithEqualCoordinateSum() {
+        // 0.1 + 0.2 and 0.1 + nextUp(0.2) round to the same double
+        Entry<Integer> q = Entry.entry(1, Point.create(0.1, Math.nextUp(0.2), 0));
+        Entry<Integer> p = Entry.entry(2, Point.create(0.1, 0.2, 0));
+        RTree<Integer> tree = RTree.<Integer>create(3).add(q).add(p);
+        assertEquals(Collections.singletonList(p), tree.skyline().toList().toBlocking().single());
+    }
+
+    @Test
+    public void testEntriesAndSearchSupportTake() {
+        Random r = new Random(4);
+        List<Entry<Integer>> entries = randomEntries(r, 3, 1000);
+        RTree<Integer> tree = RTree.dimensions(3).maxChildren(4).<Integer>create().add(entries);
+        List<Entry<Integer>> all = tree.entries().toList().toBlocking().single();
+        assertEquals(new HashSet<Entry<Integer>>(entries), new HashSet<Entry<Integer>>(all));
+        assertEquals(all.subList(0, 3), tree.entries().take(3).toList().toBlocking().single());
+        Box box = Box.create(new double[] { 0, 0, 0 }, new double[] { 15, 15, 15 });
+        List<Entry<Integer>> found = tree.search(box).toList().toBlocking().single();
+        assertTrue(found.size() > 2);
+        assertEquals(found.subList(0, 2), tree.search(box).take(2).toList().toBlocking().single());
+    }
+
+    private static void checkSearches(Random r, RTree<Integer> tree, List<Entry<Integer>> entries) {
+        int d = tree.dimensions();
+        for (int i = 0; i < 20; i++) {
+            double[] mins = new double[d];
+            double[] maxes = new double[d];
+            for (int j = 0; j < d; j++) {
+                mins[j] = r.nextInt(20);
+                maxes[j] = mins[j] + r.nextInt(20);
+            }
+            Box box = Box.create(mins, maxes);
+            Set<Entry<Integer>> expected = new HashSet<Entry<Integer>>();
+            for (Entry<Integer> e : entries)
+                if (box.contains(e.point()))
+                    expected.add(e);
+            assertEquals(expected, new HashSet<Entry<Integer>>(tree.search(box).toList().toBlocking().single()));
+        }
+    }
+
+    private static List<Entry<Integer>> randomEntries(Random r, int dimensions, int n) {
+        List<Entry<Integer>> entries = new ArrayList<Entry<Integer>>();
+        for (int i = 0; i < n; i++) {
+            double[] values = new double[dimensions];
+            for (int j = 0; j < dimensions; j++)
+                // coarse grid so that ties and duplicates occur
+                values[j] = r.nextInt(30);
+            entries.add(Entry.entry(i, Point.create(values)));
+        }
+        return entries;
+    }
+
+    private static boolean dominates(Point a, Point b) {
+        boolean equal = true;
+        for (int i = 0; i < a.dimensions(); i++) {
+            if (a.value(i) > b.value(i))
+                return false;
+            else if (a.value(i) < b.value(i))
+                equal = false;
+        }
+        return !equal;
+    }
+
+}
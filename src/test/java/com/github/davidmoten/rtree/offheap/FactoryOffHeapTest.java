@@ -0,0 +1,99 @@
+package com.github.davidmoten.rtree.offheap;
+
+import static com.github.davidmoten.rtree.geometry.Geometries.point;
+import static com.github.davidmoten.rtree.geometry.Geometries.rectangle;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.Node;
+import com.github.davidmoten.rtree.NonLeaf;
+import com.github.davidmoten.rtree.RTree;
+import com.github.davidmoten.rtree.geometry.Point;
+import com.github.davidmoten.rtree.geometry.Rectangle;
+
+import rx.Observable;
+
+public class FactoryOffHeapTest {
+
+    @Test
+    public void testSearchesMatchDefaultFactory() {
+        Random r = new Random(25);
+        OffHeapStore store = new OffHeapStore(256);
+        RTree<Integer, Point> a = RTree.maxChildren(6).create();
+        RTree<Integer, Point> b = RTree.maxChildren(6).factory(new FactoryOffHeap<Integer>(store))
+                .create();
+        for (int i = 0; i < 1000; i++) {
+            Point p = r.nextBoolean() ? point(r.nextInt(100), r.nextInt(100))
+                    : point((float) r.nextInt(100), (float) r.nextInt(100));
+            a = a.add(i, p);
+            b = b.add(i, p);
+        }
+        for (int i = 0; i < 200; i++) {
+            Entry<Integer, Point> e = a.entries().skip(r.nextInt(a.size())).toBlocking().first();
+            a = a.delete(e);
+            b = b.delete(e);
+        }
+        assertEquals(a.size(), b.size());
+        assertEquals(a.mbr().get(), b.mbr().get());
+        assertEquals(list(a.entries()), list(b.entries()));
+        for (int i = 0; i < 20; i++) {
+            double x = r.nextInt(100);
+            double y = r.nextInt(100);
+            Rectangle query = rectangle(x, y, x + r.nextInt(30), y + r.nextInt(30));
+            assertEquals(list(a.search(query)), list(b.search(query)));
+            assertEquals(list(a.search(query).rebatchRequests(1)),
+                    list(b.search(query).rebatchRequests(1)));
+            assertEquals(list(a.nearest(query, 20, 10)), list(b.nearest(query, 20, 10)));
+        }
+    }
+
+    @Test
+    public void testRetainOnlyReleasesSlotsOfDiscardedVersions() {
+        Random r = new Random(26);
+        OffHeapStore store = new OffHeapStore();
+        RTree<Integer, Point> tree = RTree.maxChildren(4)
+                .factory(new FactoryOffHeap<Integer>(store)).create();
+        for (int i = 0; i < 500; i++)
+            tree = tree.add(i, point(r.nextDouble(), r.nextDouble()));
+        assertTrue(store.slotsInUse() > nodeCount(tree.root().get()));
+        List<Entry<Integer, Point>> entries = list(tree.entries());
+        store.retainOnly(tree);
+        assertEquals(nodeCount(tree.root().get()), store.slotsInUse());
+        assertEquals(entries, list(tree.entries()));
+
+        // released slots are reused before any more direct memory is allocated
+        long bytes = store.bytesAllocated();
+        RTree<Integer, Point> tree2 = tree.delete(entries.get(0)).add(1000, point(0.5, 0.5));
+        assertEquals(bytes, store.bytesAllocated());
+
+        // retaining both versions keeps the nodes they share once only
+        store.retainOnly(tree, tree2);
+        assertTrue(store.slotsInUse() < nodeCount(tree.root().get())
+                + nodeCount(tree2.root().get()));
+        assertEquals(entries, list(tree.entries()));
+        assertEquals(tree.size(), tree2.size());
+        store.retainOnly();
+        assertEquals(0, store.slotsInUse());
+    }
+
+    private static int nodeCount(Node<?, ?> node) {
+        int count = 1;
+        if (node instanceof NonLeaf) {
+            NonLeaf<?, ?> nonLeaf = (NonLeaf<?, ?>) node;
+            for (int i = 0; i < nonLeaf.count(); i++)
+                count += nodeCount(nonLeaf.child(i));
+        }
+        return count;
+    }
+
+    private static <T> List<T> list(Observable<T> o) {
+        return o.toList().toBlocking().single();
+    }
+
+}
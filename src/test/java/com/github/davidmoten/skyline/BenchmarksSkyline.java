@@ -0,0 +1,130 @@
+package com.github.davidmoten.skyline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.github.davidmoten.rtree.Entries;
+import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.RTree;
+import com.github.davidmoten.rtree.geometry.Point;
+
+/**
+ * Skyline benchmarks over the standard synthetic distributions. The full
+ * skyline by BBS over the R-tree is compared with block-nested-loops and
+ * sort-filter-skyline over a list, and the cost of maintaining a skyline under
+ * inserts and deletes is measured separately.
+ *
+ * 10^7 points need a larger heap than the benchmark profile gives so that size
+ * is run on its own, for example with {@code -p n=10000000 -jvmArgs -Xmx4g}.
+ */
+@State(Scope.Benchmark)
+public class BenchmarksSkyline {
+
+    private static final long SEED = 1234;
+
+    // number of prepared updates that the update benchmarks cycle through
+    private static final int UPDATES = 64;
+
+    @Param({ "10000", "100000", "1000000" })
+    public int n;
+
+    @Param({ "CORRELATED", "INDEPENDENT", "ANTI_CORRELATED" })
+    public String distribution;
+
+    private List<Entry<Object, Point>> entries;
+    private RTree<Object, Point> tree;
+    private SkylineIndex<Object> index;
+    private List<Entry<Object, Point>> skyline;
+    private List<Entry<Object, Point>> inserts;
+    private List<Entry<Object, Point>> deletes;
+    private List<RTree<Object, Point>> treesAfterDelete;
+    private int update;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SkylineData data = SkylineData.valueOf(distribution);
+        entries = data.entries(n, SEED);
+        tree = RTree.create(entries);
+        index = SkylineIndex.create(tree);
+        skyline = index.skyline();
+        Random r = new Random(SEED + 1);
+        inserts = new ArrayList<>();
+        for (int i = 0; i < UPDATES; i++)
+            inserts.add(Entries.<Object, Point> entry(n + i, data.point(r)));
+        // deleting skyline points is the expensive case
+        deletes = new ArrayList<>();
+        treesAfterDelete = new ArrayList<>();
+        for (int i = 0; i < UPDATES; i++) {
+            Entry<Object, Point> e = skyline.get(r.nextInt(skyline.size()));
+            deletes.add(e);
+            treesAfterDelete.add(tree.delete(e));
+        }
+    }
+
+    @Benchmark
+    public List<Entry<Object, Point>> skylineBranchAndBound() {
+        Skyline<Object> s = new Skyline<>(tree);
+        s.findSkylinePoints();
+        return s.getSkyLinePoints();
+    }
+
+    @Benchmark
+    public List<Entry<Object, Point>> skylineRTreeObservable() {
+        return tree.skyline().toList().toBlocking().single();
+    }
+
+    @Benchmark
+    public List<Entry<Object, Point>> skylineBlockNestedLoops() {
+        return SkylineBaselines.blockNestedLoops(entries);
+    }
+
+    @Benchmark
+    public List<Entry<Object, Point>> skylineSortFilterAlgorithm() {
+        return SkylineAlgorithm.sortFilter().skyline(entries);
+    }
+
+    @Benchmark
+    public List<Entry<Object, Point>> skylineDivideAndConquerAlgorithm() {
+        return SkylineAlgorithm.divideAndConquer(ForkJoinPool.commonPool()).skyline(entries);
+    }
+
+    @Benchmark
+    public SkylineIndex<Object> skylineIndexInsert() {
+        return index.add(inserts.get(nextUpdate()));
+    }
+
+    @Benchmark
+    public SkylineIndex<Object> skylineIndexDelete() {
+        return index.delete(deletes.get(nextUpdate()));
+    }
+
+    @Benchmark
+    public List<Entry<Object, Point>> skylineUpdateInsert() {
+        List<Entry<Object, Point>> list = new ArrayList<>(skyline);
+        SkylineUpdate.insert(list, inserts.get(nextUpdate()));
+        return list;
+    }
+
+    @Benchmark
+    public List<Entry<Object, Point>> skylineUpdateDelete() {
+        int i = nextUpdate();
+        List<Entry<Object, Point>> list = new ArrayList<>(skyline);
+        SkylineUpdate.delete(treesAfterDelete.get(i), list, deletes.get(i));
+        return list;
+    }
+
+    private int nextUpdate() {
+        update = (update + 1) % UPDATES;
+        return update;
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.github.davidmoten.skyline;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.RTree;
+import com.github.davidmoten.rtree.geometry.Point;
+
+public class PointColumnsTest {
+
+    @Test
+    public void roundTripsDoublesWithValues() throws IOException {
+        Random r = new Random(47);
+        int n = 100000;
+        double[] x = new double[n];
+        double[] y = new double[n];
+        long[] values = new long[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = r.nextGaussian();
+            y[i] = r.nextGaussian();
+            values[i] = r.nextLong();
+        }
+        Path path = File.createTempFile("points", ".bin").toPath();
+        try {
+            PointColumns.of(x, y, values).write(path, false);
+            assertEquals(20 + 24L * n, Files.size(path));
+            PointColumns c = PointColumns.read(path);
+            assertArrayEquals(x, c.x(), 0);
+            assertArrayEquals(y, c.y(), 0);
+            assertArrayEquals(values, c.values());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void roundTripsFloatsWithoutValues() throws IOException {
+        double[] x = { 1.5, -2.25, 1e-3 };
+        double[] y = { 0, 3, 1e10 };
+        Path path = File.createTempFile("points", ".bin").toPath();
+        try {
+            PointColumns.of(x, y).write(path, true);
+            assertEquals(20 + 8L * x.length, Files.size(path));
+            PointColumns c = PointColumns.read(path);
+            assertFalse(c.hasValues());
+            assertNull(c.values());
+            for (int i = 0; i < x.length; i++) {
+                assertEquals((float) x[i], c.x()[i], 0);
+                assertEquals((float) y[i], c.y()[i], 0);
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherFiles() throws IOException {
+        Path path = File.createTempFile("points", ".txt").toPath();
+        try {
+            Files.write(path, "1 2\n3 4\n5 6\n7 8\n".getBytes("US-ASCII"));
+            PointColumns.read(path);
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void loadsTreeWithIndexValuesAndSameSkyline() {
+        List<Entry<Object, Point>> entries = SkylineData.ANTI_CORRELATED.entries(20000, 5);
+        PointColumns c = PointColumns.from(entries);
+        RTree<Long, Point> tree = c.toRTree();
+        assertEquals(entries.size(), tree.size());
+        for (Entry<Long, Point> e : tree.entries().toBlocking().toIterable()) {
+            assertEquals(entries.get(e.value().intValue()).geometry(), e.geometry());
+        }
+        Skyline<Long> skyline = new Skyline<>(tree);
+        skyline.findSkylinePoints();
+        assertEquals(SkylineAlgorithm.sortFilter().skyline(entries).size(), skyline.getSkyLinePoints().size());
+    }
+
+}
@@ -0,0 +1,147 @@
+package com.github.davidmoten.skyline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.geometry.Point;
+
+public class PointFileParserTest {
+
+    @Test
+    public void matchesLineByLineParsingOfDataset() throws IOException {
+        Path path = Paths.get("src/main/resource/dataset1.txt");
+        assertSamePoints(readLineByLine(path), points(PointFileParser.read(path)));
+    }
+
+    @Test
+    public void parsesNumbersExactlyAcrossChunkBoundaries() throws IOException {
+        Random r = new Random(37);
+        StringBuilder s = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            s.append(number(r)).append(' ').append(number(r));
+            s.append(r.nextInt(10) == 0 ? "\r\n" : "\n");
+        }
+        Path path = write(s.toString());
+        try {
+            List<double[]> expected = readLineByLine(path);
+            ForkJoinPool pool = new ForkJoinPool(4);
+            try {
+                for (int chunkSize : new int[] { 1, 7, 100, 4096, PointFileParser.DEFAULT_CHUNK_SIZE }) {
+                    assertSamePoints(expected, points(PointFileParser.read(path, pool, chunkSize)));
+                }
+            } finally {
+                pool.shutdown();
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void skipsLinesWithoutExactlyTwoNumbers() throws IOException {
+        Path path = write("1 2\n\n3\n4 5 6\nabc 7\n8 1e\n-9.5 +1.25E2\n.5 1.\n- 1\n10 11");
+        try {
+            List<double[]> points = points(PointFileParser.read(path));
+            assertEquals(4, points.size());
+            assertEquals(-9.5, points.get(1)[0], 0);
+            assertEquals(125, points.get(1)[1], 0);
+            assertEquals(0.5, points.get(2)[0], 0);
+            assertEquals(1, points.get(2)[1], 0);
+            assertEquals(11, points.get(3)[1], 0);
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void parsesFormsAcceptedByParseDouble() throws IOException {
+        Path path = write("NaN -Infinity\n1.5d 2f\n0x1p3 +Infinity\nNaNa 1\n1.5dd 2\n");
+        try {
+            List<double[]> points = points(PointFileParser.read(path));
+            assertEquals(3, points.size());
+            assertTrue(Double.isNaN(points.get(0)[0]));
+            assertEquals(Double.NEGATIVE_INFINITY, points.get(0)[1], 0);
+            assertEquals(1.5, points.get(1)[0], 0);
+            assertEquals(2, points.get(1)[1], 0);
+            assertEquals(8, points.get(2)[0], 0);
+            assertEquals(Double.POSITIVE_INFINITY, points.get(2)[1], 0);
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void emptyFileHasNoEntries() throws IOException {
+        Path path = write("");
+        try {
+            assertEquals(0, PointFileParser.read(path).size());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    private static void assertSamePoints(List<double[]> expected, List<double[]> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i)[0], actual.get(i)[0], 0);
+            assertEquals(expected.get(i)[1], actual.get(i)[1], 0);
+        }
+    }
+
+    private static String number(Random r) {
+        switch (r.nextInt(5)) {
+        case 0:
+            return Double.toString(r.nextDouble());
+        case 1:
+            return Double.toString(-r.nextGaussian() * 1e-7);
+        case 2:
+            return Double.toString(r.nextDouble() * 1e300);
+        case 3:
+            return String.valueOf(r.nextInt(100000));
+        default:
+            return String.format("%.2f", r.nextDouble() * 100);
+        }
+    }
+
+    private static Path write(String s) throws IOException {
+        File file = File.createTempFile("points", ".txt");
+        Files.write(file.toPath(), s.getBytes(StandardCharsets.US_ASCII));
+        return file.toPath();
+    }
+
+    private static List<double[]> readLineByLine(Path path) throws IOException {
+        List<double[]> list = new ArrayList<>();
+        try (BufferedReader br = Files.newBufferedReader(path, StandardCharsets.US_ASCII)) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                String[] item = line.split(" ");
+                if (item.length == 2)
+                    list.add(new double[] { Double.parseDouble(item[0]), Double.parseDouble(item[1]) });
+            }
+        }
+        return list;
+    }
+
+    private static List<double[]> points(List<Entry<Object, Point>> entries) {
+        List<double[]> list = new ArrayList<>();
+        for (Entry<Object, Point> e : entries)
+            list.add(new double[] { e.geometry().x(), e.geometry().y() });
+        return list;
+    }
+
+}
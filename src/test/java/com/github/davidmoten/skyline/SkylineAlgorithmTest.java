@@ -0,0 +1,89 @@
+package com.github.davidmoten.skyline;
+
+import static com.github.davidmoten.skyline.SkylineTest.bruteForce;
+import static com.github.davidmoten.skyline.SkylineTest.randomEntries;
+import static com.github.davidmoten.skyline.SkylineTest.values;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import com.github.davidmoten.rtree.Entries;
+import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.RTree;
+import com.github.davidmoten.rtree.geometry.Geometries;
+import com.github.davidmoten.rtree.geometry.Point;
+
+public class SkylineAlgorithmTest {
+
+    @Test
+    public void emptyBatchHasEmptySkyline() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            for (SkylineAlgorithm algorithm : algorithms(pool)) {
+                assertTrue(algorithm.skyline(new ArrayList<Entry<Integer, Point>>()).isEmpty());
+                assertTrue(algorithm.skyline(RTree.<Integer, Point> create()).isEmpty());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void allAlgorithmsMatchBruteForce() {
+        Random r = new Random(31);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int run = 0; run < 10; run++) {
+                // large enough for divide-and-conquer to split
+                List<Entry<Integer, Point>> entries = randomEntries(r, 1 + r.nextInt(20000));
+                List<Integer> expected = values(bruteForce(entries));
+                RTree<Integer, Point> tree = RTree.create(entries);
+                for (SkylineAlgorithm algorithm : algorithms(pool)) {
+                    List<Entry<Integer, Point>> skyline = algorithm.skyline(entries);
+                    assertEquals(expected, values(skyline));
+                    assertAscendingX(skyline);
+                    assertEquals(expected, values(algorithm.skyline(tree)));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void sortFilterHandlesEqualSums() {
+        List<Entry<Integer, Point>> entries = new ArrayList<>();
+        // 0.1 + 0.2 and 0.1 + nextUp(0.2) round to the same double and the
+        // dominated point is added first
+        entries.add(Entries.entry(1, Geometries.point(0.1, Math.nextUp(0.2))));
+        entries.add(Entries.entry(2, Geometries.point(0.1, 0.2)));
+        // exact duplicates are all in the skyline
+        entries.add(Entries.entry(3, Geometries.point(0, 1)));
+        entries.add(Entries.entry(4, Geometries.point(0, 1)));
+        // equal sums with neither point dominating the other
+        entries.add(Entries.entry(5, Geometries.point(-1, 2)));
+        entries.add(Entries.entry(6, Geometries.point(2, -1)));
+        List<Entry<Integer, Point>> skyline = SkylineAlgorithm.sortFilter().skyline(entries);
+        assertEquals(values(bruteForce(entries)), values(skyline));
+        assertEquals(Arrays.asList(5, 3, 4, 2, 6), values(skyline));
+        assertAscendingX(skyline);
+    }
+
+    private static List<SkylineAlgorithm> algorithms(ForkJoinPool pool) {
+        return Arrays.asList(SkylineAlgorithm.sortFilter(), SkylineAlgorithm.divideAndConquer(pool),
+                SkylineAlgorithm.branchAndBound(), SkylineAlgorithm.auto());
+    }
+
+    private static void assertAscendingX(List<Entry<Integer, Point>> skyline) {
+        for (int i = 1; i < skyline.size(); i++)
+            assertTrue(skyline.get(i - 1).geometry().x() <= skyline.get(i).geometry().x());
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.github.davidmoten.skyline;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.geometry.Point;
+
+/**
+ * Index-free skyline algorithms that the R-tree BBS search is benchmarked
+ * against.
+ */
+final class SkylineBaselines {
+
+    private SkylineBaselines() {
+        // prevent instantiation
+    }
+
+    /**
+     * Block-nested-loops (Borzsonyi et al. 2001) with an unbounded window:
+     * every point is compared with the window, dominated window members are
+     * evicted and the point joins the window unless it is dominated itself.
+     */
+    static <T> List<Entry<T, Point>> blockNestedLoops(List<Entry<T, Point>> entries) {
+        List<Entry<T, Point>> window = new ArrayList<>();
+        for (Entry<T, Point> e : entries) {
+            Point p = e.geometry();
+            boolean dominated = false;
+            Iterator<Entry<T, Point>> it = window.iterator();
+            while (it.hasNext()) {
+                Point w = it.next().geometry();
+                if (Skyline.judgeIfDominate(w.x(), w.y(), p.x(), p.y())) {
+                    dominated = true;
+                    break;
+                } else if (Skyline.judgeIfDominate(p.x(), p.y(), w.x(), w.y())) {
+                    it.remove();
+                }
+            }
+            if (!dominated)
+                window.add(e);
+        }
+        return window;
+    }
+
+    /**
+     * Sort-filter-skyline (Chomicki et al. 2003): after sorting by x + y then x
+     * then y no point can dominate one before it so the window only ever grows
+     * and a point is in the skyline if no window member dominates it.
+     */
+    static <T> List<Entry<T, Point>> sortFilterSkyline(List<Entry<T, Point>> entries) {
+        List<Entry<T, Point>> sorted = new ArrayList<>(entries);
+        // x + y can round to the same double for a point and a point it
+        // dominates so ties are broken by x then y
+        sorted.sort(Comparator.<Entry<T, Point>> comparingDouble(e -> e.geometry().x() + e.geometry().y())
+                .thenComparingDouble(e -> e.geometry().x()).thenComparingDouble(e -> e.geometry().y()));
+        List<Entry<T, Point>> window = new ArrayList<>();
+        for (Entry<T, Point> e : sorted) {
+            Point p = e.geometry();
+            boolean dominated = false;
+            for (Entry<T, Point> w : window) {
+                if (Skyline.judgeIfDominate(w.geometry().x(), w.geometry().y(), p.x(), p.y())) {
+                    dominated = true;
+                    break;
+                }
+            }
+            if (!dominated)
+                window.add(e);
+        }
+        return window;
+    }
+
+}
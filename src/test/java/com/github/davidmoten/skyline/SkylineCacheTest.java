@@ -0,0 +1,69 @@
+package com.github.davidmoten.skyline;
+
+import static com.github.davidmoten.skyline.SkylineTest.bruteForce;
+import static com.github.davidmoten.skyline.SkylineTest.randomEntries;
+import static com.github.davidmoten.skyline.SkylineTest.values;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.github.davidmoten.rtree.Entries;
+import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.RTree;
+import com.github.davidmoten.rtree.geometry.Geometries;
+import com.github.davidmoten.rtree.geometry.Point;
+
+public class SkylineCacheTest {
+
+    @Test
+    public void emptyTreeHasEmptySkyline() {
+        assertTrue(SkylineCache.<Integer> create().skyline(RTree.<Integer, Point> create()).isEmpty());
+    }
+
+    @Test
+    public void matchesBruteForceAcrossUpdates() {
+        Random r = new Random(23);
+        SkylineCache<Integer> cache = SkylineCache.create();
+        List<Entry<Integer, Point>> entries = randomEntries(r, 2000);
+        RTree<Integer, Point> tree = RTree.maxChildren(8).<Integer, Point> create().add(entries);
+        assertEquals(values(bruteForce(entries)), values(cache.skyline(tree)));
+        for (int i = 0; i < 200; i++) {
+            if (r.nextBoolean()) {
+                Entry<Integer, Point> e = Entries.entry(2000 + i,
+                        Geometries.point(r.nextInt(200) / 4.0, r.nextInt(200) / 4.0));
+                entries.add(e);
+                tree = tree.add(e);
+            } else {
+                tree = tree.delete(entries.remove(r.nextInt(entries.size())));
+            }
+            Skyline<Integer> skyline = new Skyline<>(tree).cached(cache);
+            skyline.findSkylinePoints();
+            assertEquals(values(bruteForce(entries)), values(skyline.getSkyLinePoints()));
+            // the cache merges subtree skylines so nothing is pruned
+            assertEquals(0, skyline.getPrunedNodeCount());
+            assertEquals(0, skyline.getPrunedEntryCount());
+        }
+    }
+
+    @Test
+    public void onlyReplacedNodesAreEvaluatedAfterAdd() {
+        Random r = new Random(29);
+        SkylineCache<Integer> cache = SkylineCache.create();
+        List<Entry<Integer, Point>> entries = randomEntries(r, 10000);
+        RTree<Integer, Point> tree = RTree.maxChildren(8).<Integer, Point> create().add(entries);
+        cache.skyline(tree);
+        for (int i = 0; i < 20; i++) {
+            tree = tree.add(Entries.entry(10000 + i, Geometries.point(r.nextInt(50), r.nextInt(50))));
+            long misses = cache.misses();
+            cache.skyline(tree);
+            // the path to the new entry and at most one sibling per level
+            // after splits
+            assertTrue(cache.misses() - misses <= 2 * tree.calculateDepth() + 1);
+        }
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.github.davidmoten.skyline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.github.davidmoten.rtree.Entries;
+import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.geometry.Geometries;
+import com.github.davidmoten.rtree.geometry.Point;
+
+/**
+ * The standard synthetic skyline workloads (Borzsonyi, Kossmann, Stocker 2001)
+ * in the unit square. The skyline of correlated data is tiny, of independent
+ * data logarithmic in n and of anti-correlated data a large fraction of n.
+ */
+enum SkylineData {
+
+    CORRELATED {
+        @Override
+        Point point(Random r) {
+            // near the diagonal
+            while (true) {
+                double v = 0.5 + 0.15 * r.nextGaussian();
+                double d = 0.05 * r.nextGaussian();
+                double x = v + d;
+                double y = v - d;
+                if (inUnitSquare(x, y))
+                    return Geometries.point(x, y);
+            }
+        }
+    },
+
+    INDEPENDENT {
+        @Override
+        Point point(Random r) {
+            return Geometries.point(r.nextDouble(), r.nextDouble());
+        }
+    },
+
+    ANTI_CORRELATED {
+        @Override
+        Point point(Random r) {
+            // spread along a line x + y = c with c close to 1
+            while (true) {
+                double c = 1 + 0.05 * r.nextGaussian();
+                double u = r.nextDouble();
+                double x = c * u;
+                double y = c - x;
+                if (inUnitSquare(x, y))
+                    return Geometries.point(x, y);
+            }
+        }
+    };
+
+    abstract Point point(Random r);
+
+    /**
+     * Returns {@code n} entries with values 0 to n - 1 generated from
+     * {@code seed}.
+     */
+    List<Entry<Object, Point>> entries(int n, long seed) {
+        Random r = new Random(seed);
+        List<Entry<Object, Point>> list = new ArrayList<>(n);
+        for (int i = 0; i < n; i++)
+            list.add(Entries.<Object, Point> entry(i, point(r)));
+        return list;
+    }
+
+    private static boolean inUnitSquare(double x, double y) {
+        return x >= 0 && x < 1 && y >= 0 && y < 1;
+    }
+
+}
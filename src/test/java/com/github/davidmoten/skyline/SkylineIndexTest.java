@@ -0,0 +1,91 @@
+package com.github.davidmoten.skyline;
+
+import static com.github.davidmoten.skyline.SkylineTest.bruteForce;
+import static com.github.davidmoten.skyline.SkylineTest.randomEntries;
+import static com.github.davidmoten.skyline.SkylineTest.values;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.github.davidmoten.rtree.Entries;
+import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.RTree;
+import com.github.davidmoten.rtree.geometry.Geometries;
+import com.github.davidmoten.rtree.geometry.Point;
+
+public class SkylineIndexTest {
+
+    @Test
+    public void emptyIndex() {
+        SkylineIndex<Integer> index = SkylineIndex.create();
+        assertEquals(0, index.skylineSize());
+        assertEquals(0, index.tree().size());
+    }
+
+    @Test
+    public void insertRemovesDominatedAndKeepsOldVersion() {
+        SkylineIndex<Integer> a = SkylineIndex.<Integer>create().add(1, Geometries.point(1, 5))
+                .add(2, Geometries.point(3, 3)).add(3, Geometries.point(5, 1));
+        SkylineIndex<Integer> b = a.add(4, Geometries.point(2, 2));
+        assertEquals(3, a.skylineSize());
+        assertEquals(Arrays.asList(1, 2, 3), valuesInOrder(a.skyline()));
+        assertEquals(Arrays.asList(1, 4, 3), valuesInOrder(b.skyline()));
+    }
+
+    @Test
+    public void deleteOfMissingEntryReturnsSameIndex() {
+        SkylineIndex<Integer> a = SkylineIndex.<Integer>create().add(1, Geometries.point(1, 5));
+        assertSame(a, a.delete(Entries.entry(2, Geometries.point(1, 5))));
+    }
+
+    @Test
+    public void deleteSkylinePointExposesExclusiveRegion() {
+        SkylineIndex<Integer> a = SkylineIndex.<Integer>create().add(1, Geometries.point(1, 5))
+                .add(2, Geometries.point(3, 3)).add(3, Geometries.point(5, 1))
+                .add(4, Geometries.point(4, 4)).add(5, Geometries.point(3.5, 3.5))
+                .add(6, Geometries.point(6, 6));
+        SkylineIndex<Integer> b = a.delete(Entries.entry(2, Geometries.point(3, 3)));
+        assertEquals(Arrays.asList(1, 5, 3), valuesInOrder(b.skyline()));
+    }
+
+    @Test
+    public void randomUpdatesMatchBruteForce() {
+        Random r = new Random(11);
+        for (int run = 0; run < 10; run++) {
+            List<Entry<Integer, Point>> entries = randomEntries(r, 300);
+            List<Entry<Integer, Point>> present = new ArrayList<>();
+            SkylineIndex<Integer> index = SkylineIndex
+                    .create(RTree.<Integer, Point>create().add(entries.subList(0, 100)));
+            present.addAll(entries.subList(0, 100));
+            for (Entry<Integer, Point> e : entries.subList(100, entries.size())) {
+                if (r.nextInt(3) == 0 && !present.isEmpty()) {
+                    // delete a skyline point half of the time
+                    List<Entry<Integer, Point>> sky = index.skyline();
+                    Entry<Integer, Point> d = r.nextBoolean()
+                            ? sky.get(r.nextInt(sky.size()))
+                            : present.get(r.nextInt(present.size()));
+                    index = index.delete(d);
+                    present.remove(d);
+                } else {
+                    index = index.add(e);
+                    present.add(e);
+                }
+                assertEquals(values(bruteForce(present)), values(index.skyline()));
+            }
+        }
+    }
+
+    private static List<Integer> valuesInOrder(List<Entry<Integer, Point>> list) {
+        List<Integer> result = new ArrayList<>();
+        for (Entry<Integer, Point> e : list)
+            result.add(e.value());
+        return result;
+    }
+
+}
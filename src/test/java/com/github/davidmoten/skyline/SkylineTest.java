@@ -0,0 +1,238 @@
+package com.github.davidmoten.skyline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import com.github.davidmoten.rtree.Entries;
+import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.Preference;
+import com.github.davidmoten.rtree.RTree;
+import com.github.davidmoten.rtree.geometry.Geometries;
+import com.github.davidmoten.rtree.geometry.Point;
+import com.github.davidmoten.rtree.geometry.Rectangle;
+
+public class SkylineTest {
+
+    @Test
+    public void emptyTreeHasEmptySkyline() {
+        Skyline<Integer> skyline = new Skyline<>(RTree.<Integer, Point>create());
+        skyline.findSkylinePoints();
+        assertTrue(skyline.getSkyLinePoints().isEmpty());
+    }
+
+    @Test
+    public void smallDifferencesAreOrderedCorrectly() {
+        // mindist differences below 1.0 were truncated to 0 by the old
+        // comparator
+        List<Entry<Integer, Point>> entries = new ArrayList<>();
+        entries.add(Entries.entry(1, Geometries.point(0.5, 0.4)));
+        entries.add(Entries.entry(2, Geometries.point(0.1, 0.9)));
+        entries.add(Entries.entry(3, Geometries.point(0.6, 0.5)));
+        entries.add(Entries.entry(4, Geometries.point(0.9, 0.1)));
+        RTree<Integer, Point> tree = RTree.<Integer, Point>create().add(entries);
+        Skyline<Integer> skyline = new Skyline<>(tree);
+        skyline.findSkylinePoints();
+        assertEquals(values(entries.get(1), entries.get(0), entries.get(3)),
+                values(skyline.getSkyLinePoints()));
+    }
+
+    @Test
+    public void dominatedPointWithEqualCoordinateSumIsNotInSkyline() {
+        // 0.1 + 0.2 and 0.1 + nextUp(0.2) round to the same double
+        Entry<Integer, Point> q = Entries.entry(1, Geometries.point(0.1, Math.nextUp(0.2)));
+        Entry<Integer, Point> p = Entries.entry(2, Geometries.point(0.1, 0.2));
+        RTree<Integer, Point> tree = RTree.<Integer, Point>create().add(q).add(p);
+        Skyline<Integer> skyline = new Skyline<>(tree);
+        skyline.findSkylinePoints();
+        assertEquals(values(p), values(skyline.getSkyLinePoints()));
+        assertEquals(values(p), values(tree.skyline().toList().toBlocking().single()));
+    }
+
+    @Test
+    public void duplicateLocationsAreAllInSkyline() {
+        List<Entry<Integer, Point>> entries = new ArrayList<>();
+        entries.add(Entries.entry(1, Geometries.point(1, 1)));
+        entries.add(Entries.entry(2, Geometries.point(1, 1)));
+        entries.add(Entries.entry(3, Geometries.point(1, 2)));
+        RTree<Integer, Point> tree = RTree.<Integer, Point>create().add(entries);
+        Skyline<Integer> skyline = new Skyline<>(tree);
+        skyline.findSkylinePoints();
+        assertEquals(2, skyline.getSkyLinePoints().size());
+    }
+
+    @Test
+    public void matchesBruteForceOnRandomData() {
+        Random r = new Random(7);
+        for (int run = 0; run < 20; run++) {
+            List<Entry<Integer, Point>> entries = randomEntries(r, 1 + r.nextInt(2000));
+            RTree<Integer, Point> tree = RTree.star().maxChildren(4 + r.nextInt(10))
+                    .<Integer, Point>create().add(entries);
+            Skyline<Integer> skyline = new Skyline<>(tree);
+            skyline.findSkylinePoints();
+            assertEquals(values(bruteForce(entries)), values(skyline.getSkyLinePoints()));
+        }
+    }
+
+    @Test
+    public void dominatedNodesArePruned() {
+        List<Entry<Integer, Point>> entries = new ArrayList<>();
+        for (int i = 0; i < 1000; i++)
+            entries.add(Entries.entry(i, Geometries.point(i, i)));
+        RTree<Integer, Point> tree = RTree.create(entries);
+        Skyline<Integer> skyline = new Skyline<>(tree);
+        skyline.findSkylinePoints();
+        assertEquals(1, skyline.getSkyLinePoints().size());
+        assertTrue(skyline.getPrunedNodeCount() > 0);
+        // only the first leaf is expanded
+        assertTrue(skyline.getPrunedEntryCount() < 10);
+    }
+
+    @Test
+    public void parallelMatchesBruteForceOnRandomData() {
+        Random r = new Random(13);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int run = 0; run < 20; run++) {
+                List<Entry<Integer, Point>> entries = randomEntries(r, 1 + r.nextInt(5000));
+                RTree<Integer, Point> tree = RTree.maxChildren(4 + r.nextInt(10)).<Integer, Point>create()
+                        .add(entries);
+                Skyline<Integer> skyline = new Skyline<>(tree).parallel(pool);
+                skyline.findSkylinePoints();
+                assertEquals(values(bruteForce(entries)), values(skyline.getSkyLinePoints()));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void constrainedSkylineWithPreferencesMatchesBruteForce() {
+        Random r = new Random(17);
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            for (int run = 0; run < 20; run++) {
+                List<Entry<Integer, Point>> entries = randomEntries(r, 1 + r.nextInt(3000));
+                RTree<Integer, Point> tree = RTree.maxChildren(4 + r.nextInt(10)).<Integer, Point>create()
+                        .add(entries);
+                double x = r.nextInt(30);
+                double y = r.nextInt(30);
+                Rectangle constraint = Geometries.rectangle(x, y, x + r.nextInt(30), y + r.nextInt(30));
+                Preference xp = r.nextBoolean() ? Preference.MIN : Preference.MAX;
+                Preference yp = r.nextBoolean() ? Preference.MIN : Preference.MAX;
+                // brute force on coordinates negated where larger is preferred
+                List<Entry<Integer, Point>> transformed = new ArrayList<>();
+                for (Entry<Integer, Point> e : entries) {
+                    Point p = e.geometry();
+                    if (constraint.contains(p.x(), p.y())) {
+                        transformed.add(Entries.entry(e.value(), Geometries.point(
+                                xp == Preference.MIN ? p.x() : -p.x(), yp == Preference.MIN ? p.y() : -p.y())));
+                    }
+                }
+                Set<Integer> expected = new HashSet<>(values(bruteForce(transformed)));
+                Skyline<Integer> serial = new Skyline<>(tree).within(constraint).prefer(xp, yp);
+                serial.findSkylinePoints();
+                assertEquals(expected, new HashSet<>(values(serial.getSkyLinePoints())));
+                Skyline<Integer> parallel = new Skyline<>(tree).within(constraint).prefer(xp, yp).parallel(pool);
+                parallel.findSkylinePoints();
+                assertEquals(expected, new HashSet<>(values(parallel.getSkyLinePoints())));
+                assertEquals(expected,
+                        new HashSet<>(values(tree.skyline(constraint, xp, yp).toList().toBlocking().single())));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void baselinesMatchBruteForceOnEachDistribution() {
+        for (SkylineData data : SkylineData.values()) {
+            List<Entry<Object, Point>> entries = data.entries(2000, 3);
+            List<Object> expected = values(bruteForce(entries));
+            assertEquals(expected, values(SkylineBaselines.blockNestedLoops(entries)));
+            assertEquals(expected, values(SkylineBaselines.sortFilterSkyline(entries)));
+            Skyline<Object> skyline = new Skyline<>(RTree.create(entries));
+            skyline.findSkylinePoints();
+            assertEquals(expected, values(skyline.getSkyLinePoints()));
+        }
+    }
+
+    @Test
+    public void baselinesExcludeDominatedPointWithEqualCoordinateSum() {
+        // the dominated point is first so a stable sort on x + y alone keeps
+        // it ahead of its dominator
+        Entry<Integer, Point> q = Entries.entry(1, Geometries.point(0.1, Math.nextUp(0.2)));
+        Entry<Integer, Point> p = Entries.entry(2, Geometries.point(0.1, 0.2));
+        List<Entry<Integer, Point>> entries = new ArrayList<>();
+        entries.add(q);
+        entries.add(p);
+        assertEquals(values(p), values(SkylineBaselines.blockNestedLoops(entries)));
+        assertEquals(values(p), values(SkylineBaselines.sortFilterSkyline(entries)));
+    }
+
+    static List<Entry<Integer, Point>> randomEntries(Random r, int n) {
+        List<Entry<Integer, Point>> entries = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            // coarse grid so that ties and duplicates occur
+            entries.add(Entries.entry(i, Geometries.point(r.nextInt(200) / 4.0, r.nextInt(200) / 4.0)));
+        }
+        return entries;
+    }
+
+    /**
+     * Returns the skyline of the entries sorted by x then value.
+     */
+    static <T> List<Entry<T, Point>> bruteForce(List<Entry<T, Point>> entries) {
+        List<Entry<T, Point>> list = new ArrayList<>();
+        for (Entry<T, Point> a : entries) {
+            boolean dominated = false;
+            for (Entry<T, Point> b : entries) {
+                if (Skyline.judgeIfDominate(b.geometry().x(), b.geometry().y(), a.geometry().x(),
+                        a.geometry().y())) {
+                    dominated = true;
+                    break;
+                }
+            }
+            if (!dominated)
+                list.add(a);
+        }
+        return sorted(list);
+    }
+
+    static <T> List<Entry<T, Point>> sorted(List<Entry<T, Point>> list) {
+        List<Entry<T, Point>> result = new ArrayList<>(list);
+        result.sort((a, b) -> {
+            int c = Double.compare(a.geometry().x(), b.geometry().x());
+            if (c == 0)
+                c = Double.compare(a.geometry().y(), b.geometry().y());
+            if (c == 0)
+                c = Integer.compare(a.value().hashCode(), b.value().hashCode());
+            return c;
+        });
+        return result;
+    }
+
+    @SafeVarargs
+    static <T> List<T> values(Entry<T, Point>... entries) {
+        List<T> list = new ArrayList<>();
+        for (Entry<T, Point> e : entries)
+            list.add(e.value());
+        return list;
+    }
+
+    static <T> List<T> values(List<Entry<T, Point>> entries) {
+        List<T> list = new ArrayList<>();
+        for (Entry<T, Point> e : sorted(entries))
+            list.add(e.value());
+        return list;
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.github.davidmoten.skyline;
+
+import static com.github.davidmoten.skyline.SkylineTest.bruteForce;
+import static com.github.davidmoten.skyline.SkylineTest.sorted;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.github.davidmoten.rtree.Entries;
+import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.RTree;
+import com.github.davidmoten.rtree.geometry.Geometries;
+import com.github.davidmoten.rtree.geometry.Point;
+
+public class SkylineUpdateTest {
+
+    @Test
+    public void deleteIgnoresEntriesStillAtTheDeletedLocation() {
+        List<Entry<Object, Point>> entries = Arrays.asList(entry(1, 1, 5), entry(2, 3, 3), entry(3, 5, 1),
+                entry(4, 3, 4), entry(5, 4, 3), entry(6, 3.5, 3.5));
+        RTree<Object, Point> tree = RTree.<Object, Point>create().add(entries);
+        List<Entry<Object, Point>> skyline = skyline(tree);
+        // the tree still holds an entry at (3, 3) which is treated as deleted
+        SkylineUpdate.delete(tree, skyline, entry(7, 3, 3));
+        assertEquals(Arrays.<Object>asList(1, 4, 6, 5, 3), values(skyline));
+    }
+
+    @Test
+    public void deleteMatchesBruteForce() {
+        Random r = new Random(7);
+        for (int run = 0; run < 200; run++) {
+            List<Entry<Object, Point>> entries = new ArrayList<>();
+            int n = 1 + r.nextInt(100);
+            for (int i = 0; i < n; i++) {
+                entries.add(entry(i, r.nextInt(40) / 2.0, r.nextInt(40) / 2.0));
+            }
+            RTree<Object, Point> tree = RTree.<Object, Point>create().add(entries);
+            List<Entry<Object, Point>> skyline = skyline(tree);
+            Entry<Object, Point> deleted = skyline.get(r.nextInt(skyline.size()));
+            tree = tree.delete(deleted);
+            entries = new ArrayList<>(entries);
+            entries.remove(deleted);
+            SkylineUpdate.delete(tree, skyline, deleted);
+            assertEquals(geometries(bruteForce(entries)), geometries(skyline));
+        }
+    }
+
+    private static Entry<Object, Point> entry(int value, double x, double y) {
+        return Entries.<Object, Point>entry(value, Geometries.point(x, y));
+    }
+
+    private static List<Entry<Object, Point>> skyline(RTree<Object, Point> tree) {
+        Skyline<Object> s = new Skyline<>(tree);
+        s.findSkylinePoints();
+        return new ArrayList<>(s.getSkyLinePoints());
+    }
+
+    private static List<Object> values(List<Entry<Object, Point>> entries) {
+        List<Object> list = new ArrayList<>();
+        for (Entry<Object, Point> e : entries)
+            list.add(e.value());
+        return list;
+    }
+
+    private static List<Point> geometries(List<Entry<Object, Point>> entries) {
+        List<Point> list = new ArrayList<>();
+        for (Entry<Object, Point> e : sorted(entries))
+            list.add(e.geometry());
+        return list;
+    }
+
+}